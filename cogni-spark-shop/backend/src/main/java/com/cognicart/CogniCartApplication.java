@@ -2,10 +2,10 @@ package com.cognicart;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.modelmapper.ModelMapper;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CogniCartApplication {
 
     public static void main(String[] args) {
@@ -14,9 +14,4 @@ public class CogniCartApplication {
         System.out.println("📁 H2 Console available at: http://localhost:5454/h2-console");
         System.out.println("📚 API Documentation: http://localhost:5454/api");
     }
-
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
 }
@@ -0,0 +1,59 @@
+package com.cognicart.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Change stamps behind conditional GETs. ETags embed an epoch taken at startup so they never repeat across
+// restarts; a product untouched since startup reports the startup time as its last modification.
+@Component
+public class CatalogVersions {
+    
+    public record Stamp(long version, long lastModified) {
+    }
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Stamp initial = new Stamp(0, System.currentTimeMillis());
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<Long, Stamp> products = new ConcurrentHashMap<>();
+    private volatile Stamp catalog = initial;
+    
+    public Stamp product(Long id) {
+        return products.getOrDefault(id, initial);
+    }
+    
+    public Stamp catalog() {
+        return catalog;
+    }
+    
+    public String etag(String scope, Stamp stamp) {
+        return "\"" + scope + "-" + epoch + "-" + stamp.version() + "\"";
+    }
+    
+    // Stamps again after commit so a reader can never pair the new stamp with pre-commit data
+    public void changed(Long id) {
+        stamp(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stamp(id);
+                }
+            });
+        }
+    }
+    
+    public void changed(Collection<Long> ids) {
+        ids.forEach(this::changed);
+    }
+    
+    private void stamp(Long id) {
+        Stamp stamp = new Stamp(sequence.incrementAndGet(), System.currentTimeMillis());
+        products.put(id, stamp);
+        catalog = stamp;
+    }
+}
@@ -0,0 +1,149 @@
+package com.cognicart.cache;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// An already-serialized JSON value held in a direct (off-heap) buffer. As a SerializableString it can be
+// handed to JsonGenerator.writeRawValue, which copies the bytes straight into the generator's output buffer.
+public final class JsonBytes implements SerializableString {
+    
+    private static final int COPY_CHUNK = 8192;
+    
+    private final ByteBuffer buffer;
+    private final long version;
+    
+    private JsonBytes(ByteBuffer buffer, long version) {
+        this.buffer = buffer;
+        this.version = version;
+    }
+    
+    public static JsonBytes copyOf(byte[] json, long version) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(json.length);
+        buffer.put(json).flip();
+        return new JsonBytes(buffer.asReadOnlyBuffer(), version);
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public int size() {
+        return buffer.remaining();
+    }
+    
+    @Override
+    public String getValue() {
+        return new String(asUnquotedUTF8(), StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public int charLength() {
+        return getValue().length();
+    }
+    
+    @Override
+    public byte[] asUnquotedUTF8() {
+        byte[] bytes = new byte[size()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+    
+    @Override
+    public int appendUnquotedUTF8(byte[] target, int offset) {
+        int length = size();
+        if (offset + length > target.length) {
+            return -1;
+        }
+        buffer.duplicate().get(target, offset, length);
+        return length;
+    }
+    
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        ByteBuffer source = buffer.duplicate();
+        byte[] chunk = new byte[Math.min(COPY_CHUNK, source.remaining())];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+        return size();
+    }
+    
+    @Override
+    public int putUnquotedUTF8(ByteBuffer target) {
+        if (target.remaining() < size()) {
+            return -1;
+        }
+        target.put(buffer.duplicate());
+        return size();
+    }
+    
+    @Override
+    public int appendUnquoted(char[] target, int offset) {
+        String value = getValue();
+        if (offset + value.length() > target.length) {
+            return -1;
+        }
+        value.getChars(0, value.length(), target, offset);
+        return value.length();
+    }
+    
+    // The quoted forms treat the JSON text as a string value; nothing on the hot path uses them
+    @Override
+    public char[] asQuotedChars() {
+        return JsonStringEncoder.getInstance().quoteAsString(getValue());
+    }
+    
+    @Override
+    public byte[] asQuotedUTF8() {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+    }
+    
+    @Override
+    public int appendQuotedUTF8(byte[] target, int offset) {
+        byte[] quoted = asQuotedUTF8();
+        if (offset + quoted.length > target.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, target, offset, quoted.length);
+        return quoted.length;
+    }
+    
+    @Override
+    public int appendQuoted(char[] target, int offset) {
+        char[] quoted = asQuotedChars();
+        if (offset + quoted.length > target.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, target, offset, quoted.length);
+        return quoted.length;
+    }
+    
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        byte[] quoted = asQuotedUTF8();
+        out.write(quoted);
+        return quoted.length;
+    }
+    
+    @Override
+    public int putQuotedUTF8(ByteBuffer target) {
+        byte[] quoted = asQuotedUTF8();
+        if (target.remaining() < quoted.length) {
+            return -1;
+        }
+        target.put(quoted);
+        return quoted.length;
+    }
+    
+    @Override
+    public String toString() {
+        return getValue();
+    }
+}
@@ -0,0 +1,210 @@
+package com.cognicart.cache;
+
+import com.cognicart.dto.response.CacheStatsResponse;
+import com.cognicart.dto.response.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Read-through cache of product snapshots, addressable by id, productId and slug. Every invalidation takes the
+// next number from one sequence and records it against the product; a load only publishes its snapshot if the
+// product has not been invalidated since the sequence value read before loading. Lookups by productId or slug
+// learn the id only from the loaded row, so they rely on this too.
+@Component
+public class ProductCache {
+    
+    private final Cache<Long, ProductSnapshot> byId;
+    private final Cache<String, Long> idByProductId;
+    private final Cache<String, Long> idBySlug;
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final long maxSize;
+    private final Duration ttl;
+    
+    public ProductCache(@Value("${app.cache.products.max-size:50000}") long maxSize,
+                        @Value("${app.cache.products.ttl:10m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByProductId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.idBySlug = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    public Optional<ProductSnapshot> getById(Long id, Function<Long, Optional<ProductResponse>> loader) {
+        ProductSnapshot cached = byId.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        long loadedAt = invalidationSequence.get();
+        return loader.apply(id).map(response -> store(response, loadedAt));
+    }
+    
+    public Optional<ProductSnapshot> getByProductId(String productId, Function<String, Optional<ProductResponse>> loader) {
+        ProductSnapshot cached = lookup(idByProductId.getIfPresent(productId));
+        if (cached != null && productId.equals(cached.getProductId())) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        long loadedAt = invalidationSequence.get();
+        return loader.apply(productId).map(response -> store(response, loadedAt));
+    }
+    
+    public Optional<ProductSnapshot> getBySlug(String slug, Function<String, Optional<ProductResponse>> loader) {
+        ProductSnapshot cached = lookup(idBySlug.getIfPresent(slug));
+        if (cached != null && slug.equals(cached.getSlug())) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        long loadedAt = invalidationSequence.get();
+        return loader.apply(slug).map(response -> store(response, loadedAt));
+    }
+    
+    // Serves what it can from the cache and hands all the misses to the loader in one call
+    public Map<Long, ProductSnapshot> getAllById(Collection<Long> ids,
+                                                 Function<List<Long>, Collection<ProductResponse>> loader) {
+        Map<Long, ProductSnapshot> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            ProductSnapshot cached = byId.getIfPresent(id);
+            if (cached != null) {
+                hits.increment();
+                result.put(id, cached);
+            } else {
+                misses.increment();
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadedAt = invalidationSequence.get();
+            for (ProductResponse response : loader.apply(missing)) {
+                result.put(response.getId(), store(response, loadedAt));
+            }
+        }
+        return result;
+    }
+    
+    public Map<String, ProductSnapshot> getAllByProductId(Collection<String> productIds,
+                                                          Function<List<String>, Collection<ProductResponse>> loader) {
+        Map<String, ProductSnapshot> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String productId : productIds) {
+            ProductSnapshot cached = lookup(idByProductId.getIfPresent(productId));
+            if (cached != null && productId.equals(cached.getProductId())) {
+                hits.increment();
+                result.put(productId, cached);
+            } else {
+                misses.increment();
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadedAt = invalidationSequence.get();
+            for (ProductResponse response : loader.apply(missing)) {
+                result.put(response.getProductId(), store(response, loadedAt));
+            }
+        }
+        return result;
+    }
+    
+    public Optional<ProductSnapshot> getIfPresent(Long id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+    
+    // Bumps the product's version and drops its entries now and again once the surrounding transaction commits
+    public void invalidate(Long id) {
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        }
+    }
+    
+    public long version(Long id) {
+        return versions.getOrDefault(id, 0L);
+    }
+    
+    public CacheStatsResponse stats() {
+        CacheStats stats = byId.stats();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        return CacheStatsResponse.builder()
+                .name("products")
+                .size(byId.estimatedSize())
+                .maxSize(maxSize)
+                .ttlSeconds(ttl.toSeconds())
+                .hitCount(hitCount)
+                .missCount(missCount)
+                .hitRate(hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount))
+                .evictionCount(stats.evictionCount())
+                .invalidationCount(invalidations.sum())
+                .build();
+    }
+    
+    private ProductSnapshot lookup(Long id) {
+        return id != null ? byId.getIfPresent(id) : null;
+    }
+    
+    // Only publishes the snapshot if the product was not invalidated after the caller read the sequence; a stale
+    // snapshot is still returned to that caller, it just is not cached
+    private ProductSnapshot store(ProductResponse response, long loadedAt) {
+        ProductSnapshot snapshot = new ProductSnapshot(response, loadedAt);
+        ProductSnapshot published = byId.asMap().compute(snapshot.getId(), (id, existing) ->
+                version(id) <= loadedAt ? snapshot : existing);
+        if (published == snapshot) {
+            if (snapshot.getProductId() != null) {
+                idByProductId.put(snapshot.getProductId(), snapshot.getId());
+            }
+            if (snapshot.getSlug() != null) {
+                idBySlug.put(snapshot.getSlug(), snapshot.getId());
+            }
+        }
+        return snapshot;
+    }
+    
+    private void evict(Long id) {
+        versions.merge(id, invalidationSequence.incrementAndGet(), Math::max);
+        ProductSnapshot removed = byId.asMap().remove(id);
+        if (removed != null) {
+            if (removed.getProductId() != null) idByProductId.invalidate(removed.getProductId());
+            if (removed.getSlug() != null) idBySlug.invalidate(removed.getSlug());
+        }
+        invalidations.increment();
+    }
+}
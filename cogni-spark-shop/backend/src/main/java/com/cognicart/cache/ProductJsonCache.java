@@ -0,0 +1,72 @@
+package com.cognicart.cache;
+
+import com.cognicart.dto.response.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Full ProductResponse JSON per product, tagged with the catalog version it was rendered at. An entry only
+// counts while its version is still the product's current one, so product writes invalidate it implicitly.
+@Component
+public class ProductJsonCache {
+    
+    private final Cache<Long, JsonBytes> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final DataSize maxSize;
+    
+    @Autowired
+    private CatalogVersions catalogVersions;
+    
+    public ProductJsonCache(@Value("${app.cache.product-json.max-size:64MB}") DataSize maxSize) {
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, JsonBytes json) -> json.size())
+                .recordStats()
+                .build();
+    }
+    
+    public JsonBytes get(Long id) {
+        JsonBytes json = entries.getIfPresent(id);
+        if (json != null && json.getVersion() == catalogVersions.product(id).version()) {
+            hits.increment();
+            return json;
+        }
+        if (json != null && entries.asMap().remove(id, json)) {
+            invalidations.increment();
+        }
+        misses.increment();
+        return null;
+    }
+    
+    // The caller reads the version before loading the product it rendered; a write in between leaves the entry out
+    public JsonBytes put(Long id, long version, byte[] json) {
+        JsonBytes entry = JsonBytes.copyOf(json, version);
+        entries.asMap().compute(id, (key, existing) ->
+                version == catalogVersions.product(key).version() ? entry : existing);
+        return entry;
+    }
+    
+    public CacheStatsResponse stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        return CacheStatsResponse.builder()
+                .name("product-json")
+                .size(entries.estimatedSize())
+                .weightBytes(entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .maxWeightBytes(maxSize.toBytes())
+                .hitCount(hitCount)
+                .missCount(missCount)
+                .hitRate(hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount))
+                .evictionCount(entries.stats().evictionCount())
+                .invalidationCount(invalidations.sum())
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.cognicart.cache;
+
+import com.cognicart.dto.response.ProductResponse;
+
+// Immutable cached view of a product; callers always receive their own copy of the response
+public final class ProductSnapshot {
+    
+    private final ProductResponse response;
+    private final long version;
+    
+    ProductSnapshot(ProductResponse response, long version) {
+        this.response = response.toBuilder().build();
+        this.version = version;
+    }
+    
+    public Long getId() {
+        return response.getId();
+    }
+    
+    public String getProductId() {
+        return response.getProductId();
+    }
+    
+    public String getSlug() {
+        return response.getSlug();
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public ProductResponse toResponse() {
+        return response.toBuilder().build();
+    }
+}
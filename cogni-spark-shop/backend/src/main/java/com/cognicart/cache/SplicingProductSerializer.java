@@ -0,0 +1,69 @@
+package com.cognicart.cache;
+
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.projection.ProductFields;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// Writes a product as its cached JSON bytes when the full representation is wanted and the cached copy is
+// current; falls back to the regular bean serializer otherwise (misses, ?fields selections).
+public class SplicingProductSerializer extends StdSerializer<ProductResponse>
+        implements ResolvableSerializer, ContextualSerializer {
+    
+    private final JsonSerializer<Object> delegate;
+    private final ProductJsonCache productJsonCache;
+    
+    public SplicingProductSerializer(JsonSerializer<Object> delegate, ProductJsonCache productJsonCache) {
+        super(ProductResponse.class);
+        this.delegate = delegate;
+        this.productJsonCache = productJsonCache;
+    }
+    
+    // The wrapped bean serializer still needs its resolution and contextualisation passes (null handling, filters)
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer resolvable) {
+            resolvable.resolve(provider);
+        }
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+        if (delegate instanceof ContextualSerializer contextual) {
+            JsonSerializer<?> resolved = contextual.createContextual(provider, property);
+            if (resolved != delegate) {
+                return new SplicingProductSerializer((JsonSerializer<Object>) resolved, productJsonCache);
+            }
+        }
+        return this;
+    }
+    
+    @Override
+    public void serialize(ProductResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        JsonBytes json = value.getId() != null && writesAllFields(value, provider)
+                ? productJsonCache.get(value.getId())
+                : null;
+        if (json != null) {
+            gen.writeRawValue(json);
+        } else {
+            delegate.serialize(value, gen, provider);
+        }
+    }
+    
+    private static boolean writesAllFields(ProductResponse value, SerializerProvider provider) {
+        FilterProvider filters = provider.getFilterProvider();
+        return filters != null
+                && filters.findPropertyFilter(ProductFields.FILTER_ID, value) == SimpleBeanPropertyFilter.serializeAll();
+    }
+}
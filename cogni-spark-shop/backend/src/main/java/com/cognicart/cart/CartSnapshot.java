@@ -0,0 +1,10 @@
+package com.cognicart.cart;
+
+import java.util.List;
+
+// Copy of a cart taken under its lock; line ids are null for lines not yet written to the database
+public record CartSnapshot(Long cartId, List<Line> lines, double subtotal, int itemCount) {
+
+    public record Line(Long itemId, Long productId, int quantity) {
+    }
+}
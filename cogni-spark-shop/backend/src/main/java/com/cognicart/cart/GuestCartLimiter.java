@@ -0,0 +1,72 @@
+package com.cognicart.cart;
+
+import com.cognicart.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Limits how many guest carts one client address can start: a token bucket per address holding up to
+// new-carts-per-minute tokens, refilled at that rate. Each new cart takes space in the guest cart file until it
+// expires, so an unthrottled client could fill the file with empty-handed carts.
+@Component
+public class GuestCartLimiter {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int cartsPerMinute;
+    private final LongSupplier clock;
+    // A full bucket is the same as no bucket, so addresses idle for a minute are dropped
+    private final Cache<String, Bucket> buckets = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(1))
+            .build();
+
+    @Autowired
+    public GuestCartLimiter(@Value("${app.cart.guest.new-carts-per-minute:10}") int cartsPerMinute) {
+        this(cartsPerMinute, System::nanoTime);
+    }
+
+    GuestCartLimiter(int cartsPerMinute, LongSupplier clock) {
+        this.cartsPerMinute = cartsPerMinute;
+        this.clock = clock;
+    }
+
+    // Takes a token for a new cart started from this address, or throws when its bucket is empty
+    public void acquire(String clientAddress) {
+        if (cartsPerMinute <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Bucket bucket = buckets.get(clientAddress != null ? clientAddress : "", address -> new Bucket(cartsPerMinute, now));
+        if (!bucket.take(cartsPerMinute, now)) {
+            throw new TooManyRequestsException("Too many new carts, please try again in a minute");
+        }
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean take(int capacity, long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - refilledAt) * capacity / MINUTE_NANOS);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
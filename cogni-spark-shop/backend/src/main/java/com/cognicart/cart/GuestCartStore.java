@@ -0,0 +1,492 @@
+package com.cognicart.cart;
+
+import com.cognicart.enums.CartOperationType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// Guest carts in a memory-mapped, append-only file. A change appends the cart's whole new record (product id and
+// quantity per line) and points the cart's slot in an off-heap hash index at it, so reads and writes work on the
+// mapped bytes and allocate nothing. Superseded and expired records are dropped by copying the live ones into a new
+// file, which is also how the file grows. Records are checksummed and their length is written last, so a restart
+// after a crash keeps every cart as of its last complete change.
+@Slf4j
+@Component
+public class GuestCartStore {
+
+    private static final int MAGIC = 0x47435254;
+    private static final int FORMAT = 1;
+    private static final int FILE_HEADER = 8;
+    // length, checksum, cart id, updated at, line count; then the lines
+    private static final int RECORD_HEADER = 28;
+    // product id, quantity
+    private static final int LINE_SIZE = 12;
+    // cart id, record offset; cart id 0 marks a free slot
+    private static final int SLOT_SIZE = 12;
+    private static final int MIN_SLOTS = 1024;
+
+    private final Path path;
+    private final int initialSize;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final int maxLines;
+    private final int maxQuantity;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CRC32 crc = new CRC32();
+
+    private MappedByteBuffer file;
+    // A second view of the mapping to checksum records through; used under the write lock only
+    private ByteBuffer checksumView;
+    private int writePosition;
+    // Bytes of the records the index points at; the rest of the file up to writePosition is superseded
+    private long liveBytes;
+    private volatile boolean unsynced;
+
+    private ByteBuffer index;
+    private int slotMask;
+    private int carts;
+
+    public GuestCartStore(@Value("${app.cart.guest.path:data/guest-carts.dat}") String path,
+                          @Value("${app.cart.guest.file-size:16MB}") DataSize initialSize,
+                          @Value("${app.cart.guest.max-file-size:1GB}") DataSize maxSize,
+                          @Value("${app.cart.guest.ttl:30d}") Duration ttl,
+                          @Value("${app.cart.guest.max-lines:100}") int maxLines,
+                          @Value("${app.cart.guest.max-quantity:999}") int maxQuantity) {
+        this.path = Path.of(path);
+        this.maxSize = (int) Math.min(maxSize.toBytes(), Integer.MAX_VALUE);
+        this.initialSize = (int) Math.min(initialSize.toBytes(), this.maxSize);
+        this.ttlMillis = ttl.toMillis();
+        this.maxLines = maxLines;
+        this.maxQuantity = maxQuantity;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size >= FILE_HEADER && size <= Integer.MAX_VALUE) {
+                map(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+                if (file.getInt(0) == MAGIC && file.getInt(4) == FORMAT) {
+                    recover();
+                    return;
+                }
+                log.warn("Ignoring guest cart file {} with an unknown format", path);
+            }
+            channel.truncate(0);
+            map(channel.map(FileChannel.MapMode.READ_WRITE, 0, initialSize));
+        }
+        file.putInt(0, MAGIC);
+        file.putInt(4, FORMAT);
+        writePosition = FILE_HEADER;
+        liveBytes = 0;
+        newIndex(MIN_SLOTS);
+    }
+
+    // Calls back with the cart's lines in the order they were first added, under the store's read lock; returns
+    // false when there is no such cart or it has expired
+    public boolean read(long cartId, LineConsumer lines) {
+        lock.readLock().lock();
+        try {
+            int position = current(cartId, System.currentTimeMillis());
+            if (position < 0) {
+                return false;
+            }
+            int count = file.getInt(position + 24);
+            for (int i = 0; i < count; i++) {
+                int line = position + RECORD_HEADER + i * LINE_SIZE;
+                lines.accept(file.getLong(line), file.getInt(line + 8));
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Appends the cart's record with one line added to, set or removed; an expired cart starts out empty. Line
+    // quantities are capped at max-quantity, so repeated adds cannot overflow them or the cart's totals.
+    public void change(long cartId, CartOperationType op, long productId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            int old = current(cartId, now);
+            int oldLines = old < 0 ? 0 : file.getInt(old + 24);
+            int match = -1;
+            for (int i = 0; i < oldLines && match < 0; i++) {
+                if (file.getLong(old + RECORD_HEADER + i * LINE_SIZE) == productId) {
+                    match = i;
+                }
+            }
+
+            int lines;
+            switch (op) {
+                case ADD -> {
+                    if (match < 0 && oldLines >= maxLines) {
+                        throw new RuntimeException("A guest cart holds at most " + maxLines + " products");
+                    }
+                    lines = match < 0 ? oldLines + 1 : oldLines;
+                }
+                case SET -> {
+                    if (match < 0) {
+                        throw new RuntimeException("Cart item not found");
+                    }
+                    lines = oldLines;
+                }
+                default -> {
+                    if (match < 0) {
+                        return;
+                    }
+                    lines = oldLines - 1;
+                }
+            }
+
+            int length = RECORD_HEADER + lines * LINE_SIZE;
+            if (ensureCapacity(length, now)) {
+                old = current(cartId, now);
+            }
+            int position = writePosition;
+            int target = position + RECORD_HEADER;
+            for (int i = 0; i < oldLines; i++) {
+                int source = old + RECORD_HEADER + i * LINE_SIZE;
+                if (i != match) {
+                    file.putLong(target, file.getLong(source));
+                    file.putInt(target + 8, file.getInt(source + 8));
+                } else if (op == CartOperationType.REMOVE) {
+                    continue;
+                } else {
+                    file.putLong(target, productId);
+                    file.putInt(target + 8, capped(op == CartOperationType.ADD ? (long) file.getInt(source + 8) + quantity : quantity));
+                }
+                target += LINE_SIZE;
+            }
+            if (match < 0) {
+                file.putLong(target, productId);
+                file.putInt(target + 8, capped(quantity));
+            }
+            append(cartId, position, length, lines, now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int capped(long quantity) {
+        return (int) Math.min(quantity, maxQuantity);
+    }
+
+    // Appends an empty record, which deletes the cart on replay
+    public void clear(long cartId) {
+        lock.writeLock().lock();
+        try {
+            if (find(cartId) < 0) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            ensureCapacity(RECORD_HEADER, now);
+            append(cartId, writePosition, RECORD_HEADER, 0, now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Page cache writes already survive a restart of the process; this makes them survive the machine's
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.cart.guest.sync-interval:5000}")
+    public void sync() {
+        if (!unsynced) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            unsynced = false;
+            file.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Compacts once superseded and expired records take up half the written part of the file
+    @Scheduled(fixedDelayString = "${app.cart.guest.compact-interval:3600000}",
+               initialDelayString = "${app.cart.guest.compact-interval:3600000}")
+    public void compactIfWasteful() {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            long expired = 0;
+            for (int slot = 0; slot <= slotMask; slot++) {
+                if (index.getLong(slot * SLOT_SIZE) != 0) {
+                    int position = index.getInt(slot * SLOT_SIZE + 8);
+                    if (isExpired(position, now)) {
+                        expired += file.getInt(position);
+                    }
+                }
+            }
+            long used = writePosition - FILE_HEADER;
+            long reclaimable = used - liveBytes + expired;
+            if (reclaimable > 0 && reclaimable * 2 >= used) {
+                compact(0, now);
+                log.info("Compacted guest cart file {}: {} carts in {} bytes, {} bytes reclaimed", path, carts,
+                        writePosition, reclaimable);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called under the write lock. Fills in the record, checksums it and publishes it by writing its length last.
+    private void append(long cartId, int position, int length, int lines, long now) {
+        file.putLong(position + 8, cartId);
+        file.putLong(position + 16, now);
+        file.putInt(position + 24, lines);
+        file.putInt(position + 4, checksum(position, length));
+        file.putInt(position, length);
+        writePosition = position + length;
+        unsynced = true;
+        publish(cartId, position, length, lines);
+    }
+
+    // Points the cart at its newest record; a record without lines deletes the cart
+    private void publish(long cartId, int position, int length, int lines) {
+        int old = find(cartId);
+        if (old >= 0) {
+            liveBytes -= file.getInt(old);
+        }
+        if (lines > 0) {
+            put(cartId, position);
+            liveBytes += length;
+        } else {
+            remove(cartId);
+        }
+    }
+
+    // Compacts when the record does not fit; returns whether records moved. Expiry is judged as of the caller's
+    // clock reading, so a cart the caller found live is still there afterwards.
+    private boolean ensureCapacity(int length, long now) {
+        if ((long) writePosition + length <= file.capacity()) {
+            return false;
+        }
+        compact(length, now);
+        return true;
+    }
+
+    // Copies the live, unexpired records into a new file of at least twice their size and swaps it in. The old
+    // file is replaced only once the new one is complete and on disk.
+    private void compact(int reserve, long now) {
+        long needed = FILE_HEADER + liveBytes + reserve;
+        long size = initialSize;
+        while (size < needed * 2 && size < maxSize) {
+            size *= 2;
+        }
+        size = Math.min(size, maxSize);
+        if (needed > size) {
+            throw new RuntimeException("Guest cart storage is full");
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        MappedByteBuffer compacted;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            compacted = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not compact the guest cart file", e);
+        }
+        compacted.putInt(0, MAGIC);
+        compacted.putInt(4, FORMAT);
+
+        ByteBuffer oldIndex = index;
+        int oldSlots = slotMask + 1;
+        newIndex(Math.max(MIN_SLOTS, Integer.highestOneBit(Math.max(1, carts)) * 4));
+        int position = FILE_HEADER;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            long cartId = oldIndex.getLong(slot * SLOT_SIZE);
+            if (cartId == 0) {
+                continue;
+            }
+            int source = oldIndex.getInt(slot * SLOT_SIZE + 8);
+            if (isExpired(source, now)) {
+                continue;
+            }
+            int length = file.getInt(source);
+            compacted.put(position, file, source, length);
+            put(cartId, position);
+            position += length;
+        }
+        compacted.force();
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Keep serving from the old file and index
+            index = oldIndex;
+            slotMask = oldSlots - 1;
+            carts = countCarts();
+            throw new RuntimeException("Could not compact the guest cart file", e);
+        }
+        map(compacted);
+        writePosition = position;
+        liveBytes = position - FILE_HEADER;
+    }
+
+    // Replays the records in file order: a cart's last record is its current state
+    private void recover() {
+        newIndex(MIN_SLOTS);
+        liveBytes = 0;
+        int position = FILE_HEADER;
+        while (position + RECORD_HEADER <= file.capacity()) {
+            int length = file.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (!isComplete(position, length)) {
+                // Nothing was appended after the record that was being written, so clearing the rest of the file
+                // only drops that record
+                log.warn("Guest cart file {} ends in an incomplete record at offset {}, dropping it", path, position);
+                for (int i = position; i < file.capacity(); i++) {
+                    file.put(i, (byte) 0);
+                }
+                break;
+            }
+            publish(file.getLong(position + 8), position, length, file.getInt(position + 24));
+            position += length;
+        }
+        writePosition = position;
+        log.info("Restored {} guest carts from {}", carts, path);
+    }
+
+    private boolean isComplete(int position, int length) {
+        if (length < RECORD_HEADER || (long) position + length > file.capacity()
+                || (length - RECORD_HEADER) % LINE_SIZE != 0
+                || file.getInt(position + 24) != (length - RECORD_HEADER) / LINE_SIZE) {
+            return false;
+        }
+        return file.getInt(position + 4) == checksum(position, length);
+    }
+
+    // Covers everything after the length and checksum fields
+    private int checksum(int position, int length) {
+        checksumView.clear().position(position + 8).limit(position + length);
+        crc.reset();
+        crc.update(checksumView);
+        return (int) crc.getValue();
+    }
+
+    private void map(MappedByteBuffer mapping) {
+        file = mapping;
+        checksumView = mapping.duplicate();
+    }
+
+    private int current(long cartId, long now) {
+        int position = find(cartId);
+        return position >= 0 && !isExpired(position, now) ? position : -1;
+    }
+
+    private boolean isExpired(int position, long now) {
+        return file.getLong(position + 16) < now - ttlMillis;
+    }
+
+    private void newIndex(int slots) {
+        index = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        slotMask = slots - 1;
+        carts = 0;
+    }
+
+    private static int hash(long cartId) {
+        long h = cartId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // The slot holding the cart, or the free slot where it would go
+    private int slotOf(long cartId) {
+        int slot = hash(cartId) & slotMask;
+        while (true) {
+            long key = index.getLong(slot * SLOT_SIZE);
+            if (key == cartId || key == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    private int find(long cartId) {
+        int slot = slotOf(cartId);
+        return index.getLong(slot * SLOT_SIZE) != 0 ? index.getInt(slot * SLOT_SIZE + 8) : -1;
+    }
+
+    private void put(long cartId, int position) {
+        int slot = slotOf(cartId);
+        if (index.getLong(slot * SLOT_SIZE) == 0) {
+            if ((carts + 1) * 2 > slotMask + 1) {
+                growIndex();
+                slot = slotOf(cartId);
+            }
+            index.putLong(slot * SLOT_SIZE, cartId);
+            carts++;
+        }
+        index.putInt(slot * SLOT_SIZE + 8, position);
+    }
+
+    // Linear probing without tombstones: later entries of the probe run are shifted back into the freed slot
+    private void remove(long cartId) {
+        int hole = slotOf(cartId);
+        if (index.getLong(hole * SLOT_SIZE) == 0) {
+            return;
+        }
+        int slot = (hole + 1) & slotMask;
+        long key;
+        while ((key = index.getLong(slot * SLOT_SIZE)) != 0) {
+            int home = hash(key) & slotMask;
+            if (((slot - home) & slotMask) >= ((slot - hole) & slotMask)) {
+                index.putLong(hole * SLOT_SIZE, key);
+                index.putInt(hole * SLOT_SIZE + 8, index.getInt(slot * SLOT_SIZE + 8));
+                hole = slot;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        index.putLong(hole * SLOT_SIZE, 0);
+        carts--;
+    }
+
+    private void growIndex() {
+        ByteBuffer oldIndex = index;
+        int oldSlots = slotMask + 1;
+        newIndex(oldSlots * 2);
+        for (int slot = 0; slot < oldSlots; slot++) {
+            long cartId = oldIndex.getLong(slot * SLOT_SIZE);
+            if (cartId != 0) {
+                put(cartId, oldIndex.getInt(slot * SLOT_SIZE + 8));
+            }
+        }
+    }
+
+    private int countCarts() {
+        int count = 0;
+        for (int slot = 0; slot <= slotMask; slot++) {
+            if (index.getLong(slot * SLOT_SIZE) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    public interface LineConsumer {
+        void accept(long productId, int quantity);
+    }
+}
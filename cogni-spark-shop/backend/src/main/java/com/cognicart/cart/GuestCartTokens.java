@@ -0,0 +1,78 @@
+package com.cognicart.cart;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Guest cart tokens are a random cart id followed by an HMAC-SHA256 tag over it, base64url encoded. The tag keeps
+// anyone from reaching a cart by guessing ids, and nothing about a token is stored besides the cart itself.
+@Component
+public class GuestCartTokens {
+
+    private static final int ID_BYTES = 8;
+    private static final int TAG_BYTES = 16;
+    // Keeps these tags distinct from anything else signed with the same secret
+    private static final byte[] PURPOSE = "guest-cart".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public GuestCartTokens(@Value("${app.cart.guest.token-secret:${jwt.secret}}") String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    // Cart id 0 is never handed out; the store uses it for free index slots
+    public long newCartId() {
+        long cartId;
+        do {
+            cartId = random.nextLong();
+        } while (cartId == 0);
+        return cartId;
+    }
+
+    public String issue(long cartId) {
+        byte[] token = ByteBuffer.allocate(ID_BYTES + TAG_BYTES)
+                .putLong(cartId)
+                .put(tag(cartId))
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    public long parse(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cart token");
+        }
+        if (bytes.length != ID_BYTES + TAG_BYTES) {
+            throw new RuntimeException("Invalid cart token");
+        }
+        long cartId = ByteBuffer.wrap(bytes).getLong();
+        if (cartId == 0 || !MessageDigest.isEqual(tag(cartId), Arrays.copyOfRange(bytes, ID_BYTES, bytes.length))) {
+            throw new RuntimeException("Invalid cart token");
+        }
+        return cartId;
+    }
+
+    private byte[] tag(long cartId) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            mac.update(PURPOSE);
+            mac.update(ByteBuffer.allocate(ID_BYTES).putLong(cartId).array());
+            return Arrays.copyOf(mac.doFinal(), TAG_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
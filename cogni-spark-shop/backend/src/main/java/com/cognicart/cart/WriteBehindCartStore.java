@@ -0,0 +1,581 @@
+package com.cognicart.cart;
+
+import com.cognicart.dto.request.CartOperationRequest;
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.User;
+import com.cognicart.projection.CartItemRow;
+import com.cognicart.projection.ProductPrice;
+import com.cognicart.repository.CartItemRepository;
+import com.cognicart.repository.CartRepository;
+import com.cognicart.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Active carts held in memory, keyed by the owner's email. Mutations on one cart are serialized by a striped
+// lock and only mark lines dirty; a scheduled flush writes the latest quantity of every dirty line in JDBC
+// batches, so any number of edits to a line between flushes costs one write. Carts live on the node that
+// serves the user, so this needs sticky sessions when more than one node is running.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.write-behind.enabled", havingValue = "true")
+public class WriteBehindCartStore {
+
+    // Rows are versioned for the database-backed cart path; every write here bumps the version like Hibernate would
+    private static final String UPDATE_ITEM = "UPDATE cart_items SET quantity = ?, unit_price = ?, price_version = ?, " +
+            "version = version + 1 WHERE cart_id = ? AND product_id = ?";
+    private static final String INSERT_ITEM = "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price, price_version, " +
+            "version, created_at) VALUES (?, ?, ?, ?, ?, 0, ?)";
+    private static final String DELETE_ITEM = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+    private static final String DELETE_ITEMS = "DELETE FROM cart_items WHERE cart_id = ?";
+    private static final String UPDATE_CART = "UPDATE carts SET subtotal = ?, item_count = ?, updated_at = ?, " +
+            "version = version + 1 WHERE id = ?";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final int maxBatchCarts;
+    private final long idleTimeoutMillis;
+    private final ReentrantLock[] stripes;
+    private final Condition[] flushed;
+    // Carts dropped from memory per stripe, guarded by the stripe's lock
+    private final long[] evictions;
+    private final ConcurrentHashMap<String, CartState> carts = new ConcurrentHashMap<>();
+
+    public WriteBehindCartStore(@Value("${app.cart.write-behind.lock-stripes:256}") int lockStripes,
+                                @Value("${app.cart.write-behind.max-batch-carts:500}") int maxBatchCarts,
+                                @Value("${app.cart.write-behind.idle-timeout:30m}") Duration idleTimeout) {
+        this.maxBatchCarts = maxBatchCarts;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.stripes = new ReentrantLock[lockStripes];
+        this.flushed = new Condition[lockStripes];
+        this.evictions = new long[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+            flushed[i] = stripes[i].newCondition();
+        }
+    }
+
+    public CartSnapshot get(String email) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        try {
+            return state.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CartSnapshot add(String email, ProductPrice product, int quantity) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        try {
+            state.add(product, quantity);
+            return state.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CartSnapshot set(String email, Long productId, int quantity) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        try {
+            if (!state.lines.containsKey(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
+            state.set(productId, quantity);
+            return state.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CartSnapshot remove(String email, Long productId) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        try {
+            state.remove(productId);
+            return state.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Checks every operation against the cart before applying any, so a batch is applied whole or not at all.
+    // Products for additions are resolved by the caller.
+    public CartSnapshot apply(String email, List<CartOperationRequest> operations, Map<Long, ProductPrice> products) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        try {
+            Set<Long> present = new HashSet<>(state.lines.keySet());
+            for (int i = 0; i < operations.size(); i++) {
+                CartOperationRequest operation = operations.get(i);
+                switch (operation.getOp()) {
+                    case ADD -> present.add(operation.getProductId());
+                    case SET -> {
+                        if (!present.contains(operation.getProductId())) {
+                            throw new RuntimeException("Cart item not found for operation " + i);
+                        }
+                    }
+                    case REMOVE -> present.remove(operation.getProductId());
+                }
+            }
+            for (CartOperationRequest operation : operations) {
+                switch (operation.getOp()) {
+                    case ADD -> state.add(products.get(operation.getProductId()), operation.getQuantity());
+                    case SET -> state.set(operation.getProductId(), operation.getQuantity());
+                    case REMOVE -> state.remove(operation.getProductId());
+                }
+            }
+            return state.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes the cart's pending lines in the checkout transaction and keeps the cart locked until that ends,
+    // so checkout reads a durable cart that cannot change underneath it
+    public void prepareCheckout(String email) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        holdUntilCompletion(lock);
+        awaitFlush(email, state);
+        if (state.dirty.isEmpty()) {
+            return;
+        }
+        PendingCart pending = take(email, state);
+        // The cart stays locked until checkout ends, so no flush can overlap this write, and clearing the cart
+        // later in the same transaction must not wait for it
+        state.flushing = false;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                finish(List.of(pending), status == STATUS_COMMITTED);
+            }
+        });
+        writeChanges(List.of(pending));
+    }
+
+    // Deletes the cart's lines in the caller's transaction; the in-memory cart is emptied once that commits
+    public void clear(String email) {
+        ReentrantLock lock = lock(email);
+        CartState state = lockLoaded(email, lock);
+        holdUntilCompletion(lock);
+        awaitFlush(email, state);
+        jdbcTemplate.update(DELETE_ITEMS, state.cartId);
+        jdbcTemplate.update(UPDATE_CART, 0.0, 0, Timestamp.valueOf(LocalDateTime.now()), state.cartId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                state.lines.clear();
+                state.dirty.clear();
+                state.subtotal = 0;
+                state.itemCount = 0;
+            }
+        });
+    }
+
+    // Carts in memory are repriced once the price change commits; the database rows were repriced with it
+    public void reprice(Long productId, Double price, Long priceVersion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    repriceNow(productId, price, priceVersion);
+                }
+            });
+        } else {
+            repriceNow(productId, price, priceVersion);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<PendingCart> batch = new ArrayList<>();
+        for (Map.Entry<String, CartState> entry : carts.entrySet()) {
+            String email = entry.getKey();
+            CartState state = entry.getValue();
+            ReentrantLock lock = lock(email);
+            lock.lock();
+            try {
+                if (state.flushing) {
+                    continue;
+                }
+                if (!state.dirty.isEmpty()) {
+                    batch.add(take(email, state));
+                } else if (now - state.lastAccess > idleTimeoutMillis) {
+                    evict(email, state);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (batch.size() == maxBatchCarts) {
+                flushBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushBatch(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void repriceNow(Long productId, Double price, Long priceVersion) {
+        for (Map.Entry<String, CartState> entry : carts.entrySet()) {
+            ReentrantLock lock = lock(entry.getKey());
+            lock.lock();
+            try {
+                CartState state = entry.getValue();
+                Line line = state.lines.get(productId);
+                if (line != null && state.reprice(line, price, priceVersion)) {
+                    state.dirty.add(productId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // A batch that fails is retried cart by cart, so one bad cart cannot hold back the rest
+    private void flushBatch(List<PendingCart> batch) {
+        if (write(batch) || batch.size() == 1) {
+            return;
+        }
+        for (PendingCart failed : batch) {
+            PendingCart retry;
+            ReentrantLock lock = lock(failed.email());
+            lock.lock();
+            try {
+                if (failed.state().flushing || failed.state().dirty.isEmpty()) {
+                    continue;
+                }
+                retry = take(failed.email(), failed.state());
+            } finally {
+                lock.unlock();
+            }
+            write(List.of(retry));
+        }
+    }
+
+    private boolean write(List<PendingCart> batch) {
+        boolean written;
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeChanges(batch));
+            written = true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} carts", batch.size(), e);
+            written = false;
+        }
+        finish(batch, written);
+        return written;
+    }
+
+    private void finish(List<PendingCart> batch, boolean written) {
+        for (PendingCart pending : batch) {
+            ReentrantLock lock = lock(pending.email());
+            lock.lock();
+            try {
+                // Failed lines are written again, with whatever quantity they have by then
+                if (!written) {
+                    pending.state().dirty.addAll(pending.lines().keySet());
+                }
+                pending.state().flushing = false;
+                flushed[stripe(pending.email())].signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Lines are updated in place and inserted only where no row was updated; removed lines are deleted.
+    // The cart's totals are written as they were when its lines were taken.
+    private void writeChanges(List<PendingCart> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> totals = new ArrayList<>();
+        for (PendingCart pending : batch) {
+            pending.lines().forEach((productId, line) -> {
+                if (line != null) {
+                    updates.add(new Object[]{line.quantity(), line.unitPrice(), line.priceVersion(), pending.cartId(), productId});
+                } else {
+                    deletes.add(new Object[]{pending.cartId(), productId});
+                }
+            });
+            totals.add(new Object[]{pending.subtotal(), pending.itemCount(), now, pending.cartId()});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_ITEM, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            // Drivers that report SUCCESS_NO_INFO (-2) are taken at their word
+            if (updated[i] == 0) {
+                Object[] update = updates.get(i);
+                inserts.add(new Object[]{update[3], update[4], update[0], update[1], update[2], now});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM, inserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM, deletes);
+        }
+        jdbcTemplate.batchUpdate(UPDATE_CART, totals);
+    }
+
+    // Called under the cart's lock
+    private PendingCart take(String email, CartState state) {
+        Map<Long, LineWrite> lines = new LinkedHashMap<>();
+        for (Long productId : state.dirty) {
+            Line line = state.lines.get(productId);
+            lines.put(productId, line != null ? new LineWrite(line.quantity, line.unitPrice, line.priceVersion) : null);
+        }
+        state.dirty.clear();
+        state.flushing = true;
+        return new PendingCart(email, state, state.cartId, lines, state.subtotal, state.itemCount);
+    }
+
+    // A flush already in progress may still write this cart's lines; waiting releases the lock meanwhile
+    private void awaitFlush(String email, CartState state) {
+        while (state.flushing) {
+            flushed[stripe(email)].awaitUninterruptibly();
+        }
+    }
+
+    private void holdUntilCompletion(ReentrantLock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.unlock();
+            throw new IllegalStateException("Cart checkout and clear must run in a transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Returns the cart with its lock held. A cart that is not in memory is read before taking the lock, so a
+    // slow query never holds up the other carts on the stripe; the read is discarded if the cart was loaded or
+    // evicted meanwhile. A missing cart row is created under the lock, so concurrent first requests create one.
+    private CartState lockLoaded(String email, ReentrantLock lock) {
+        while (true) {
+            lock.lock();
+            CartState state = carts.get(email);
+            if (state != null) {
+                state.lastAccess = System.currentTimeMillis();
+                return state;
+            }
+            long evicted = evictions[stripe(email)];
+            lock.unlock();
+
+            CartState loaded = read(email);
+            lock.lock();
+            if (carts.get(email) == null && evictions[stripe(email)] == evicted) {
+                if (loaded == null) {
+                    try {
+                        loaded = create(email);
+                    } catch (RuntimeException e) {
+                        lock.unlock();
+                        throw e;
+                    }
+                }
+                carts.put(email, loaded);
+                loaded.lastAccess = System.currentTimeMillis();
+                return loaded;
+            }
+            lock.unlock();
+        }
+    }
+
+    // Reads join the caller's transaction, so a request never holds two connections
+    private CartState read(String email) {
+        return transactionTemplate.execute(status -> {
+            Long cartId = cartRepository.findIdByUserEmail(email).orElse(null);
+            if (cartId == null) {
+                return null;
+            }
+            CartState existing = new CartState(cartId);
+            for (CartItemRow row : cartItemRepository.findRowsByCartId(cartId)) {
+                Line line = new Line(row.id(), row.unitPrice(), row.priceVersion());
+                line.quantity = row.quantity();
+                existing.lines.put(row.productId(), line);
+                existing.addToTotals(line.unitPrice * line.quantity, line.quantity);
+            }
+            return existing;
+        });
+    }
+
+    // Called under the cart's lock; a cart row created in a transaction that rolls back is dropped from memory again
+    private CartState create(String email) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            CartState created = new CartState(cartRepository.save(Cart.builder().user(user).build()).getId());
+            evictOnRollback(email, created);
+            return created;
+        });
+    }
+
+    // Called under the cart's lock
+    private void evict(String email, CartState state) {
+        if (carts.remove(email, state)) {
+            evictions[stripe(email)]++;
+        }
+    }
+
+    private void evictOnRollback(String email, CartState state) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    ReentrantLock lock = lock(email);
+                    lock.lock();
+                    try {
+                        evict(email, state);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    private ReentrantLock lock(String email) {
+        return stripes[stripe(email)];
+    }
+
+    private int stripe(String email) {
+        int hash = email.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ hash >>> 16, stripes.length);
+    }
+
+    // A null line is a removed one
+    private record PendingCart(String email, CartState state, Long cartId, Map<Long, LineWrite> lines,
+                               double subtotal, int itemCount) {
+    }
+
+    private record LineWrite(int quantity, double unitPrice, long priceVersion) {
+    }
+
+    // Guarded by the stripe lock of its email
+    private static final class CartState {
+        private final Long cartId;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private final Set<Long> dirty = new LinkedHashSet<>();
+        private double subtotal;
+        private int itemCount;
+        private boolean flushing;
+        private long lastAccess;
+
+        CartState(Long cartId) {
+            this.cartId = cartId;
+        }
+
+        void add(ProductPrice product, int quantity) {
+            Line line = lines.get(product.id());
+            if (line == null) {
+                line = new Line(null, product.price(), product.priceVersion());
+                lines.put(product.id(), line);
+            } else {
+                reprice(line, product.price(), product.priceVersion());
+            }
+            line.quantity += quantity;
+            addToTotals(line.unitPrice * quantity, quantity);
+            dirty.add(product.id());
+        }
+
+        // The line must exist
+        void set(Long productId, int quantity) {
+            Line line = lines.get(productId);
+            addToTotals(line.unitPrice * (quantity - line.quantity), quantity - line.quantity);
+            line.quantity = quantity;
+            dirty.add(productId);
+        }
+
+        void remove(Long productId) {
+            Line line = lines.remove(productId);
+            if (line != null) {
+                addToTotals(-line.unitPrice * line.quantity, -line.quantity);
+                dirty.add(productId);
+            }
+        }
+
+        void addToTotals(double amount, int quantity) {
+            subtotal = Cart.roundAmount(subtotal + Cart.roundAmount(amount));
+            itemCount += quantity;
+        }
+
+        // Moves a line counted at an older price version to the given price
+        boolean reprice(Line line, Double price, Long priceVersion) {
+            if (priceVersion == null || line.priceVersion >= priceVersion) {
+                return false;
+            }
+            double unitPrice = price != null ? price : 0.0;
+            addToTotals((unitPrice - line.unitPrice) * line.quantity, 0);
+            line.unitPrice = unitPrice;
+            line.priceVersion = priceVersion;
+            return true;
+        }
+
+        CartSnapshot snapshot() {
+            List<CartSnapshot.Line> copy = new ArrayList<>(lines.size());
+            lines.forEach((productId, line) -> copy.add(new CartSnapshot.Line(line.itemId, productId, line.quantity)));
+            return new CartSnapshot(cartId, copy, subtotal, itemCount);
+        }
+    }
+
+    private static final class Line {
+        private final Long itemId;
+        private int quantity;
+        private double unitPrice;
+        private long priceVersion;
+
+        // Lines saved before they carried a price count as unpriced until the product is next priced
+        Line(Long itemId, Double unitPrice, Long priceVersion) {
+            this.itemId = itemId;
+            this.unitPrice = unitPrice != null ? unitPrice : 0.0;
+            this.priceVersion = priceVersion != null ? priceVersion : -1;
+        }
+    }
+}
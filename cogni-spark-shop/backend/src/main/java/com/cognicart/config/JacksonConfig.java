@@ -0,0 +1,43 @@
+package com.cognicart.config;
+
+import com.cognicart.cache.ProductJsonCache;
+import com.cognicart.cache.SplicingProductSerializer;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.projection.ProductFields;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+    
+    // ProductResponse carries a property filter; without a ?fields selection it serializes everything
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer productFieldsFilter() {
+        return builder -> builder.filters(ProductFields.ALL_FIELDS);
+    }
+    
+    // Splices cached product JSON into every payload that embeds a ProductResponse (pages, carts, wishlists, orders)
+    @Bean
+    public Module productJsonSplicing(ProductJsonCache productJsonCache) {
+        SimpleModule module = new SimpleModule("product-json-splicing");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                if (description.getBeanClass() == ProductResponse.class) {
+                    return new SplicingProductSerializer((JsonSerializer<Object>) serializer, productJsonCache);
+                }
+                return serializer;
+            }
+        });
+        return module;
+    }
+}
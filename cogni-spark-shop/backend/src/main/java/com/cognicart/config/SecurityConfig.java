@@ -2,6 +2,7 @@ package com.cognicart.config;
 
 import com.cognicart.security.JwtAuthenticationFilter;
 import com.cognicart.security.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,15 +44,25 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches finish requests that were authorized when they started, such as the export
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
+                // The full catalog export is for sellers and admins; it must come before the public product reads
+                .requestMatchers(HttpMethod.GET, "/api/products/export").hasAnyRole("SELLER", "ADMIN")
+                
                 // Public endpoints
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
+                .requestMatchers("/api/guest-cart/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/error").permitAll()
                 
                 // Seller endpoints
                 .requestMatchers("/api/seller/**").hasRole("SELLER")
                 
+                // Admin endpoints
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                
                 // Protected endpoints
                 .anyRequest().authenticated()
             )
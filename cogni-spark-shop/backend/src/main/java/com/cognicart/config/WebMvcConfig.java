@@ -0,0 +1,49 @@
+package com.cognicart.config;
+
+import com.cognicart.cache.JsonBytes;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    // Pre-serialized JSON bodies are copied to the response as-is
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new AbstractHttpMessageConverter<JsonBytes>(MediaType.APPLICATION_JSON) {
+            @Override
+            protected boolean supports(Class<?> clazz) {
+                return JsonBytes.class == clazz;
+            }
+            
+            @Override
+            protected boolean canRead(MediaType mediaType) {
+                return false;
+            }
+            
+            @Override
+            protected JsonBytes readInternal(Class<? extends JsonBytes> clazz, HttpInputMessage inputMessage) {
+                throw new HttpMessageNotReadableException("Pre-serialized JSON cannot be read", inputMessage);
+            }
+            
+            @Override
+            protected Long getContentLength(JsonBytes json, MediaType contentType) {
+                return (long) json.size();
+            }
+            
+            @Override
+            protected void writeInternal(JsonBytes json, HttpOutputMessage outputMessage) throws IOException {
+                json.writeUnquotedUTF8(outputMessage.getBody());
+            }
+        });
+    }
+}
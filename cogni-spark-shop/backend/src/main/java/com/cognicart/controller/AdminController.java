@@ -0,0 +1,39 @@
+package com.cognicart.controller;
+
+import com.cognicart.cache.ProductCache;
+import com.cognicart.cache.ProductJsonCache;
+import com.cognicart.dto.response.CacheStatsResponse;
+import com.cognicart.dto.response.Engine2StatsResponse;
+import com.cognicart.engine2.Engine2Processor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ProductJsonCache productJsonCache;
+    
+    @Autowired
+    private Engine2Processor engine2Processor;
+    
+    @GetMapping("/cache/products")
+    public ResponseEntity<CacheStatsResponse> getProductCacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+    
+    @GetMapping("/cache/product-json")
+    public ResponseEntity<CacheStatsResponse> getProductJsonCacheStats() {
+        return ResponseEntity.ok(productJsonCache.stats());
+    }
+    
+    @GetMapping("/engine2")
+    public ResponseEntity<Engine2StatsResponse> getEngine2Stats() {
+        return ResponseEntity.ok(engine2Processor.stats());
+    }
+}
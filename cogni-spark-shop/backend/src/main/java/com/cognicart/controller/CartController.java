@@ -1,13 +1,16 @@
 package com.cognicart.controller;
 
 import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.CartBatchRequest;
 import com.cognicart.dto.request.UpdateCartItemRequest;
 import com.cognicart.dto.response.ApiResponse;
 import com.cognicart.dto.response.CartResponse;
+import com.cognicart.projection.ProductFields;
 import com.cognicart.service.CartService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -18,9 +21,10 @@ public class CartController {
     private CartService cartService;
     
     @GetMapping
-    public ResponseEntity<CartResponse> getCart() {
+    public ResponseEntity<MappingJacksonValue> getCart(@RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
         CartResponse cart = cartService.getCart();
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok(ProductFields.wrap(cart, selection));
     }
     
     @PostMapping
@@ -33,6 +37,13 @@ public class CartController {
         }
     }
     
+    // Applies the operations in order, all or none, and returns the resulting cart
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyOperations(@Valid @RequestBody CartBatchRequest request) {
+        CartResponse cart = cartService.applyOperations(request.getOperations());
+        return ResponseEntity.ok(cart);
+    }
+    
     @PutMapping("/{productId}")
     public ResponseEntity<CartResponse> updateCartItem(
             @PathVariable Long productId,
@@ -0,0 +1,58 @@
+package com.cognicart.controller;
+
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.UpdateCartItemRequest;
+import com.cognicart.dto.response.ApiResponse;
+import com.cognicart.dto.response.GuestCartResponse;
+import com.cognicart.service.GuestCartService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Carts for visitors who have not signed in. The first add returns a cartToken, which is sent back in the
+// X-Cart-Token header on later calls and in the sign-in request to move the lines into the user's cart.
+@RestController
+@RequestMapping("/api/guest-cart")
+public class GuestCartController {
+    
+    private static final String CART_TOKEN = "X-Cart-Token";
+    
+    @Autowired
+    private GuestCartService guestCartService;
+    
+    @GetMapping
+    public ResponseEntity<GuestCartResponse> getCart(@RequestHeader(value = CART_TOKEN, required = false) String token) {
+        return ResponseEntity.ok(guestCartService.getCart(token));
+    }
+    
+    @PostMapping
+    public ResponseEntity<GuestCartResponse> addToCart(
+            @RequestHeader(value = CART_TOKEN, required = false) String token,
+            @Valid @RequestBody AddToCartRequest request,
+            HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(guestCartService.addToCart(token, request, httpRequest.getRemoteAddr()));
+    }
+    
+    @PutMapping("/{productId}")
+    public ResponseEntity<GuestCartResponse> updateCartItem(
+            @RequestHeader(value = CART_TOKEN, required = false) String token,
+            @PathVariable Long productId,
+            @Valid @RequestBody UpdateCartItemRequest request) {
+        return ResponseEntity.ok(guestCartService.updateCartItem(token, productId, request));
+    }
+    
+    @DeleteMapping("/{productId}")
+    public ResponseEntity<GuestCartResponse> removeFromCart(
+            @RequestHeader(value = CART_TOKEN, required = false) String token,
+            @PathVariable Long productId) {
+        return ResponseEntity.ok(guestCartService.removeFromCart(token, productId));
+    }
+    
+    @DeleteMapping
+    public ResponseEntity<ApiResponse> clearCart(@RequestHeader(value = CART_TOKEN, required = false) String token) {
+        guestCartService.clearCart(token);
+        return ResponseEntity.ok(ApiResponse.success("Cart cleared successfully"));
+    }
+}
@@ -2,11 +2,13 @@ package com.cognicart.controller;
 
 import com.cognicart.dto.request.CreateOrderRequest;
 import com.cognicart.dto.response.OrderResponse;
+import com.cognicart.projection.ProductFields;
 import com.cognicart.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,16 +21,20 @@ public class OrderController {
     private OrderService orderService;
     
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getUserOrders() {
+    public ResponseEntity<MappingJacksonValue> getUserOrders(@RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
         List<OrderResponse> orders = orderService.getUserOrders();
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok(ProductFields.wrap(orders, selection));
     }
     
     @GetMapping("/{orderId}")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long orderId) {
+    public ResponseEntity<MappingJacksonValue> getOrderById(
+            @PathVariable Long orderId,
+            @RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
         try {
             OrderResponse order = orderService.getOrderById(orderId);
-            return ResponseEntity.ok(order);
+            return ResponseEntity.ok(ProductFields.wrap(order, selection));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
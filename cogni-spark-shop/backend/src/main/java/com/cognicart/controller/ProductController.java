@@ -1,15 +1,42 @@
 package com.cognicart.controller;
 
+import com.cognicart.cache.CatalogVersions;
+import com.cognicart.cache.JsonBytes;
 import com.cognicart.dto.request.CreateProductRequest;
 import com.cognicart.dto.response.ApiResponse;
+import com.cognicart.dto.response.BatchProductResponse;
+import com.cognicart.dto.response.BulkImportResponse;
+import com.cognicart.dto.response.FacetFilterResponse;
+import com.cognicart.dto.response.ProductPageResponse;
 import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.enums.TrendingRanking;
+import com.cognicart.projection.ProductFields;
+import com.cognicart.search.FacetIndex;
+import com.cognicart.search.FacetQuery;
+import com.cognicart.service.ProductImportService;
 import com.cognicart.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
@@ -18,42 +45,232 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductImportService productImportService;
+    
+    @Autowired
+    private CatalogVersions catalogVersions;
+    
+    @Value("${app.export.timeout:30m}")
+    private Duration exportTimeout;
+    
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        List<ProductResponse> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<MappingJacksonValue> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
+        ProductFields selection = ProductFields.parse(fields);
+        ProductPageResponse page = productService.getProducts(cursor, size, sort, direction, selection);
+        return revalidated(ProductFields.wrap(page, selection));
+    }
+    
+    // One round trip for carts, wishlists and rails instead of a GET per product
+    @GetMapping("/batch")
+    public ResponseEntity<MappingJacksonValue> getProductsBatch(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) List<String> productIds,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
+        ProductFields selection = ProductFields.parse(fields);
+        try {
+            BatchProductResponse batch = productService.getProductsBatch(ids, productIds);
+            return revalidated(ProductFields.wrap(batch, selection));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Object> getProductById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        // Revalidated page loads are views too
+        productService.recordView(id);
+        if (notModified(webRequest, "product-" + id, catalogVersions.product(id))) {
+            return null;
+        }
+        ProductFields selection = ProductFields.parse(fields);
         try {
+            if (selection == null) {
+                return revalidated(productService.getProductJsonById(id));
+            }
             ProductResponse product = productService.getProductById(id);
-            return ResponseEntity.ok(product);
+            return revalidated(ProductFields.wrap(product, selection));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    @GetMapping("/{id}/frequently-bought-together")
+    public ResponseEntity<MappingJacksonValue> getFrequentlyBoughtTogether(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
+        List<ProductResponse> products = productService.getFrequentlyBoughtTogether(id, limit, selection);
+        return ResponseEntity.ok(ProductFields.wrap(products, selection));
+    }
+    
+    @GetMapping("/trending")
+    public ResponseEntity<MappingJacksonValue> getTrending(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
+        List<ProductResponse> products = productService.getLeaders(TrendingRanking.TRENDING, window, category, limit, selection);
+        return ResponseEntity.ok(ProductFields.wrap(products, selection));
+    }
+    
+    @GetMapping("/best-sellers")
+    public ResponseEntity<MappingJacksonValue> getBestSellers(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
+        List<ProductResponse> products = productService.getLeaders(TrendingRanking.BEST_SELLERS, window, category, limit, selection);
+        return ResponseEntity.ok(ProductFields.wrap(products, selection));
+    }
+    
     @GetMapping("/product-id/{productId}")
-    public ResponseEntity<ProductResponse> getProductByProductId(@PathVariable String productId) {
+    public ResponseEntity<JsonBytes> getProductByProductId(@PathVariable String productId, WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
         try {
-            ProductResponse product = productService.getProductByProductId(productId);
-            return ResponseEntity.ok(product);
+            JsonBytes product = productService.getProductJsonByProductId(productId);
+            return revalidated(product);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/slug/{slug}")
+    public ResponseEntity<ProductResponse> getProductBySlug(@PathVariable String slug, WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
+        try {
+            ProductResponse product = productService.getProductBySlug(slug);
+            return revalidated(product);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductResponse>> getProductsByCategory(@PathVariable String category) {
-        List<ProductResponse> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<MappingJacksonValue> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
+        ProductFields selection = ProductFields.parse(fields);
+        ProductPageResponse page = productService.getProductsByCategory(category, cursor, size, sort, direction, selection);
+        return revalidated(ProductFields.wrap(page, selection));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String keyword) {
-        List<ProductResponse> products = productService.searchProducts(keyword);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<MappingJacksonValue> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "true") boolean fuzzy,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
+        ProductFields selection = ProductFields.parse(fields);
+        ProductPageResponse page = productService.searchProducts(keyword, cursor, size, fuzzy, selection);
+        return revalidated(ProductFields.wrap(page, selection));
+    }
+    
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<String>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        List<String> suggestions = productService.autocomplete(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+    
+    @GetMapping("/filter")
+    public ResponseEntity<MappingJacksonValue> filterProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> color,
+            @RequestParam(required = false) List<String> material,
+            @RequestParam(required = false) List<String> gender,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) List<String> attr,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (notModified(webRequest, "catalog", catalogVersions.catalog())) {
+            return null;
+        }
+        ProductFields selection = ProductFields.parse(fields);
+        FacetQuery query = FacetQuery.builder()
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .build()
+                .select(FacetIndex.CATEGORY, category)
+                .select(FacetIndex.BRAND, brand)
+                .select(FacetIndex.COLOR, color)
+                .select(FacetIndex.MATERIAL, material)
+                .select(FacetIndex.GENDER, gender)
+                .select(FacetIndex.IN_STOCK, inStock != null ? List.of(inStock.toString()) : null)
+                .selectAttributes(attr);
+        FacetFilterResponse response = productService.filterProducts(query, cursor, size, selection);
+        return revalidated(ProductFields.wrap(response, selection));
+    }
+    
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCatalog(@RequestParam(defaultValue = "false") boolean gzip,
+                                                               WebRequest webRequest) {
+        // A full export runs well past the default async timeout, so this request alone gets a longer one
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor("exportTimeout", new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                ((AsyncWebRequest) request).setTimeout(exportTimeout.toMillis());
+            }
+        });
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024)) {
+                    productService.exportActiveProducts(gzipOut);
+                }
+            } else {
+                productService.exportActiveProducts(out);
+            }
+        };
+        
+        String fileName = gzip ? "catalog.ndjson.gz" : "catalog.ndjson";
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
     
     @PostMapping
@@ -66,6 +283,19 @@ public class ProductController {
         }
     }
     
+    // Bulk uploads are read straight from the request body so large files are never buffered
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<BulkImportResponse> importCsv(InputStream body) throws IOException {
+        BulkImportResponse report = productImportService.importCsv(body);
+        return ResponseEntity.ok(report);
+    }
+    
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<BulkImportResponse> importNdjson(InputStream body) throws IOException {
+        BulkImportResponse report = productImportService.importNdjson(body);
+        return ResponseEntity.ok(report);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable Long id,
@@ -87,4 +317,14 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
+    
+    // Answers 304 from the version stamp alone, before any lookup, mapping or serialization
+    private boolean notModified(WebRequest webRequest, String scope, CatalogVersions.Stamp stamp) {
+        return webRequest.checkNotModified(catalogVersions.etag(scope, stamp), stamp.lastModified());
+    }
+    
+    // Lets caches store the response but makes them revalidate it with the ETag on every use
+    private <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+    }
 }
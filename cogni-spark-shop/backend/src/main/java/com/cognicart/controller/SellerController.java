@@ -1,39 +1,24 @@
 package com.cognicart.controller;
 
-import com.cognicart.dto.request.CreateProductRequest;
 import com.cognicart.dto.response.ApiResponse;
-import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.dto.response.CatalogBatchResponse;
 import com.cognicart.entity.CatalogEntry;
 import com.cognicart.service.CatalogService;
-import com.cognicart.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class SellerController {
     
-    @Autowired
-    private ProductService productService;
-    
     @Autowired
     private CatalogService catalogService;
     
-    // Endpoint for seller to add product (matches frontend)
-    @PostMapping("/products")
-    public ResponseEntity<ProductResponse> addProduct(@RequestBody CreateProductRequest request) {
-        try {
-            ProductResponse product = productService.createProduct(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(product);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
-    }
-    
     // Engine2 catalog endpoint
     @PostMapping("/engine2/catalog")
     public ResponseEntity<ApiResponse> submitToCatalog(@RequestBody Map<String, Object> request) {
@@ -57,4 +42,14 @@ public class SellerController {
                     .body(ApiResponse.error(e.getMessage()));
         }
     }
+    
+    // Batches are read straight from the request body, as a JSON array or NDJSON of product_id / catalog_data pairs
+    @PostMapping(value = "/engine2/catalog/batch", consumes = {"application/json", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse> submitBatchToCatalog(InputStream body) throws IOException {
+        CatalogBatchResponse report = catalogService.submitBatch(body);
+        return ResponseEntity.ok(ApiResponse.success(
+                "Submitted " + report.getAccepted() + " of " + report.getTotal() + " entries to Engine 2 catalog",
+                report
+        ));
+    }
 }
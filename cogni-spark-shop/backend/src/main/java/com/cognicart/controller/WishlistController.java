@@ -2,9 +2,11 @@ package com.cognicart.controller;
 
 import com.cognicart.dto.response.ApiResponse;
 import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.projection.ProductFields;
 import com.cognicart.service.WishlistService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,9 +19,10 @@ public class WishlistController {
     private WishlistService wishlistService;
     
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getWishlist() {
-        List<ProductResponse> wishlist = wishlistService.getWishlist();
-        return ResponseEntity.ok(wishlist);
+    public ResponseEntity<MappingJacksonValue> getWishlist(@RequestParam(required = false) String fields) {
+        ProductFields selection = ProductFields.parse(fields);
+        List<ProductResponse> wishlist = wishlistService.getWishlist(selection);
+        return ResponseEntity.ok(ProductFields.wrap(wishlist, selection));
     }
     
     @PostMapping("/{productId}")
@@ -0,0 +1,20 @@
+package com.cognicart.dto.request;
+
+import com.cognicart.enums.CartOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CartOperationRequest {
+    
+    @NotNull(message = "Operation is required")
+    private CartOperationType op;
+    
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+    
+    // Required for add and set
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+}
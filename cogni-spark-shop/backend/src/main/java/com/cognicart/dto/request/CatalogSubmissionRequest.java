@@ -0,0 +1,15 @@
+package com.cognicart.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+@Data
+public class CatalogSubmissionRequest {
+    
+    @JsonProperty("product_id")
+    private String productId;
+    
+    @JsonProperty("catalog_data")
+    private JsonNode catalogData;
+}
@@ -13,4 +13,7 @@ public class SignInRequest {
     
     @NotBlank(message = "Password is required")
     private String password;
+    
+    // Guest cart to merge into the user's cart, if the visitor shopped before signing in
+    private String cartToken;
 }
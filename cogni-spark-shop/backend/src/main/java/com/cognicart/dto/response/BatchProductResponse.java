@@ -0,0 +1,18 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProductResponse {
+    private List<ProductResponse> items;
+    private List<Long> missingIds;
+    private List<String> missingProductIds;
+}
@@ -0,0 +1,20 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResponse {
+    private Long totalRows;
+    private Long imported;
+    private Long failed;
+    private List<ImportRowError> errors;
+    private Boolean errorsTruncated;
+}
@@ -0,0 +1,24 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private String name;
+    private Long size;
+    private Long maxSize;
+    private Long weightBytes;
+    private Long maxWeightBytes;
+    private Long ttlSeconds;
+    private Long hitCount;
+    private Long missCount;
+    private Double hitRate;
+    private Long evictionCount;
+    private Long invalidationCount;
+}
@@ -0,0 +1,19 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogBatchResponse {
+    private Long total;
+    private Long accepted;
+    private Long rejected;
+    private List<CatalogSubmissionResult> results;
+}
@@ -0,0 +1,18 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSubmissionResult {
+    private Long index;
+    private String productId;
+    private Boolean accepted;
+    private Long entryId;
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Engine2StatsResponse {
+    private String nodeId;
+    private Boolean enabled;
+    private Integer workers;
+    private Integer busyWorkers;
+    private Long pending;
+    private Long claimed;
+    private Long processed;
+    private Long retried;
+    private Long failed;
+    private Long leasesLost;
+    private Double processedPerSecond;
+    private Double averageProcessingMillis;
+}
@@ -0,0 +1,21 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetFilterResponse {
+    private List<ProductResponse> items;
+    private Long total;
+    private String nextCursor;
+    private Boolean hasMore;
+    private Map<String, List<FacetCount>> facets;
+}
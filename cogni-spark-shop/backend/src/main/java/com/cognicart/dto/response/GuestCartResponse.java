@@ -0,0 +1,19 @@
+package com.cognicart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestCartResponse {
+    private String cartToken;
+    private List<CartItemResponse> items;
+    private Double totalPrice;
+    private Integer totalItems;
+}
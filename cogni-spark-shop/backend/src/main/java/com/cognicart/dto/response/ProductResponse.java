@@ -1,5 +1,8 @@
 package com.cognicart.dto.response;
 
+import com.cognicart.projection.ProductFields;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,7 +11,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
+@JsonFilter(ProductFields.FILTER_ID)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductResponse {
@@ -47,4 +51,12 @@ public class ProductResponse {
     private String isbn;
     
     private LocalDateTime createdAt;
+    
+    // Lets cart writes take prices from the product cache; not part of the API
+    @JsonIgnore
+    private Long priceVersion;
+    
+    // Lets guest carts check that a product is listed; not part of the API
+    @JsonIgnore
+    private String visibility;
 }
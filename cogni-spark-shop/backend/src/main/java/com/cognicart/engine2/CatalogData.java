@@ -0,0 +1,148 @@
+package com.cognicart.engine2;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Engine2 catalog payload as stored: Smile (binary JSON) with repeated keys and values back-referenced, LZ4
+// block-compressed when that actually saves space. The stored bytes are kept as they are and only decoded
+// the first time the payload is read, so loading and claiming entries never pays for parsing.
+@Immutable
+public final class CatalogData {
+
+    // Encoded payloads over this size are rejected
+    public static final int MAX_ENCODED_BYTES = 1 << 20;
+
+    private static final byte SMILE = 1;
+    private static final byte SMILE_LZ4 = 2;
+    // Payloads this small rarely compress below the 4-byte length prefix
+    private static final int MIN_COMPRESS_BYTES = 64;
+
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final byte[] encoded;
+    private volatile JsonNode tree;
+
+    private CatalogData(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    // Any value Jackson can serialize, typically the Map from a request body
+    public static CatalogData of(Object value) {
+        try {
+            return new CatalogData(encode(SMILE_MAPPER.writeValueAsBytes(value)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Catalog data is not serializable: " + e.getOriginalMessage());
+        }
+    }
+
+    // Legacy rows stored JSON text; text that does not parse is kept as a JSON string rather than dropped
+    public static CatalogData fromJson(String json) {
+        JsonNode node;
+        try {
+            node = JSON_MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            node = TextNode.valueOf(json);
+        }
+        return of(node);
+    }
+
+    public static CatalogData fromEncoded(byte[] encoded) {
+        return new CatalogData(encoded);
+    }
+
+    public byte[] encoded() {
+        return encoded;
+    }
+
+    public int encodedSize() {
+        return encoded.length;
+    }
+
+    @JsonValue
+    public JsonNode tree() {
+        JsonNode result = tree;
+        if (result == null) {
+            result = decode();
+            tree = result;
+        }
+        return result;
+    }
+
+    public String json() {
+        try {
+            return JSON_MAPPER.writeValueAsString(tree());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] encode(byte[] smile) {
+        byte[] compressed = null;
+        int compressedLength = 0;
+        if (smile.length >= MIN_COMPRESS_BYTES) {
+            compressed = new byte[1 + Integer.BYTES + COMPRESSOR.maxCompressedLength(smile.length)];
+            compressedLength = COMPRESSOR.compress(smile, 0, smile.length, compressed, 1 + Integer.BYTES);
+        }
+
+        byte[] result;
+        if (compressed != null && 1 + Integer.BYTES + compressedLength < 1 + smile.length) {
+            result = Arrays.copyOf(compressed, 1 + Integer.BYTES + compressedLength);
+            result[0] = SMILE_LZ4;
+            ByteBuffer.wrap(result, 1, Integer.BYTES).putInt(smile.length);
+        } else {
+            result = new byte[1 + smile.length];
+            result[0] = SMILE;
+            System.arraycopy(smile, 0, result, 1, smile.length);
+        }
+        if (result.length > MAX_ENCODED_BYTES) {
+            throw new IllegalArgumentException("Catalog data exceeds " + MAX_ENCODED_BYTES + " bytes after encoding");
+        }
+        return result;
+    }
+
+    private JsonNode decode() {
+        try {
+            switch (encoded[0]) {
+                case SMILE:
+                    return SMILE_MAPPER.readTree(encoded, 1, encoded.length - 1);
+                case SMILE_LZ4:
+                    int length = ByteBuffer.wrap(encoded, 1, Integer.BYTES).getInt();
+                    byte[] smile = DECOMPRESSOR.decompress(encoded, 1 + Integer.BYTES, length);
+                    return SMILE_MAPPER.readTree(smile);
+                default:
+                    throw new IllegalStateException("Unknown catalog data format " + encoded[0]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt catalog data", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CatalogData data && Arrays.equals(encoded, data.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+}
@@ -0,0 +1,19 @@
+package com.cognicart.engine2;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Maps CatalogData to its encoded bytes without decoding; decoding waits until the payload is read
+@Converter
+public class CatalogDataConverter implements AttributeConverter<CatalogData, byte[]> {
+    
+    @Override
+    public byte[] convertToDatabaseColumn(CatalogData data) {
+        return data != null ? data.encoded() : null;
+    }
+    
+    @Override
+    public CatalogData convertToEntityAttribute(byte[] encoded) {
+        return encoded != null && encoded.length > 0 ? CatalogData.fromEncoded(encoded) : null;
+    }
+}
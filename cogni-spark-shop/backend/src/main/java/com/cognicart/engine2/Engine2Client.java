@@ -0,0 +1,7 @@
+package com.cognicart.engine2;
+
+// Engine2 backend the catalog workers call. Throwing marks the entry for retry.
+public interface Engine2Client {
+    
+    void process(Engine2Request request) throws Exception;
+}
@@ -0,0 +1,245 @@
+package com.cognicart.engine2;
+
+import com.cognicart.dto.response.Engine2StatsResponse;
+import com.cognicart.entity.CatalogEntry;
+import com.cognicart.repository.CatalogEntryRepository;
+import com.cognicart.service.CatalogService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Background Engine2 processing. The poller claims batches of due catalog entries under a lease and hands
+// each batch to a bounded worker pool; it only claims while a worker is free, so leases are never burned
+// waiting in a queue. Outcomes are written back per batch, guarded by the lease token, so an entry whose
+// lease expired and was re-claimed by another node is never transitioned twice.
+@Slf4j
+@Component
+public class Engine2Processor {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private CatalogEntryRepository catalogEntryRepository;
+
+    @Autowired
+    private Engine2Client engine2Client;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final Duration leaseTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final String nodeId;
+    private final ExecutorService executor;
+    private final Semaphore freeWorkers;
+    private final long startedAt = System.nanoTime();
+
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder leasesLost = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+
+    public Engine2Processor(@Value("${app.engine2.enabled:true}") boolean enabled,
+                            @Value("${app.engine2.workers:4}") int workers,
+                            @Value("${app.engine2.batch-size:20}") int batchSize,
+                            @Value("${app.engine2.lease-timeout:5m}") Duration leaseTimeout,
+                            @Value("${app.engine2.max-attempts:5}") int maxAttempts,
+                            @Value("${app.engine2.retry-backoff:30s}") Duration retryBackoff,
+                            @Value("${app.engine2.max-retry-backoff:1h}") Duration maxRetryBackoff) {
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.leaseTimeout = leaseTimeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.freeWorkers = new Semaphore(workers);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "engine2-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.engine2.poll-interval:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        while (freeWorkers.tryAcquire()) {
+            Lease lease;
+            try {
+                lease = claim();
+            } catch (RuntimeException e) {
+                freeWorkers.release();
+                log.warn("Engine2 claim failed", e);
+                return;
+            }
+            if (lease.entries().isEmpty()) {
+                freeWorkers.release();
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    process(lease);
+                } catch (RuntimeException e) {
+                    // The lease runs out and the batch is claimed again
+                    log.warn("Engine2 batch of {} entries failed to complete", lease.entries().size(), e);
+                } finally {
+                    freeWorkers.release();
+                }
+            });
+        }
+    }
+
+    public Engine2StatsResponse stats() {
+        long processedCount = processed.sum();
+        long finished = processedCount + retried.sum() + failed.sum();
+        double uptimeSeconds = Math.max(1.0, (System.nanoTime() - startedAt) / 1e9);
+        return Engine2StatsResponse.builder()
+                .nodeId(nodeId)
+                .enabled(enabled)
+                .workers(workers)
+                .busyWorkers(workers - freeWorkers.availablePermits())
+                .pending(catalogEntryRepository.countByStatus(CatalogService.PENDING))
+                .claimed(claimed.sum())
+                .processed(processedCount)
+                .retried(retried.sum())
+                .failed(failed.sum())
+                .leasesLost(leasesLost.sum())
+                .processedPerSecond(processedCount / uptimeSeconds)
+                .averageProcessingMillis(finished == 0 ? 0.0 : processingNanos.sum() / 1e6 / finished)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Unfinished batches are picked up again once their leases expire
+            executor.shutdownNow();
+        }
+    }
+
+    // Locks a batch of due entries, stamps them with a fresh lease token and commits, releasing the row locks.
+    // Entries that already used up their attempts (for example after repeated worker crashes) fail here.
+    private Lease claim() {
+        String leaseToken = nodeId + "-" + UUID.randomUUID();
+        List<Engine2Request> requests = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<CatalogEntry> entries = catalogEntryRepository.findClaimable(
+                    CatalogService.PENDING, CatalogService.PROCESSING, now, PageRequest.of(0, batchSize));
+            List<Engine2Request> leased = new ArrayList<>();
+            for (CatalogEntry entry : entries) {
+                int attempts = entry.getAttempts() != null ? entry.getAttempts() : 0;
+                if (attempts >= maxAttempts) {
+                    entry.setStatus(CatalogService.FAILED);
+                    entry.setLeaseToken(null);
+                    entry.setLeaseExpiresAt(null);
+                    entry.setLastError("Lease expired after the last attempt");
+                    failed.increment();
+                    continue;
+                }
+                entry.setStatus(CatalogService.PROCESSING);
+                entry.setAttempts(attempts + 1);
+                entry.setLeaseToken(leaseToken);
+                entry.setLeaseExpiresAt(now.plus(leaseTimeout));
+                leased.add(new Engine2Request(entry.getId(), entry.getProduct().getProductId(), entry.getCatalogData()));
+            }
+            return leased;
+        });
+        claimed.add(requests.size());
+        return new Lease(leaseToken, requests);
+    }
+
+    private void process(Lease lease) {
+        List<Long> succeeded = new ArrayList<>();
+        List<Failure> failures = new ArrayList<>();
+        for (Engine2Request request : lease.entries()) {
+            long start = System.nanoTime();
+            try {
+                engine2Client.process(request);
+                succeeded.add(request.entryId());
+            } catch (Exception e) {
+                failures.add(new Failure(request.entryId(), String.valueOf(e.getMessage())));
+            } finally {
+                processingNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!succeeded.isEmpty()) {
+                int updated = catalogEntryRepository.completeLeased(succeeded, lease.token(), CatalogService.PROCESSED,
+                        LocalDateTime.now());
+                processed.add(updated);
+                leasesLost.add(succeeded.size() - updated);
+            }
+            for (Failure failure : failures) {
+                record(lease.token(), failure);
+            }
+        });
+    }
+
+    // Retries go back to pending with exponential backoff and jitter; the last attempt fails the entry
+    private void record(String leaseToken, Failure failure) {
+        CatalogEntry entry = catalogEntryRepository.findById(failure.entryId()).orElse(null);
+        int attempts = entry != null && entry.getAttempts() != null ? entry.getAttempts() : maxAttempts;
+        String error = failure.error().length() > MAX_ERROR_LENGTH ? failure.error().substring(0, MAX_ERROR_LENGTH) : failure.error();
+
+        int updated;
+        if (attempts >= maxAttempts) {
+            updated = catalogEntryRepository.releaseLeased(failure.entryId(), leaseToken, CatalogService.FAILED, null, error);
+            failed.add(updated);
+        } else {
+            long backoffMillis = Math.min(maxRetryBackoff.toMillis(), retryBackoff.toMillis() << Math.min(attempts - 1, 20));
+            long jitterMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 5 + 1);
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis + jitterMillis));
+            updated = catalogEntryRepository.releaseLeased(failure.entryId(), leaseToken, CatalogService.PENDING, nextAttemptAt, error);
+            retried.add(updated);
+        }
+        leasesLost.add(1 - updated);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+
+    private record Lease(String token, List<Engine2Request> entries) {
+    }
+
+    private record Failure(Long entryId, String error) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.cognicart.engine2;
+
+// What a worker hands to Engine2 for one claimed catalog entry
+public record Engine2Request(Long entryId, String productId, CatalogData catalogData) {
+}
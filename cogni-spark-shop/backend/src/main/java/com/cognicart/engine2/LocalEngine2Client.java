@@ -0,0 +1,18 @@
+package com.cognicart.engine2;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// In-process stand-in for Engine2 used in development: accepts any entry whose catalog data decodes
+@Component
+@ConditionalOnProperty(name = "app.engine2.client", havingValue = "local", matchIfMissing = true)
+public class LocalEngine2Client implements Engine2Client {
+    
+    @Override
+    public void process(Engine2Request request) throws Exception {
+        if (request.catalogData() == null) {
+            throw new IllegalArgumentException("Catalog entry " + request.entryId() + " has no catalog data");
+        }
+        request.catalogData().tree();
+    }
+}
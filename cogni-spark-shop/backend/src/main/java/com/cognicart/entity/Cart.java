@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -24,14 +26,27 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @OneToOne
+    // Deleting a user deletes their cart and its lines in the database; the user has no mapping to cascade from
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
     
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<CartItem> items = new ArrayList<>();
     
+    // Running totals over the lines' unit prices, adjusted with every line change instead of summed on read
+    @Builder.Default
+    private Double subtotal = 0.0;
+    
+    @Builder.Default
+    private Integer itemCount = 0;
+    
+    // Every line change also changes the totals, so the cart's version guards the whole cart
+    @Version
+    private Long version;
+    
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -40,14 +55,25 @@ public class Cart {
     private LocalDateTime updatedAt;
     
     public Double getTotalPrice() {
-        return items.stream()
-                .mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity())
-                .sum();
+        return subtotal != null ? subtotal : 0.0;
     }
     
     public Integer getTotalItems() {
-        return items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        return itemCount != null ? itemCount : 0;
+    }
+    
+    public void addToTotals(double amount, int quantity) {
+        subtotal = roundAmount(getTotalPrice() + roundAmount(amount));
+        itemCount = getTotalItems() + quantity;
+    }
+    
+    public void resetTotals() {
+        subtotal = 0.0;
+        itemCount = 0;
+    }
+    
+    // Keeps repeated increments from drifting off whole paise
+    public static double roundAmount(double amount) {
+        return Math.round(amount * 100) / 100.0;
     }
 }
@@ -1,36 +1,74 @@
 package com.cognicart.entity;
 
+import com.cognicart.engine2.CatalogData;
+import com.cognicart.engine2.CatalogDataConverter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "catalog_entries")
+@Table(name = "catalog_entries", indexes = {
+    @Index(name = "idx_catalog_entries_status_id", columnList = "status, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Only changed columns are written, so converting a legacy payload never overwrites a concurrent status change
+@DynamicUpdate
 public class CatalogEntry {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "catalog_entries_seq")
+    @SequenceGenerator(name = "catalog_entries_seq", sequenceName = "catalog_entries_seq", allocationSize = 500)
     private Long id;
     
     @OneToOne
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
     
-    @Column(length = 5000)
-    private String catalogData; // JSON string
+    // Smile + LZ4 encoded, see CatalogData
+    @Convert(converter = CatalogDataConverter.class)
+    @Column(name = "catalog_payload", length = CatalogData.MAX_ENCODED_BYTES)
+    private CatalogData catalogData;
+    
+    // JSON text from before the binary format; converted on load and cleared
+    @JsonIgnore
+    @Column(name = "catalog_data", length = 5000)
+    private String legacyCatalogData;
     
     private String status = "pending_engine2_processing";
     
+    // Engine2 processing lease: a claimed entry belongs to the token holder until the lease expires
+    private String leaseToken;
+    private LocalDateTime leaseExpiresAt;
+    
+    @Builder.Default
+    private Integer attempts = 0;
+    
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime processedAt;
+    
+    @PostLoad
+    void convertLegacyCatalogData() {
+        if (legacyCatalogData != null) {
+            if (catalogData == null) {
+                catalogData = CatalogData.fromJson(legacyCatalogData);
+            }
+            legacyCatalogData = null;
+        }
+    }
 }
@@ -12,7 +12,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_category_id", columnList = "category, id"),
+    @Index(name = "idx_products_created_at_id", columnList = "createdAt, id"),
+    @Index(name = "idx_products_price_id", columnList = "price, id"),
+    @Index(name = "idx_products_rating_id", columnList = "rating, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +25,8 @@ import java.time.LocalDateTime;
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 500)
     private Long id;
     
     @Column(unique = true, nullable = false)
@@ -35,6 +41,11 @@ public class Product {
     
     private String brand;
     private Double price;
+    
+    // Bumped on every price change; cart lines counted at an older version are repriced in bulk
+    @Builder.Default
+    private Long priceVersion = 0L;
+    
     private String color;
     private String material;
     private String imageUrl;
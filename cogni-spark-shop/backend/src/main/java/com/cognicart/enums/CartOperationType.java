@@ -0,0 +1,19 @@
+package com.cognicart.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+public enum CartOperationType {
+    ADD,
+    SET,
+    REMOVE;
+    
+    @JsonCreator
+    public static CartOperationType fromValue(String value) {
+        for (CartOperationType type : values()) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new RuntimeException("Unsupported cart operation: " + value);
+    }
+}
@@ -0,0 +1,28 @@
+package com.cognicart.enums;
+
+public enum ProductSort {
+    ID("id"),
+    CREATED_AT("createdAt"),
+    PRICE("price"),
+    RATING("rating"),
+    RELEVANCE("relevance");
+    
+    private final String property;
+    
+    ProductSort(String property) {
+        this.property = property;
+    }
+    
+    public String getProperty() {
+        return property;
+    }
+    
+    public static ProductSort fromParam(String value) {
+        for (ProductSort sort : values()) {
+            if (sort.property.equalsIgnoreCase(value) || sort.name().equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        throw new RuntimeException("Unsupported sort: " + value);
+    }
+}
@@ -0,0 +1,8 @@
+package com.cognicart.enums;
+
+public enum TrendingRanking {
+    // Units ordered
+    BEST_SELLERS,
+    // Product page views plus weighted units ordered
+    TRENDING
+}
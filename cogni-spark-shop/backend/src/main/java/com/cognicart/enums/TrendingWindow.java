@@ -0,0 +1,38 @@
+package com.cognicart.enums;
+
+public enum TrendingWindow {
+    HOUR("1h", 60_000L, 60),
+    DAY("24h", 3_600_000L, 24),
+    WEEK("7d", 3_600_000L, 168);
+    
+    private final String label;
+    private final long bucketMillis;
+    private final int buckets;
+    
+    TrendingWindow(String label, long bucketMillis, int buckets) {
+        this.label = label;
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+    
+    public int getBuckets() {
+        return buckets;
+    }
+    
+    public static TrendingWindow fromParam(String value) {
+        for (TrendingWindow window : values()) {
+            if (window.label.equalsIgnoreCase(value) || window.name().equalsIgnoreCase(value)) {
+                return window;
+            }
+        }
+        throw new RuntimeException("Unsupported window: " + value);
+    }
+}
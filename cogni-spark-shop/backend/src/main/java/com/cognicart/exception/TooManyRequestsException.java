@@ -0,0 +1,9 @@
+package com.cognicart.exception;
+
+// Answered with 429 Too Many Requests
+public class TooManyRequestsException extends RuntimeException {
+    
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
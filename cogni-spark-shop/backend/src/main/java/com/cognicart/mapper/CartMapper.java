@@ -0,0 +1,26 @@
+package com.cognicart.mapper;
+
+import com.cognicart.dto.response.CartItemResponse;
+import com.cognicart.dto.response.CartResponse;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.CartItem;
+import com.cognicart.entity.Product;
+import org.mapstruct.Context;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.function.Function;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CartMapper {
+
+    CartResponse toResponse(Cart cart, @Context Function<Long, ProductResponse> products);
+
+    CartItemResponse toResponse(CartItem item, @Context Function<Long, ProductResponse> products);
+
+    // Item products are resolved by the caller, which serves them from the product cache
+    default ProductResponse toResponse(Product product, @Context Function<Long, ProductResponse> products) {
+        return product != null ? products.apply(product.getId()) : null;
+    }
+}
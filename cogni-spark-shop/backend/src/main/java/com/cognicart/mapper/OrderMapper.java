@@ -0,0 +1,16 @@
+package com.cognicart.mapper;
+
+import com.cognicart.dto.response.OrderItemResponse;
+import com.cognicart.dto.response.OrderResponse;
+import com.cognicart.entity.Order;
+import com.cognicart.entity.OrderItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", uses = ProductMapper.class, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface OrderMapper {
+
+    OrderResponse toResponse(Order order);
+
+    OrderItemResponse toResponse(OrderItem item);
+}
@@ -0,0 +1,12 @@
+package com.cognicart.mapper;
+
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Product;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface ProductMapper {
+
+    ProductResponse toResponse(Product product);
+}
@@ -0,0 +1,62 @@
+package com.cognicart.pagination;
+
+import com.cognicart.enums.ProductSort;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque continuation token: the sort, its direction and the last row's sort key plus id
+@Getter
+@AllArgsConstructor
+public class ProductCursor {
+    
+    private final ProductSort sort;
+    private final boolean descending;
+    private final String lastValue;
+    private final Long lastId;
+    
+    public String encode() {
+        String raw = sort.name() + "|" + (descending ? "desc" : "asc") + "|" + lastValue + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException();
+            }
+            ProductCursor cursor = new ProductCursor(
+                    ProductSort.valueOf(parts[0]),
+                    "desc".equals(parts[1]),
+                    parts[2],
+                    Long.valueOf(parts[3]));
+            cursor.typedLastValue();
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    // The last sort key converted back to the attribute's Java type
+    public Comparable<?> typedLastValue() {
+        switch (sort) {
+            case ID:
+                return lastId;
+            case CREATED_AT:
+                return LocalDateTime.parse(lastValue);
+            case PRICE:
+            case RATING:
+                return Double.valueOf(lastValue);
+            case RELEVANCE:
+                return Float.valueOf(lastValue);
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+}
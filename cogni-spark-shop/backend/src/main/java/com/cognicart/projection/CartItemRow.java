@@ -0,0 +1,5 @@
+package com.cognicart.projection;
+
+// One cart line without its product, as loaded into the in-memory cart store
+public record CartItemRow(Long id, Long productId, Integer quantity, Double unitPrice, Long priceVersion) {
+}
@@ -0,0 +1,5 @@
+package com.cognicart.projection;
+
+// One product line of an order, as scanned when building co-purchase counts
+public record OrderProductPair(Long orderId, Long productId) {
+}
@@ -0,0 +1,112 @@
+package com.cognicart.projection;
+
+import com.cognicart.dto.response.ProductResponse;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.persistence.Tuple;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Sparse fieldset for product payloads. Response property names match Product attributes one to one,
+// so the same selection drives the column list of the query and the Jackson filter on ProductResponse.
+public final class ProductFields {
+
+    public static final String FILTER_ID = "productFields";
+
+    public static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    private static final Map<String, Method> SETTERS = new LinkedHashMap<>();
+
+    static {
+        try {
+            for (PropertyDescriptor property : Introspector.getBeanInfo(ProductResponse.class, Object.class).getPropertyDescriptors()) {
+                if (property.getWriteMethod() != null) {
+                    SETTERS.put(property.getName(), property.getWriteMethod());
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final Set<String> names;
+
+    private ProductFields(Set<String> names) {
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    // Returns null when no selection was requested, meaning every field
+    public static ProductFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!SETTERS.containsKey(trimmed)) {
+                throw new RuntimeException("Unknown product field: " + trimmed);
+            }
+            names.add(trimmed);
+        }
+        return names.isEmpty() ? null : new ProductFields(names);
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    // Columns to select: the requested fields plus any the caller needs internally (ids, cursor keys)
+    public List<String> columns(String... required) {
+        Set<String> columns = new LinkedHashSet<>(names);
+        Collections.addAll(columns, required);
+        return new ArrayList<>(columns);
+    }
+
+    public static ProductResponse toResponse(Tuple tuple, List<String> columns) {
+        ProductResponse response = new ProductResponse();
+        for (int i = 0; i < columns.size(); i++) {
+            Object value = tuple.get(i);
+            if (value instanceof Enum<?> constant) {
+                value = constant.name();
+            }
+            try {
+                SETTERS.get(columns.get(i)).invoke(response, value);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return response;
+    }
+
+    public static FilterProvider filters(ProductFields fields) {
+        if (fields == null) {
+            return ALL_FIELDS;
+        }
+        return new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields.names));
+    }
+
+    // Wraps a response body so that every ProductResponse inside it is serialized with only the selected fields
+    public static MappingJacksonValue wrap(Object body, ProductFields fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(filters(fields));
+        return value;
+    }
+}
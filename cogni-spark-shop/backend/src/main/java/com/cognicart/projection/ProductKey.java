@@ -0,0 +1,5 @@
+package com.cognicart.projection;
+
+// Surrogate and business id of a product, for resolving external productIds without loading the rows
+public record ProductKey(Long id, String productId) {
+}
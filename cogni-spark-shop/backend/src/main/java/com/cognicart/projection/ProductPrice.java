@@ -0,0 +1,5 @@
+package com.cognicart.projection;
+
+// Current price of a product and its price version, for pricing cart lines without loading the row
+public record ProductPrice(Long id, Double price, Long priceVersion) {
+}
@@ -0,0 +1,252 @@
+package com.cognicart.recommendation;
+
+import com.cognicart.projection.OrderProductPair;
+import com.cognicart.repository.OrderItemRepository;
+import com.cognicart.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Sparse item-item matrix of how many orders contained both products, one primitive hash row per product.
+// Counts only grow, so each row keeps its top neighbours exact by re-ranking just the entry that changed.
+@Slf4j
+@Component
+public class CoPurchaseIndex {
+
+    public static final int TOP_K = 20;
+
+    private static final int ORDER_BATCH_SIZE = 1000;
+    // Bulk orders would add quadratically many pairs and say little about what goes together
+    private static final int MAX_PRODUCTS_PER_ORDER = 50;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Every order is counted once whether the startup scan or the post-commit update reaches it first
+    private final RoaringBitmap countedOrders = new RoaringBitmap();
+    private Row[] rows = new Row[1024];
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            countedOrders.clear();
+            rows = new Row[1024];
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long afterId = 0;
+        long count = 0;
+        List<Long> orderIds;
+        do {
+            orderIds = orderRepository.findIdsAfter(afterId, PageRequest.of(0, ORDER_BATCH_SIZE));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            Long first = orderIds.get(0);
+            Long last = orderIds.get(orderIds.size() - 1);
+            List<OrderProductPair> pairs = orderItemRepository.findOrderProductPairs(first, last);
+
+            // Orders committed after the id page was read are left to their own post-commit update
+            Set<Long> batch = new LinkedHashSet<>(orderIds);
+            lock.writeLock().lock();
+            try {
+                int from = 0;
+                while (from < pairs.size()) {
+                    Long orderId = pairs.get(from).orderId();
+                    Set<Long> productIds = new LinkedHashSet<>();
+                    int to = from;
+                    while (to < pairs.size() && pairs.get(to).orderId().equals(orderId)) {
+                        productIds.add(pairs.get(to).productId());
+                        to++;
+                    }
+                    if (batch.contains(orderId)) {
+                        addOrder(orderId, productIds);
+                    }
+                    from = to;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            afterId = last;
+            count += orderIds.size();
+        } while (orderIds.size() == ORDER_BATCH_SIZE);
+
+        log.info("Built co-purchase index over {} orders in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    // Counts a new order once its transaction commits, so a rolled back checkout never shows up
+    public void recordOrder(Long orderId, Collection<Long> productIds) {
+        Set<Long> distinct = new LinkedHashSet<>(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(orderId, distinct);
+                }
+            });
+        } else {
+            apply(orderId, distinct);
+        }
+    }
+
+    // Most frequently co-purchased products first; ties go to the lower product id
+    public List<Long> neighbours(Long productId, int limit) {
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int id = Math.toIntExact(productId);
+            Row row = id < rows.length ? rows[id] : null;
+            if (row != null) {
+                for (int i = 0; i < row.topSize && result.size() < limit; i++) {
+                    result.add((long) row.top[i]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Long orderId, Set<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            addOrder(orderId, productIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addOrder(Long orderId, Set<Long> productIds) {
+        if (!countedOrders.checkedAdd(Math.toIntExact(orderId))) {
+            return;
+        }
+        if (productIds.size() < 2 || productIds.size() > MAX_PRODUCTS_PER_ORDER) {
+            return;
+        }
+
+        int[] products = productIds.stream().mapToInt(Math::toIntExact).toArray();
+        ensureCapacity(Arrays.stream(products).max().getAsInt() + 1);
+        for (int a : products) {
+            Row row = rows[a];
+            if (row == null) {
+                row = new Row();
+                rows[a] = row;
+            }
+            for (int b : products) {
+                if (a != b) {
+                    row.increment(b);
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rows.length) {
+            return;
+        }
+        rows = Arrays.copyOf(rows, Math.max(capacity, rows.length * 2));
+    }
+
+    // Open-addressing map from neighbour id to co-purchase count; product ids are positive, so 0 marks a free slot
+    private static final class Row {
+        private int[] keys = new int[8];
+        private int[] counts = new int[8];
+        private int size;
+        private int[] top = new int[4];
+        private int topSize;
+
+        void increment(int key) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int slot = slot(keys, key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot]++;
+            rank(key, counts[slot]);
+        }
+
+        int count(int key) {
+            int slot = slot(keys, key);
+            return keys[slot] == key ? counts[slot] : 0;
+        }
+
+        // Moves the updated neighbour up the top list, entering it if it now beats the last entry
+        private void rank(int key, int count) {
+            int i = 0;
+            while (i < topSize && top[i] != key) {
+                i++;
+            }
+            if (i == topSize) {
+                if (topSize < TOP_K) {
+                    if (topSize == top.length) {
+                        top = Arrays.copyOf(top, Math.min(TOP_K, topSize * 2));
+                    }
+                    topSize++;
+                } else if (!ranksAbove(key, count, top[topSize - 1], count(top[topSize - 1]))) {
+                    return;
+                } else {
+                    i = topSize - 1;
+                }
+            }
+            while (i > 0 && ranksAbove(key, count, top[i - 1], count(top[i - 1]))) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = key;
+        }
+
+        private static boolean ranksAbove(int keyA, int countA, int keyB, int countB) {
+            return countA > countB || (countA == countB && keyA < keyB);
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int slot(int[] keys, int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.cognicart.recommendation;
+
+import com.cognicart.enums.TrendingWindow;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-product event counts in two time-bucketed rings: minutes for the last hour, hours for the last week.
+// Writers never lock; a slot whose bucket has aged out is swapped for a fresh one with a CAS.
+final class SlidingWindowCounter {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private final Ring minutes = new Ring(MINUTE, 60);
+    private final Ring hours = new Ring(HOUR, 168);
+
+    void add(long productId, long amount, long now) {
+        minutes.add(productId, amount, now);
+        hours.add(productId, amount, now);
+    }
+
+    // Adds every product's count over the window, ending with the current partial bucket, to the totals
+    void addTotals(TrendingWindow window, long now, Map<Long, Long> totals) {
+        Ring ring = window.getBucketMillis() == MINUTE ? minutes : hours;
+        ring.addTotals(window.getBuckets(), now, totals);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        minutes.write(out);
+        hours.write(out);
+    }
+
+    void read(DataInputStream in) throws IOException {
+        minutes.read(in);
+        hours.read(in);
+    }
+
+    private static final class Ring {
+        private final long bucketMillis;
+        private final AtomicReferenceArray<Bucket> buckets;
+
+        Ring(long bucketMillis, int size) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = new AtomicReferenceArray<>(size);
+        }
+
+        void add(long productId, long amount, long now) {
+            Bucket bucket = current(now / bucketMillis);
+            if (bucket != null) {
+                bucket.counts.computeIfAbsent(productId, id -> new LongAdder()).add(amount);
+            }
+        }
+
+        void addTotals(int span, long now, Map<Long, Long> totals) {
+            long epoch = now / bucketMillis;
+            for (int i = 0; i < span && i < buckets.length(); i++) {
+                Bucket bucket = buckets.get(slot(epoch - i));
+                if (bucket != null && bucket.epoch == epoch - i) {
+                    bucket.counts.forEach((productId, count) -> totals.merge(productId, count.sum(), Long::sum));
+                }
+            }
+        }
+
+        // Null only when the clock went backwards past a newer bucket; that event is dropped
+        private Bucket current(long epoch) {
+            int slot = slot(epoch);
+            while (true) {
+                Bucket bucket = buckets.get(slot);
+                if (bucket != null && bucket.epoch >= epoch) {
+                    return bucket.epoch == epoch ? bucket : null;
+                }
+                Bucket fresh = new Bucket(epoch);
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+
+        private int slot(long epoch) {
+            return (int) Math.floorMod(epoch, (long) buckets.length());
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(bucketMillis);
+            out.writeInt(buckets.length());
+            for (int i = 0; i < buckets.length(); i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket == null) {
+                    out.writeLong(-1);
+                    continue;
+                }
+                Map<Long, Long> counts = new HashMap<>();
+                bucket.counts.forEach((productId, count) -> counts.put(productId, count.sum()));
+                out.writeLong(bucket.epoch);
+                out.writeInt(counts.size());
+                for (Map.Entry<Long, Long> count : counts.entrySet()) {
+                    out.writeLong(count.getKey());
+                    out.writeLong(count.getValue());
+                }
+            }
+        }
+
+        // Snapshot buckets are merged into whatever was counted since startup
+        void read(DataInputStream in) throws IOException {
+            if (in.readLong() != bucketMillis || in.readInt() != buckets.length()) {
+                throw new IOException("Snapshot ring layout does not match");
+            }
+            for (int i = 0; i < buckets.length(); i++) {
+                long epoch = in.readLong();
+                if (epoch < 0) {
+                    continue;
+                }
+                int size = in.readInt();
+                Bucket bucket = current(epoch);
+                for (int e = 0; e < size; e++) {
+                    long productId = in.readLong();
+                    long count = in.readLong();
+                    // Older snapshots may hold views of ids that were never products
+                    if (bucket != null && productId >= 0) {
+                        bucket.counts.computeIfAbsent(productId, id -> new LongAdder()).add(count);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.cognicart.recommendation;
+
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.TrendingRanking;
+import com.cognicart.enums.TrendingWindow;
+import com.cognicart.search.ProductIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Sliding-window sales and view counters with leaderboards per category. Events only bump counters;
+// a scheduled refresh sums the windows and publishes ranked lists, so a lookup is a map read.
+// Counters are snapshotted to disk periodically and on shutdown, and merged back in at startup.
+@Slf4j
+@Component
+public class TrendingCounters implements ProductIndex {
+
+    public static final int MAX_LEADERS = 50;
+
+    // One unit sold counts as this many product page views towards trending
+    private static final long SALE_WEIGHT = 5;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private final SlidingWindowCounter sales = new SlidingWindowCounter();
+    private final SlidingWindowCounter views = new SlidingWindowCounter();
+    private final Path snapshotPath;
+
+    // Category of every listed product by product id, ordinal + 1; 0 means not listed
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private byte[] categories = new byte[1024];
+
+    private volatile Map<TrendingRanking, Map<TrendingWindow, Leaders>> leaders = new EnumMap<>(TrendingRanking.class);
+
+    public TrendingCounters(@Value("${app.trending.snapshot-path:data/trending.snapshot}") String snapshotPath) {
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(categories, (byte) 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            indexDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                indexDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            int doc = Math.toIntExact(productId);
+            if (doc < categories.length) {
+                categories[doc] = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only views of listed products are counted, so requests for ids that do not exist leave no counters behind
+    public void recordView(Long productId) {
+        if (listedCategory(productId) != 0) {
+            views.add(productId, 1, System.currentTimeMillis());
+        }
+    }
+
+    // Counts units once the order commits
+    public void recordSales(Map<Long, Integer> quantities) {
+        Map<Long, Integer> copy = new HashMap<>(quantities);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addSales(copy);
+                }
+            });
+        } else {
+            addSales(copy);
+        }
+    }
+
+    // Leaders as of the last refresh; a null category ranks the whole catalog
+    public List<Long> top(TrendingRanking ranking, TrendingWindow window, ProductCategory category, int limit) {
+        Leaders current = leaders.getOrDefault(ranking, Map.of()).get(window);
+        List<Long> result = new ArrayList<>();
+        if (current == null) {
+            return result;
+        }
+        long[] ids = category != null ? current.byCategory().getOrDefault(category, new long[0]) : current.overall();
+        for (int i = 0; i < ids.length && result.size() < limit; i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Map<TrendingRanking, Map<TrendingWindow, Leaders>> next = new EnumMap<>(TrendingRanking.class);
+        for (TrendingRanking ranking : TrendingRanking.values()) {
+            next.put(ranking, new EnumMap<>(TrendingWindow.class));
+        }
+
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Map<Long, Long> sold = new HashMap<>();
+            sales.addTotals(window, now, sold);
+            Map<Long, Long> trending = new HashMap<>();
+            views.addTotals(window, now, trending);
+            sold.forEach((productId, units) -> trending.merge(productId, units * SALE_WEIGHT, Long::sum));
+
+            next.get(TrendingRanking.BEST_SELLERS).put(window, rank(sold));
+            next.get(TrendingRanking.TRENDING).put(window, rank(trending));
+        }
+        leaders = next;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_FORMAT) {
+                log.warn("Ignoring trending snapshot {} with an unknown format", snapshotPath);
+                return;
+            }
+            sales.read(in);
+            views.read(in);
+            log.info("Restored trending counters from {}", snapshotPath);
+        } catch (IOException e) {
+            log.warn("Could not restore trending counters from {}", snapshotPath, e);
+        }
+    }
+
+    // Written to a temporary file first so a crash mid-write never leaves a truncated snapshot
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.trending.snapshot-interval:300000}",
+               initialDelayString = "${app.trending.snapshot-interval:300000}")
+    public void saveSnapshot() {
+        try {
+            Path directory = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "trending", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_FORMAT);
+                sales.write(out);
+                views.write(out);
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write trending snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    private void addSales(Map<Long, Integer> quantities) {
+        long now = System.currentTimeMillis();
+        quantities.forEach((productId, quantity) -> sales.add(productId, quantity, now));
+    }
+
+    private int listedCategory(Long productId) {
+        if (productId == null || productId < 0) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return productId < categories.length ? categories[productId.intValue()] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexDocument(Product product) {
+        int doc = Math.toIntExact(product.getId());
+        if (doc >= categories.length) {
+            categories = Arrays.copyOf(categories, Math.max(doc + 1, categories.length * 2));
+        }
+        boolean listed = "active".equals(product.getStatus()) && "public".equals(product.getVisibility())
+                && product.getCategory() != null;
+        categories[doc] = listed ? (byte) (product.getCategory().ordinal() + 1) : 0;
+    }
+
+    // Bounded min-heaps per category and overall; products that are no longer listed are left out
+    private Leaders rank(Map<Long, Long> totals) {
+        ProductCategory[] values = ProductCategory.values();
+        List<PriorityQueue<long[]>> heaps = new ArrayList<>();
+        for (int c = 0; c <= values.length; c++) {
+            heaps.add(new PriorityQueue<>(TrendingCounters::compareEntries));
+        }
+
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Long> total : totals.entrySet()) {
+                long productId = total.getKey();
+                int category = productId >= 0 && productId < categories.length ? categories[(int) productId] : 0;
+                if (category == 0 || total.getValue() <= 0) {
+                    continue;
+                }
+                long[] entry = {productId, total.getValue()};
+                offer(heaps.get(0), entry);
+                offer(heaps.get(category), entry);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<ProductCategory, long[]> byCategory = new EnumMap<>(ProductCategory.class);
+        for (int c = 0; c < values.length; c++) {
+            byCategory.put(values[c], drain(heaps.get(c + 1)));
+        }
+        return new Leaders(drain(heaps.get(0)), byCategory);
+    }
+
+    private static void offer(PriorityQueue<long[]> heap, long[] entry) {
+        if (heap.size() < MAX_LEADERS) {
+            heap.add(entry);
+        } else if (compareEntries(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    private static long[] drain(PriorityQueue<long[]> heap) {
+        long[] ids = new long[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = heap.poll()[0];
+        }
+        return ids;
+    }
+
+    // Higher count ranks higher; ties go to the lower product id
+    private static int compareEntries(long[] a, long[] b) {
+        int byCount = Long.compare(a[1], b[1]);
+        return byCount != 0 ? byCount : Long.compare(b[0], a[0]);
+    }
+
+    private record Leaders(long[] overall, Map<ProductCategory, long[]> byCategory) {
+    }
+}
@@ -1,13 +1,50 @@
 package com.cognicart.repository;
 
 import com.cognicart.entity.CartItem;
+import com.cognicart.projection.CartItemRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
+    boolean existsByCartIdAndProductId(Long cartId, Long productId);
     void deleteByCartIdAndProductId(Long cartId, Long productId);
+    
+    @Query("SELECT new com.cognicart.projection.CartItemRow(ci.id, ci.product.id, ci.quantity, ci.unitPrice, ci.priceVersion) " +
+           "FROM CartItem ci WHERE ci.cart.id = :cartId ORDER BY ci.id")
+    List<CartItemRow> findRowsByCartId(@Param("cartId") Long cartId);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CartItem ci SET ci.quantity = ci.quantity + :quantity, ci.version = ci.version + 1 " +
+           "WHERE ci.cart.id = :cartId AND ci.product.id = :productId AND ci.priceVersion = :priceVersion")
+    int incrementQuantity(@Param("cartId") Long cartId,
+                          @Param("productId") Long productId,
+                          @Param("priceVersion") Long priceVersion,
+                          @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.unitPrice = :price, ci.priceVersion = :priceVersion, ci.version = ci.version + 1 " +
+           "WHERE ci.product.id = :productId AND ci.priceVersion < :priceVersion")
+    int repriceProduct(@Param("productId") Long productId,
+                       @Param("price") Double price,
+                       @Param("priceVersion") Long priceVersion);
+    
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.version = 0 WHERE ci.version IS NULL")
+    int initializeVersions();
+    
+    // Prices lines saved before lines carried a unit price at the product's current price
+    @Modifying
+    @Query("UPDATE CartItem ci SET " +
+           "ci.unitPrice = (SELECT COALESCE(p.price, 0) FROM Product p WHERE p = ci.product), " +
+           "ci.priceVersion = (SELECT COALESCE(p.priceVersion, 0) FROM Product p WHERE p = ci.product) " +
+           "WHERE ci.unitPrice IS NULL OR ci.priceVersion IS NULL")
+    int initializePrices();
 }
@@ -1,13 +1,72 @@
 package com.cognicart.repository;
 
 import com.cognicart.entity.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
-    Optional<Cart> findByUserId(Long userId);
+    // Cart reads load the lines with the cart in one query; line products stay references, served from the product cache
+    @EntityGraph(attributePaths = "items")
+    Optional<Cart> findWithItemsByUserEmail(String email);
+    
+    @EntityGraph(attributePaths = "items")
+    Optional<Cart> findWithItemsById(Long id);
+    
     void deleteByUserId(Long userId);
+    
+    @Query("SELECT c.id FROM Cart c WHERE c.user.email = :email")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+    
+    // Moves the subtotal of every cart holding this product at an older price version to the new price;
+    // run before the lines themselves are repriced
+    @Modifying
+    @Query("UPDATE Cart c SET c.subtotal = ROUND(c.subtotal + (SELECT SUM(ci.quantity * (:price - ci.unitPrice)) FROM CartItem ci " +
+           "WHERE ci.cart = c AND ci.product.id = :productId AND ci.priceVersion < :priceVersion), 2), c.version = c.version + 1 " +
+           "WHERE c.id IN (SELECT ci.cart.id FROM CartItem ci WHERE ci.product.id = :productId AND ci.priceVersion < :priceVersion)")
+    int repriceProduct(@Param("productId") Long productId,
+                       @Param("price") Double price,
+                       @Param("priceVersion") Long priceVersion);
+    
+    // Takes the cart's row lock, so its lines cannot change under the caller until its transaction ends
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1 WHERE c.id = :cartId")
+    int lock(@Param("cartId") Long cartId);
+    
+    // Increments rather than read-modify-writes, so concurrent additions never conflict
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cart c SET c.subtotal = ROUND(c.subtotal + :amount, 2), c.itemCount = c.itemCount + :quantity, " +
+           "c.version = c.version + 1 WHERE c.id = :cartId")
+    int addToTotals(@Param("cartId") Long cartId,
+                    @Param("amount") Double amount,
+                    @Param("quantity") Integer quantity);
+    
+    // Same, only when the cart holds the product at this price version
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cart c SET c.subtotal = ROUND(c.subtotal + :amount, 2), c.itemCount = c.itemCount + :quantity, " +
+           "c.version = c.version + 1 WHERE c.id = :cartId AND EXISTS (SELECT ci.id FROM CartItem ci " +
+           "WHERE ci.cart = c AND ci.product.id = :productId AND ci.priceVersion = :priceVersion)")
+    int addToTotalsForLine(@Param("cartId") Long cartId,
+                           @Param("productId") Long productId,
+                           @Param("priceVersion") Long priceVersion,
+                           @Param("amount") Double amount,
+                           @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = 0 WHERE c.version IS NULL")
+    int initializeVersions();
+    
+    // Fills in totals for carts saved before they were kept
+    @Modifying
+    @Query("UPDATE Cart c SET " +
+           "c.subtotal = COALESCE((SELECT ROUND(SUM(ci.quantity * ci.unitPrice), 2) FROM CartItem ci WHERE ci.cart = c), 0), " +
+           "c.itemCount = COALESCE((SELECT SUM(ci.quantity) FROM CartItem ci WHERE ci.cart = c), 0) " +
+           "WHERE c.subtotal IS NULL OR c.itemCount IS NULL")
+    int initializeTotals();
 }
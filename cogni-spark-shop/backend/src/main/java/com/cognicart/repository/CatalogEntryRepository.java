@@ -1,9 +1,19 @@
 package com.cognicart.repository;
 
 import com.cognicart.entity.CatalogEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +21,41 @@ import java.util.Optional;
 public interface CatalogEntryRepository extends JpaRepository<CatalogEntry, Long> {
     Optional<CatalogEntry> findByProductId(Long productId);
     List<CatalogEntry> findByStatus(String status);
+    long countByStatus(String status);
+    
+    @Query("SELECT e.product.id FROM CatalogEntry e WHERE e.product.id IN :productIds")
+    List<Long> findProductIdsWithEntry(@Param("productIds") Collection<Long> productIds);
+    
+    @Query("SELECT e FROM CatalogEntry e WHERE e.legacyCatalogData IS NOT NULL AND e.id > :afterId ORDER BY e.id")
+    List<CatalogEntry> findWithLegacyCatalogData(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Entries due for processing plus those whose lease ran out. A lock timeout of -2 is SKIP LOCKED, so
+    // concurrent claimers on other nodes pass over each other's rows; dialects without it wait instead.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM CatalogEntry e WHERE " +
+           "(e.status = :pending AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now)) OR " +
+           "(e.status = :processing AND e.leaseExpiresAt < :now) ORDER BY e.id")
+    List<CatalogEntry> findClaimable(@Param("pending") String pending,
+                                     @Param("processing") String processing,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable pageable);
+    
+    // Only entries still leased under the token move on, so a worker that lost its lease changes nothing
+    @Modifying
+    @Query("UPDATE CatalogEntry e SET e.status = :status, e.leaseToken = NULL, e.leaseExpiresAt = NULL, " +
+           "e.lastError = NULL, e.processedAt = :processedAt WHERE e.id IN :ids AND e.leaseToken = :leaseToken")
+    int completeLeased(@Param("ids") Collection<Long> ids,
+                       @Param("leaseToken") String leaseToken,
+                       @Param("status") String status,
+                       @Param("processedAt") LocalDateTime processedAt);
+    
+    @Modifying
+    @Query("UPDATE CatalogEntry e SET e.status = :status, e.leaseToken = NULL, e.leaseExpiresAt = NULL, " +
+           "e.nextAttemptAt = :nextAttemptAt, e.lastError = :error WHERE e.id = :id AND e.leaseToken = :leaseToken")
+    int releaseLeased(@Param("id") Long id,
+                      @Param("leaseToken") String leaseToken,
+                      @Param("status") String status,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
 }
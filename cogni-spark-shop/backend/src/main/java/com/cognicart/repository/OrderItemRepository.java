@@ -1,7 +1,10 @@
 package com.cognicart.repository;
 
 import com.cognicart.entity.OrderItem;
+import com.cognicart.projection.OrderProductPair;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +12,9 @@ import java.util.List;
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
+    
+    @Query("SELECT new com.cognicart.projection.OrderProductPair(oi.order.id, oi.product.id) FROM OrderItem oi " +
+           "WHERE oi.order.id BETWEEN :fromOrderId AND :toOrderId ORDER BY oi.order.id")
+    List<OrderProductPair> findOrderProductPairs(@Param("fromOrderId") Long fromOrderId,
+                                                 @Param("toOrderId") Long toOrderId);
 }
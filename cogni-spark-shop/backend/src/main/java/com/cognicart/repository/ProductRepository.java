@@ -2,23 +2,50 @@ package com.cognicart.repository;
 
 import com.cognicart.entity.Product;
 import com.cognicart.enums.ProductCategory;
+import com.cognicart.projection.ProductKey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     Optional<Product> findByProductId(String productId);
+    Optional<Product> findFirstBySlug(String slug);
     List<Product> findByCategory(ProductCategory category);
     List<Product> findByInStockTrue();
     List<Product> findBySellerId(Long sellerId);
+    List<Product> findByProductIdIn(Collection<String> productIds);
     
-    @Query("SELECT p FROM Product p WHERE p.status = 'active' AND p.visibility = 'public'")
-    List<Product> findAllActiveProducts();
+    @Query("SELECT p FROM Product p WHERE p.status = 'active' AND p.visibility = 'public' " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<Product> findActiveProductsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT p.productId FROM Product p WHERE p.productId IN :productIds")
+    List<String> findExistingProductIds(@Param("productIds") Collection<String> productIds);
+    
+    @Query("SELECT new com.cognicart.projection.ProductKey(p.id, p.productId) FROM Product p WHERE p.productId IN :productIds")
+    List<ProductKey> findKeysByProductIdIn(@Param("productIds") Collection<String> productIds);
+    
+    // Forward-only scroll for exports; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p WHERE p.status = 'active' AND p.visibility = 'public' ORDER BY p.id")
+    Stream<Product> streamActiveProducts();
     
     @Query("SELECT p FROM Product p WHERE " +
            "LOWER(p.productTitle) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
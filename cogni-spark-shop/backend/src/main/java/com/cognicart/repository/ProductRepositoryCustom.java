@@ -0,0 +1,14 @@
+package com.cognicart.repository;
+
+import com.cognicart.entity.Product;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+    
+    // Selects only the given attributes, in order, for products matching the specification
+    List<Tuple> findColumns(Specification<Product> spec, List<String> attributes, Sort sort, int limit);
+}
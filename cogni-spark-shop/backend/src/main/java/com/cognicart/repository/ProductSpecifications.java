@@ -0,0 +1,70 @@
+package com.cognicart.repository;
+
+import com.cognicart.entity.Product;
+import com.cognicart.entity.Wishlist;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.ProductSort;
+import com.cognicart.pagination.ProductCursor;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+public final class ProductSpecifications {
+    
+    private ProductSpecifications() {
+    }
+    
+    public static Specification<Product> activeAndPublic() {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get("status"), "active"),
+                cb.equal(root.get("visibility"), "public"));
+    }
+    
+    public static Specification<Product> inCategory(ProductCategory category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+    
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+    
+    // Products on a user's wishlist, via a subquery so the caller can project product columns only
+    public static Specification<Product> inWishlistOf(Long userId) {
+        return (root, query, cb) -> {
+            Subquery<Long> wishlisted = query.subquery(Long.class);
+            Root<Wishlist> wishlist = wishlisted.from(Wishlist.class);
+            wishlisted.select(wishlist.get("product").get("id"))
+                    .where(cb.equal(wishlist.get("user").get("id"), userId));
+            return root.get("id").in(wishlisted);
+        };
+    }
+    
+    public static Specification<Product> hasValue(String property) {
+        return (root, query, cb) -> cb.isNotNull(root.get(property));
+    }
+    
+    // Seek predicate: (key, id) strictly after the cursor's last row in the cursor's direction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(ProductCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            Predicate idAfter = cursor.isDescending()
+                    ? cb.lessThan(id, cursor.getLastId())
+                    : cb.greaterThan(id, cursor.getLastId());
+            if (cursor.getSort() == ProductSort.ID) {
+                return idAfter;
+            }
+            
+            Path key = root.get(cursor.getSort().getProperty());
+            Comparable value = cursor.typedLastValue();
+            Predicate keyAfter = cursor.isDescending()
+                    ? cb.lessThan(key, value)
+                    : cb.greaterThan(key, value);
+            return cb.or(keyAfter, cb.and(cb.equal(key, value), idAfter));
+        };
+    }
+}
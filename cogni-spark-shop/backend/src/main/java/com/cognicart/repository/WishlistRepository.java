@@ -1,6 +1,7 @@
 package com.cognicart.repository;
 
 import com.cognicart.entity.Wishlist;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,4 +14,7 @@ public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     Optional<Wishlist> findByUserIdAndProductId(Long userId, Long productId);
     Boolean existsByUserIdAndProductId(Long userId, Long productId);
     void deleteByUserIdAndProductId(Long userId, Long productId);
+    
+    @EntityGraph(attributePaths = "product")
+    List<Wishlist> findWithProductByUserEmail(String email);
 }
@@ -0,0 +1,296 @@
+package com.cognicart.search;
+
+import com.cognicart.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typed attributes parsed once at index time from the specifications JSON, the sizes JSON array and the
+// category-specific columns. Each attribute has its own value dictionary and one bitmap per value, so
+// filters like connectivity=Bluetooth or size=M are bitmap operations. Document ids are product ids.
+@Component
+public class AttributeIndex implements ProductIndex {
+
+    public static final String SIZE = "size";
+
+    // Free-form specifications must not grow the dictionaries without bound
+    private static final int MAX_ATTRIBUTES = 512;
+    private static final int MAX_VALUE_LENGTH = 100;
+    private static final int VALUE_BITS = 22;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int[] NO_ENTRIES = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Attribute> attributes = new HashMap<>();
+    private final List<Attribute> attributeList = new ArrayList<>();
+    // Every document's (attribute, value) codes, kept for removal
+    private int[][] docEntries = new int[1024][];
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            attributes.clear();
+            attributeList.clear();
+            Arrays.fill(docEntries, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            indexDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                indexDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(Math.toIntExact(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Products matching every attribute, each on any of its listed values; an unknown attribute or value matches nothing
+    public RoaringBitmap match(Map<String, List<String>> selections) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (Map.Entry<String, List<String>> selection : selections.entrySet()) {
+                Attribute attribute = attributes.get(normalizeName(selection.getKey()));
+                RoaringBitmap docs = new RoaringBitmap();
+                if (attribute != null) {
+                    for (String value : selection.getValue()) {
+                        Integer code = attribute.codes.get(normalizeValue(value));
+                        if (code != null) {
+                            docs.or(attribute.bitmaps.get(code));
+                        }
+                    }
+                }
+                if (result == null) {
+                    result = docs;
+                } else {
+                    result.and(docs);
+                }
+            }
+            return result != null ? result : new RoaringBitmap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexDocument(Product product) {
+        int doc = Math.toIntExact(product.getId());
+        removeDocument(doc);
+        if (!"active".equals(product.getStatus()) || !"public".equals(product.getVisibility())) {
+            return;
+        }
+
+        Map<String, Set<String>> values = new HashMap<>();
+        addValue(values, "batteryLife", product.getBatteryLife());
+        for (String connectivity : splitList(product.getConnectivity())) {
+            addValue(values, "connectivity", connectivity);
+        }
+        addValue(values, "warranty", product.getWarranty());
+        addValue(values, "fitType", product.getFitType());
+        addValue(values, "usage", product.getUsage());
+        addValue(values, "language", product.getLanguage());
+        addValue(values, "publisher", product.getPublisher());
+        addValue(values, "bindingType", product.getBindingType());
+        addSizes(values, product.getSizes());
+        addSpecifications(values, product.getSpecifications());
+
+        List<Integer> entries = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> attributeValues : values.entrySet()) {
+            Attribute attribute = attribute(attributeValues.getKey());
+            if (attribute == null) {
+                continue;
+            }
+            for (String value : attributeValues.getValue()) {
+                int code = attribute.code(value);
+                if (code >= 0) {
+                    attribute.bitmaps.get(code).add(doc);
+                    entries.add(attribute.id << VALUE_BITS | code);
+                }
+            }
+        }
+        if (!entries.isEmpty()) {
+            ensureCapacity(doc + 1);
+            docEntries[doc] = entries.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private void removeDocument(int doc) {
+        int[] entries = doc < docEntries.length && docEntries[doc] != null ? docEntries[doc] : NO_ENTRIES;
+        for (int entry : entries) {
+            Attribute attribute = attributeList.get(entry >>> VALUE_BITS);
+            attribute.bitmaps.get(entry & ((1 << VALUE_BITS) - 1)).remove(doc);
+        }
+        if (entries.length > 0) {
+            docEntries[doc] = null;
+        }
+    }
+
+    private Attribute attribute(String name) {
+        Attribute attribute = attributes.get(name);
+        if (attribute == null && attributeList.size() < MAX_ATTRIBUTES) {
+            attribute = new Attribute(attributeList.size());
+            attributes.put(name, attribute);
+            attributeList.add(attribute);
+        }
+        return attribute;
+    }
+
+    // Sizes are a JSON array, though older rows may hold a plain comma-separated list
+    private static void addSizes(Map<String, Set<String>> values, String sizes) {
+        if (sizes == null || sizes.isBlank()) {
+            return;
+        }
+        JsonNode node = parse(sizes);
+        if (node == null || !node.isArray()) {
+            for (String size : splitList(sizes)) {
+                addValue(values, SIZE, size);
+            }
+            return;
+        }
+        for (JsonNode size : node) {
+            if (size.isValueNode()) {
+                addValue(values, SIZE, size.asText());
+            }
+        }
+    }
+
+    // Top-level scalars and arrays of scalars; nested objects are not filterable
+    private static void addSpecifications(Map<String, Set<String>> values, String specifications) {
+        if (specifications == null || specifications.isBlank()) {
+            return;
+        }
+        JsonNode node = parse(specifications);
+        if (node == null || !node.isObject()) {
+            return;
+        }
+        node.fields().forEachRemaining(field -> {
+            if (field.getValue().isValueNode()) {
+                addValue(values, field.getKey(), field.getValue().asText());
+            } else if (field.getValue().isArray()) {
+                for (JsonNode element : field.getValue()) {
+                    if (element.isValueNode()) {
+                        addValue(values, field.getKey(), element.asText());
+                    }
+                }
+            }
+        });
+    }
+
+    private static JsonNode parse(String json) {
+        try {
+            return JSON.readTree(json);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> result = new ArrayList<>();
+        if (value != null) {
+            for (String part : value.split("[,;]")) {
+                result.add(part);
+            }
+        }
+        return result;
+    }
+
+    private static void addValue(Map<String, Set<String>> values, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        String label = value.trim();
+        String key = normalizeName(name);
+        if (label.isEmpty() || label.length() > MAX_VALUE_LENGTH || key.isEmpty()) {
+            return;
+        }
+        values.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(label);
+    }
+
+    // "Battery Life", "battery_life" and "batteryLife" name the same attribute
+    private static String normalizeName(String name) {
+        StringBuilder key = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    private static String normalizeValue(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= docEntries.length) {
+            return;
+        }
+        docEntries = Arrays.copyOf(docEntries, Math.max(capacity, docEntries.length * 2));
+    }
+
+    // Value dictionary plus one bitmap per value
+    private static final class Attribute {
+        private final int id;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+
+        Attribute(int id) {
+            this.id = id;
+        }
+
+        // -1 once the dictionary is full
+        int code(String value) {
+            String key = normalizeValue(value);
+            Integer code = codes.get(key);
+            if (code == null) {
+                if (bitmaps.size() == 1 << VALUE_BITS) {
+                    return -1;
+                }
+                code = bitmaps.size();
+                codes.put(key, code);
+                bitmaps.add(new RoaringBitmap());
+            }
+            return code;
+        }
+    }
+}
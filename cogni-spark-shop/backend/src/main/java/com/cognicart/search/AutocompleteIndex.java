@@ -0,0 +1,592 @@
+package com.cognicart.search;
+
+import com.cognicart.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typeahead over titles, brands, authors and category names. Each text is kept in one radix tree under its
+// whole normalized form and in a second under every later word, so "head" also finds "Sony Wireless
+// Headphones"; matches at the start of a text are listed first. Edges are path compressed and point into the
+// indexed text rather than copying it, and only nodes where paths meet cache their best suggestions, so a
+// lookup is one walk down the prefix with no subtree scan.
+@Component
+public class AutocompleteIndex implements ProductIndex {
+
+    private static final int TOP_K = 10;
+    private static final int MAX_KEY_LENGTH = 80;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private Tree leading = new Tree();
+    private Tree inner = new Tree();
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            suggestions.clear();
+            contributions.clear();
+            leading = new Tree();
+            inner = new Tree();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            indexDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                indexDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<String> result = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Suggestion> found = new LinkedHashSet<>();
+            leading.collect(key, found, limit);
+            inner.collect(key, found, limit);
+            for (Suggestion suggestion : found) {
+                result.add(suggestion.text);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Nodes in both trees, for checking that the structure stays compact
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return leading.root.count() + inner.root.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexDocument(Product product) {
+        removeDocument(product.getId());
+        if (!"active".equals(product.getStatus()) || !"public".equals(product.getVisibility())) {
+            return;
+        }
+
+        // Popular, well rated products rank first; brands and categories accumulate their products' weight
+        double rating = product.getRating() != null ? product.getRating() : 0.0;
+        int reviews = product.getReviewsCount() != null ? product.getReviewsCount() : 0;
+        double weight = 1.0 + rating * Math.log1p(reviews);
+
+        Map<String, String> texts = new LinkedHashMap<>();
+        addText(texts, product.getProductTitle());
+        addText(texts, product.getBrand());
+        addText(texts, product.getAuthor());
+        if (product.getCategory() != null) {
+            addText(texts, categoryName(product.getCategory().name()));
+        }
+
+        String[] keys = texts.keySet().toArray(new String[0]);
+        for (Map.Entry<String, String> text : texts.entrySet()) {
+            Suggestion suggestion = suggestions.get(text.getKey());
+            if (suggestion == null) {
+                suggestion = new Suggestion(text.getKey(), text.getValue());
+                suggestions.put(text.getKey(), suggestion);
+                suggestion.score = weight;
+                suggestion.refs = 1;
+                leading.insert(suggestion, 0);
+                for (int offset : wordStarts(suggestion.key)) {
+                    inner.insert(suggestion, offset);
+                }
+            } else {
+                suggestion.score += weight;
+                suggestion.refs++;
+                leading.raised(suggestion, 0);
+                for (int offset : wordStarts(suggestion.key)) {
+                    inner.raised(suggestion, offset);
+                }
+            }
+        }
+        contributions.put(product.getId(), new Contribution(keys, weight));
+    }
+
+    private void removeDocument(Long productId) {
+        Contribution contribution = contributions.remove(productId);
+        if (contribution == null) {
+            return;
+        }
+        for (String key : contribution.keys) {
+            Suggestion suggestion = suggestions.get(key);
+            suggestion.score -= contribution.weight;
+            suggestion.refs--;
+            boolean gone = suggestion.refs == 0;
+            if (gone) {
+                suggestions.remove(key);
+            }
+            leading.lowered(suggestion, 0, gone);
+            for (int offset : wordStarts(key)) {
+                inner.lowered(suggestion, offset, gone);
+            }
+        }
+    }
+
+    // Offsets of every word after the first in a normalized key
+    private static int[] wordStarts(String key) {
+        int count = 0;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) == ' ') count++;
+        }
+        int[] starts = new int[count];
+        int next = 0;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) == ' ') starts[next++] = i + 1;
+        }
+        return starts;
+    }
+
+    private static void addText(Map<String, String> texts, String value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.trim();
+        if (text.length() > MAX_KEY_LENGTH) {
+            text = text.substring(0, MAX_KEY_LENGTH).trim();
+        }
+        String key = normalize(text);
+        if (!key.isEmpty()) {
+            texts.putIfAbsent(key, text);
+        }
+    }
+
+    private static String categoryName(String category) {
+        StringBuilder name = new StringBuilder();
+        for (String word : category.split("_")) {
+            if (name.length() > 0) name.append(" & ");
+            name.append(word.charAt(0)).append(word.substring(1).toLowerCase(Locale.ROOT));
+        }
+        return name.toString();
+    }
+
+    // Lowercase, with every run of non-alphanumeric characters collapsed to one space
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && key.length() > 0) key.append(' ');
+                key.append(c);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return key.toString();
+    }
+
+    private static final class Suggestion {
+        private final String key;
+        private final String text;
+        private double score;
+        private int refs;
+
+        Suggestion(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+
+        boolean ranksAbove(Suggestion other) {
+            return score > other.score || (score == other.score && text.compareTo(other.text) < 0);
+        }
+    }
+
+    private record Contribution(String[] keys, double weight) {
+    }
+
+    // Radix tree of suggestion keys, each entered from a given offset. The path to a node spells
+    // key[offset, end) of the key its label points into, which is what lets two nodes merge without copying.
+    private static final class Tree {
+        private final Node root = new Node("", 0, 0);
+
+        void collect(String prefix, Set<Suggestion> found, int limit) {
+            Node node = root;
+            int matched = 0;
+            while (matched < prefix.length()) {
+                node = node.child(prefix.charAt(matched));
+                if (node == null) {
+                    return;
+                }
+                for (int i = node.start; i < node.end && matched < prefix.length(); i++, matched++) {
+                    if (node.key.charAt(i) != prefix.charAt(matched)) {
+                        return;
+                    }
+                }
+            }
+            for (Suggestion suggestion : node.candidates()) {
+                if (found.size() >= limit) {
+                    return;
+                }
+                found.add(suggestion);
+            }
+        }
+
+        // Adds a new suggestion under key[offset..], splitting an edge where the key leaves it
+        void insert(Suggestion suggestion, int offset) {
+            String key = suggestion.key;
+            List<Node> path = new ArrayList<>();
+            path.add(root);
+            Node node = root;
+            int position = offset;
+            while (position < key.length()) {
+                Node child = node.child(key.charAt(position));
+                if (child == null) {
+                    child = new Node(key, position, key.length());
+                    node.addChild(child);
+                    position = key.length();
+                } else {
+                    int common = child.commonPrefix(key, position);
+                    if (common < child.length()) {
+                        Node middle = new Node(child.key, child.start, child.start + common);
+                        node.replaceChild(child, middle);
+                        child.start += common;
+                        middle.addChild(child);
+                        child = middle;
+                    }
+                    position += common;
+                }
+                path.add(child);
+                node = child;
+            }
+            if (!node.hasTerminal(suggestion)) {
+                node.addTerminal(suggestion);
+            }
+            raise(path, suggestion);
+        }
+
+        // The suggestion's score went up: it can only climb in the cached rankings along its path
+        void raised(Suggestion suggestion, int offset) {
+            List<Node> path = find(suggestion, offset);
+            if (path != null) {
+                raise(path, suggestion);
+            }
+        }
+
+        // The suggestion's score went down or it is gone: its path is pruned and re-ranked from the children
+        void lowered(Suggestion suggestion, int offset, boolean gone) {
+            List<Node> path = find(suggestion, offset);
+            if (path == null) {
+                return;
+            }
+            if (gone) {
+                path.get(path.size() - 1).removeTerminal(suggestion);
+                for (int i = path.size() - 1; i > 0; i--) {
+                    Node node = path.get(i);
+                    Node parent = path.get(i - 1);
+                    if (node.terminalCount() == 0 && node.childCount == 0) {
+                        parent.removeChild(node);
+                        path.set(i, null);
+                    } else if (node.terminalCount() == 0 && node.childCount == 1) {
+                        Node only = node.children[0];
+                        only.start -= node.length();
+                        parent.replaceChild(node, only);
+                        path.set(i, null);
+                    }
+                }
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (node != null) {
+                    node.rank();
+                }
+            }
+        }
+
+        private void raise(List<Node> path, Suggestion suggestion) {
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (!node.isBranch()) {
+                    node.top = null;
+                } else if (node.top == null) {
+                    node.rank();
+                } else {
+                    node.offer(suggestion);
+                }
+            }
+        }
+
+        // Root to the node holding the suggestion under key[offset..], or null if it is not there
+        private List<Node> find(Suggestion suggestion, int offset) {
+            String key = suggestion.key;
+            List<Node> path = new ArrayList<>();
+            path.add(root);
+            Node node = root;
+            int position = offset;
+            while (position < key.length()) {
+                node = node.child(key.charAt(position));
+                if (node == null || node.commonPrefix(key, position) < node.length()) {
+                    return null;
+                }
+                position += node.length();
+                path.add(node);
+            }
+            return node.hasTerminal(suggestion) ? path : null;
+        }
+    }
+
+    // An edge label key[start, end) and the node below it. Most nodes are leaves holding one suggestion; a
+    // node only carries a ranking when more than one suggestion lies below it.
+    private static final class Node {
+        private String key;
+        private int start;
+        private final int end;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        // Keys are unique in the leading tree, so one terminal is the norm; word suffixes can be shared
+        private Suggestion terminal;
+        private Suggestion[] moreTerminals = NO_SUGGESTIONS;
+        private int moreCount;
+        private Suggestion[] top;
+
+        Node(String key, int start, int end) {
+            this.key = key;
+            this.start = start;
+            this.end = end;
+        }
+
+        int length() {
+            return end - start;
+        }
+
+        int commonPrefix(String other, int from) {
+            int i = 0;
+            while (i < length() && from + i < other.length() && key.charAt(start + i) == other.charAt(from + i)) {
+                i++;
+            }
+            return i;
+        }
+
+        Node child(char c) {
+            int i = indexOf(c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private int indexOf(char c) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = children[mid].key.charAt(children[mid].start);
+                if (label < c) {
+                    low = mid + 1;
+                } else if (label > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void addChild(Node child) {
+            int i = -(indexOf(child.key.charAt(child.start)) + 1);
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, i, children, i + 1, childCount - i);
+            children[i] = child;
+            childCount++;
+        }
+
+        // The replacement starts with the same character, so it takes the same slot
+        void replaceChild(Node child, Node replacement) {
+            children[indexOf(child.key.charAt(child.start))] = replacement;
+        }
+
+        void removeChild(Node child) {
+            int i = indexOf(child.key.charAt(child.start));
+            System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+            childCount--;
+            children[childCount] = null;
+            if (childCount == 0) {
+                children = NO_CHILDREN;
+            }
+        }
+
+        int terminalCount() {
+            return (terminal != null ? 1 : 0) + moreCount;
+        }
+
+        boolean hasTerminal(Suggestion suggestion) {
+            if (terminal == suggestion) {
+                return true;
+            }
+            for (int i = 0; i < moreCount; i++) {
+                if (moreTerminals[i] == suggestion) return true;
+            }
+            return false;
+        }
+
+        void addTerminal(Suggestion suggestion) {
+            if (terminal == null) {
+                terminal = suggestion;
+                return;
+            }
+            if (moreCount == moreTerminals.length) {
+                moreTerminals = Arrays.copyOf(moreTerminals, Math.max(2, moreCount * 2));
+            }
+            moreTerminals[moreCount++] = suggestion;
+        }
+
+        void removeTerminal(Suggestion suggestion) {
+            if (terminal == suggestion) {
+                terminal = moreCount > 0 ? moreTerminals[--moreCount] : null;
+                if (terminal != null) moreTerminals[moreCount] = null;
+            } else {
+                for (int i = 0; i < moreCount; i++) {
+                    if (moreTerminals[i] == suggestion) {
+                        moreTerminals[i] = moreTerminals[--moreCount];
+                        moreTerminals[moreCount] = null;
+                        break;
+                    }
+                }
+            }
+            if (moreCount == 0) {
+                moreTerminals = NO_SUGGESTIONS;
+            }
+        }
+
+        boolean isBranch() {
+            return childCount + terminalCount() > 1;
+        }
+
+        // The best suggestions at or below this node
+        Suggestion[] candidates() {
+            if (top != null) {
+                return top;
+            }
+            if (terminal != null) {
+                return new Suggestion[]{terminal};
+            }
+            return childCount == 1 ? children[0].candidates() : NO_SUGGESTIONS;
+        }
+
+        // Rebuilds the ranking from the terminals and the children's rankings
+        void rank() {
+            if (!isBranch()) {
+                top = null;
+                return;
+            }
+            Suggestion[] best = new Suggestion[TOP_K];
+            int size = 0;
+            if (terminal != null) {
+                size = merge(best, size, terminal);
+            }
+            for (int i = 0; i < moreCount; i++) {
+                size = merge(best, size, moreTerminals[i]);
+            }
+            for (int c = 0; c < childCount; c++) {
+                for (Suggestion candidate : children[c].candidates()) {
+                    if (size == TOP_K && !candidate.ranksAbove(best[size - 1])) {
+                        break;
+                    }
+                    size = merge(best, size, candidate);
+                }
+            }
+            top = size == TOP_K ? best : Arrays.copyOf(best, size);
+        }
+
+        // Moves a suggestion whose score went up into place, or lets it in if it now ranks high enough
+        void offer(Suggestion suggestion) {
+            int i = 0;
+            while (i < top.length && top[i] != suggestion) {
+                i++;
+            }
+            if (i == top.length) {
+                if (top.length < TOP_K) {
+                    top = Arrays.copyOf(top, top.length + 1);
+                } else if (!suggestion.ranksAbove(top[i - 1])) {
+                    return;
+                }
+                i = top.length - 1;
+            }
+            while (i > 0 && suggestion.ranksAbove(top[i - 1])) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = suggestion;
+        }
+
+        int count() {
+            int count = 1;
+            for (int c = 0; c < childCount; c++) {
+                count += children[c].count();
+            }
+            return count;
+        }
+
+        // Insertion into a sorted, bounded list that skips suggestions already in it; a word suffix can
+        // reach the same suggestion through two children
+        private static int merge(Suggestion[] best, int size, Suggestion candidate) {
+            for (int i = 0; i < size; i++) {
+                if (best[i] == candidate) return size;
+            }
+            if (size == TOP_K && !candidate.ranksAbove(best[size - 1])) {
+                return size;
+            }
+            int i = size < TOP_K ? size++ : size - 1;
+            while (i > 0 && candidate.ranksAbove(best[i - 1])) {
+                best[i] = best[i - 1];
+                i--;
+            }
+            best[i] = candidate;
+            return size;
+        }
+    }
+}
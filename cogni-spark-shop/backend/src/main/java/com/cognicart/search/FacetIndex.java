@@ -0,0 +1,364 @@
+package com.cognicart.search;
+
+import com.cognicart.dto.response.FacetCount;
+import com.cognicart.entity.Product;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Compressed bitmaps per facet value over active, public products; document ids are product ids
+@Component
+public class FacetIndex implements ProductIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String COLOR = "color";
+    public static final String MATERIAL = "material";
+    public static final String GENDER = "gender";
+    public static final String IN_STOCK = "inStock";
+    public static final String PRICE = "price";
+    public static final String RATING = "rating";
+
+    private static final int MAX_VALUES_PER_FACET = 50;
+    private static final double[] PRICE_EDGES = {0, 500, 1000, 2000, 5000, 10000, 20000, 50000};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Facet> facets = new LinkedHashMap<>();
+    private final Facet priceFacet;
+    private final Facet ratingFacet;
+    private RoaringBitmap all = new RoaringBitmap();
+    private double[] prices = new double[1024];
+    private double[] ratings = new double[1024];
+
+    public FacetIndex() {
+        addFacet(CATEGORY, p -> p.getCategory() != null ? p.getCategory().name() : null, List.of());
+        addFacet(BRAND, Product::getBrand, List.of());
+        addFacet(COLOR, Product::getColor, List.of());
+        addFacet(MATERIAL, Product::getMaterial, List.of());
+        addFacet(GENDER, Product::getGender, List.of());
+        addFacet(IN_STOCK, p -> p.getInStock() != null ? p.getInStock().toString() : null, List.of());
+
+        List<String> priceBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket < PRICE_EDGES.length; bucket++) {
+            priceBuckets.add(priceBucketLabel(bucket));
+        }
+        List<String> ratingBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket <= 5; bucket++) {
+            ratingBuckets.add(ratingBucketLabel(bucket));
+        }
+        priceFacet = addFacet(PRICE, p -> p.getPrice() != null ? priceBucketLabel(priceBucket(p.getPrice())) : null, priceBuckets);
+        ratingFacet = addFacet(RATING, p -> p.getRating() != null ? ratingBucketLabel(ratingBucket(p.getRating())) : null, ratingBuckets);
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Facet facet : facets.values()) {
+                facet.clear();
+            }
+            all = new RoaringBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            indexDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                indexDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(Math.toIntExact(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The optional restriction narrows every count and result to a set of products matched elsewhere
+    public FacetResult query(FacetQuery query, RoaringBitmap restriction, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap universe = restriction != null ? RoaringBitmap.and(all, restriction) : all;
+
+            // One bitmap per constrained facet; values within a facet are OR-ed, facets are AND-ed
+            Map<String, RoaringBitmap> constraints = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> selection : query.getSelections().entrySet()) {
+                Facet facet = facets.get(selection.getKey());
+                if (facet != null && selection.getValue() != null && !selection.getValue().isEmpty()) {
+                    constraints.put(facet.name, facet.union(selection.getValue()));
+                }
+            }
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                constraints.put(PRICE, priceRange(query.getMinPrice(), query.getMaxPrice()));
+            }
+            if (query.getMinRating() != null) {
+                constraints.put(RATING, ratingAtLeast(query.getMinRating()));
+            }
+
+            RoaringBitmap matches = universe.clone();
+            for (RoaringBitmap constraint : constraints.values()) {
+                matches.and(constraint);
+            }
+
+            // Disjunctive counts: each facet is counted against every constraint except its own
+            Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+            for (Facet facet : facets.values()) {
+                RoaringBitmap base = matches;
+                if (constraints.containsKey(facet.name)) {
+                    base = universe.clone();
+                    for (Map.Entry<String, RoaringBitmap> constraint : constraints.entrySet()) {
+                        if (!constraint.getKey().equals(facet.name)) {
+                            base.and(constraint.getValue());
+                        }
+                    }
+                }
+                counts.put(facet.name, facet.counts(base, facet != priceFacet && facet != ratingFacet));
+            }
+
+            List<Long> ids = new ArrayList<>(limit);
+            PeekableIntIterator iterator = matches.getIntIterator();
+            if (afterId >= 0) {
+                iterator.advanceIfNeeded(Math.toIntExact(afterId + 1));
+            }
+            while (iterator.hasNext() && ids.size() < limit) {
+                ids.add((long) iterator.next());
+            }
+
+            return new FacetResult(ids, matches.getLongCardinality(), iterator.hasNext(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Facet addFacet(String name, Function<Product, String> extractor, List<String> fixedValues) {
+        Facet facet = new Facet(name, extractor, fixedValues);
+        facets.put(name, facet);
+        return facet;
+    }
+
+    private void indexDocument(Product product) {
+        int doc = Math.toIntExact(product.getId());
+        removeDocument(doc);
+        if (!"active".equals(product.getStatus()) || !"public".equals(product.getVisibility())) {
+            return;
+        }
+
+        ensureCapacity(doc + 1);
+        prices[doc] = product.getPrice() != null ? product.getPrice() : Double.NaN;
+        ratings[doc] = product.getRating() != null ? product.getRating() : Double.NaN;
+        for (Facet facet : facets.values()) {
+            facet.add(doc, facet.extractor.apply(product));
+        }
+        all.add(doc);
+    }
+
+    private void removeDocument(int doc) {
+        if (!all.contains(doc)) {
+            return;
+        }
+        for (Facet facet : facets.values()) {
+            facet.remove(doc);
+        }
+        all.remove(doc);
+    }
+
+    // Whole buckets inside the range are taken as-is; the edge buckets are checked against the exact price
+    private RoaringBitmap priceRange(Double min, Double max) {
+        double low = min != null ? min : Double.NEGATIVE_INFINITY;
+        double high = max != null ? max : Double.POSITIVE_INFINITY;
+        RoaringBitmap result = new RoaringBitmap();
+        for (int bucket = 0; bucket < PRICE_EDGES.length; bucket++) {
+            RoaringBitmap docs = priceFacet.bitmap(priceBucketLabel(bucket));
+            if (docs == null) {
+                continue;
+            }
+            double bucketLow = PRICE_EDGES[bucket];
+            double bucketHigh = bucket + 1 < PRICE_EDGES.length ? PRICE_EDGES[bucket + 1] : Double.POSITIVE_INFINITY;
+            if (bucketLow >= low && bucketHigh <= high) {
+                result.or(docs);
+            } else if (bucketHigh > low && bucketLow <= high) {
+                docs.forEach((int doc) -> {
+                    if (prices[doc] >= low && prices[doc] <= high) {
+                        result.add(doc);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap ratingAtLeast(double minRating) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int bucket = 0; bucket <= 5; bucket++) {
+            RoaringBitmap docs = ratingFacet.bitmap(ratingBucketLabel(bucket));
+            if (docs == null || bucket + 1 <= minRating) {
+                continue;
+            }
+            if (bucket >= minRating) {
+                result.or(docs);
+            } else {
+                docs.forEach((int doc) -> {
+                    if (ratings[doc] >= minRating) {
+                        result.add(doc);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket + 1 < PRICE_EDGES.length && price >= PRICE_EDGES[bucket + 1]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String priceBucketLabel(int bucket) {
+        long low = (long) PRICE_EDGES[bucket];
+        return bucket + 1 < PRICE_EDGES.length ? low + "-" + (long) PRICE_EDGES[bucket + 1] : low + "+";
+    }
+
+    private static int ratingBucket(double rating) {
+        return (int) Math.max(0, Math.min(5, Math.floor(rating)));
+    }
+
+    private static String ratingBucketLabel(int bucket) {
+        return Integer.toString(bucket);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= prices.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, prices.length * 2);
+        prices = Arrays.copyOf(prices, newCapacity);
+        ratings = Arrays.copyOf(ratings, newCapacity);
+        for (Facet facet : facets.values()) {
+            facet.docCodes = Arrays.copyOf(facet.docCodes, newCapacity);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Value dictionary plus one bitmap per value; docCodes remembers each document's value for removal.
+    // Range facets register their buckets up front so counts come back in bucket order.
+    private static final class Facet {
+        private final String name;
+        private final Function<Product, String> extractor;
+        private final List<String> fixedValues;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+        private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+        private int[] docCodes = new int[1024];
+
+        Facet(String name, Function<Product, String> extractor, List<String> fixedValues) {
+            this.name = name;
+            this.extractor = extractor;
+            this.fixedValues = fixedValues;
+            fixedValues.forEach(this::code);
+        }
+
+        void add(int doc, String value) {
+            if (value == null || value.isBlank()) {
+                return;
+            }
+            int code = code(value);
+            bitmaps.get(code).add(doc);
+            docCodes[doc] = code + 1;
+        }
+
+        private int code(String value) {
+            return codes.computeIfAbsent(normalize(value), key -> {
+                labels.add(value.trim());
+                bitmaps.add(new RoaringBitmap());
+                return labels.size() - 1;
+            });
+        }
+
+        void remove(int doc) {
+            int code = docCodes[doc] - 1;
+            if (code >= 0) {
+                bitmaps.get(code).remove(doc);
+                docCodes[doc] = 0;
+            }
+        }
+
+        RoaringBitmap bitmap(String value) {
+            Integer code = codes.get(normalize(value));
+            return code != null ? bitmaps.get(code) : null;
+        }
+
+        RoaringBitmap union(List<String> values) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (String value : values) {
+                RoaringBitmap docs = bitmap(value);
+                if (docs != null) {
+                    result.or(docs);
+                }
+            }
+            return result;
+        }
+
+        List<FacetCount> counts(RoaringBitmap base, boolean byCount) {
+            List<FacetCount> result = new ArrayList<>();
+            for (int code = 0; code < bitmaps.size(); code++) {
+                int count = RoaringBitmap.andCardinality(bitmaps.get(code), base);
+                if (count > 0) {
+                    result.add(new FacetCount(labels.get(code), (long) count));
+                }
+            }
+            if (byCount) {
+                result.sort(Comparator.comparing(FacetCount::getCount).reversed());
+                if (result.size() > MAX_VALUES_PER_FACET) {
+                    return new ArrayList<>(result.subList(0, MAX_VALUES_PER_FACET));
+                }
+            }
+            return result;
+        }
+
+        void clear() {
+            codes.clear();
+            labels.clear();
+            bitmaps.clear();
+            Arrays.fill(docCodes, 0);
+            fixedValues.forEach(this::code);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.cognicart.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetQuery {
+    
+    // Facet name to the accepted values; any one value of a facet matches
+    @Builder.Default
+    private Map<String, List<String>> selections = new LinkedHashMap<>();
+    
+    // Attribute name to the accepted values, answered by the AttributeIndex
+    @Builder.Default
+    private Map<String, List<String>> attributes = new LinkedHashMap<>();
+    
+    private Double minPrice;
+    private Double maxPrice;
+    private Double minRating;
+    
+    public FacetQuery select(String facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            selections.put(facet, values);
+        }
+        return this;
+    }
+    
+    // Filters come as "name:value"; repeating a name accepts any of its values
+    public FacetQuery selectAttributes(List<String> filters) {
+        if (filters == null) {
+            return this;
+        }
+        for (String filter : filters) {
+            int separator = filter.indexOf(':');
+            if (separator <= 0 || separator == filter.length() - 1) {
+                throw new RuntimeException("Invalid attribute filter: " + filter);
+            }
+            attributes.computeIfAbsent(filter.substring(0, separator).trim(), name -> new ArrayList<>())
+                    .add(filter.substring(separator + 1).trim());
+        }
+        return this;
+    }
+}
@@ -0,0 +1,9 @@
+package com.cognicart.search;
+
+import com.cognicart.dto.response.FacetCount;
+
+import java.util.List;
+import java.util.Map;
+
+public record FacetResult(List<Long> productIds, long total, boolean hasMore, Map<String, List<FacetCount>> facets) {
+}
@@ -0,0 +1,22 @@
+package com.cognicart.search;
+
+import com.cognicart.entity.Product;
+
+import java.util.List;
+
+// In-memory secondary structure over the catalog, kept in sync by ProductIndexer
+public interface ProductIndex {
+    
+    void clear();
+    
+    // Adds the product, replacing any previous version of it
+    void index(Product product);
+    
+    void remove(Long productId);
+    
+    default void indexAll(List<Product> products) {
+        for (Product product : products) {
+            index(product);
+        }
+    }
+}
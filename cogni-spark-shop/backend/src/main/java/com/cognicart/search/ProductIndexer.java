@@ -0,0 +1,120 @@
+package com.cognicart.search;
+
+import com.cognicart.cache.CatalogVersions;
+import com.cognicart.entity.Product;
+import com.cognicart.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+// Builds every ProductIndex at startup and fans product writes out to them and to the catalog versions.
+// Requests can arrive before the startup build finishes; readers wait for it rather than see partial indexes.
+@Slf4j
+@Component
+public class ProductIndexer {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private List<ProductIndex> indexes;
+    
+    @Autowired
+    private CatalogVersions catalogVersions;
+    
+    private final CountDownLatch built = new CountDownLatch(1);
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            indexes.forEach(ProductIndex::clear);
+            
+            long afterId = 0;
+            long count = 0;
+            List<Product> batch;
+            do {
+                batch = productRepository.findActiveProductsAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                for (ProductIndex index : indexes) {
+                    index.indexAll(batch);
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+                count += batch.size();
+            } while (batch.size() == BATCH_SIZE);
+            
+            log.info("Built {} product indexes over {} products in {} ms",
+                    indexes.size(), count, System.currentTimeMillis() - start);
+        } finally {
+            // A failed build still lets readers through, to whatever was indexed, instead of holding them forever
+            built.countDown();
+        }
+    }
+    
+    // Returns at once after the first build; before it, blocks until the build ends
+    public void awaitBuilt() {
+        if (built.getCount() == 0) {
+            return;
+        }
+        try {
+            built.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the product indexes");
+        }
+    }
+    
+    public void index(Product product) {
+        afterCommit(() -> {
+            for (ProductIndex index : indexes) {
+                index.index(product);
+            }
+        });
+        catalogVersions.changed(product.getId());
+    }
+    
+    public void indexAll(List<Product> products) {
+        afterCommit(() -> {
+            for (ProductIndex index : indexes) {
+                index.indexAll(products);
+            }
+        });
+        catalogVersions.changed(products.stream().map(Product::getId).collect(Collectors.toList()));
+    }
+    
+    public void remove(Long productId) {
+        afterCommit(() -> {
+            for (ProductIndex index : indexes) {
+                index.remove(productId);
+            }
+        });
+        catalogVersions.changed(productId);
+    }
+    
+    // Inside a transaction the indexes only change once it commits, so a rolled back write, including an insert
+    // that fails at flush, never reaches them
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.cognicart.search;
+
+import com.cognicart.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Field-weighted inverted index over active, public products ranked with BM25F
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+    private static final int MIN_DELETED_FOR_COMPACTION = 1000;
+
+    // Misspelt queries: when the exact terms match fewer live products than this, every query term is
+    // expanded to dictionary terms within its edit budget, each edit costing a share of the term's score
+    private static final int MIN_EXACT_MATCHES = 3;
+    private static final int MAX_EXPANSIONS_PER_TERM = 16;
+    private static final float EDIT_PENALTY = 0.6f;
+
+    private static final int TITLE = 0;
+    private static final int BRAND = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int FIELD_COUNT = 3;
+
+    private static final float K1 = 1.2f;
+    private static final float[] FIELD_WEIGHTS = {3.0f, 2.0f, 1.0f};
+    private static final float[] FIELD_B = {0.75f, 0.3f, 0.75f};
+
+    // Per-field term frequencies are packed into one int per posting: 10 bits title, 10 bits brand, 12 bits description
+    private static final int[] TF_SHIFT = {0, 10, 20};
+    private static final int[] TF_MASK = {0x3FF, 0x3FF, 0xFFF};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final TermGrams termGrams = new TermGrams();
+    private final Map<Long, Integer> docByProductId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final long[] totalFieldLengths = new long[FIELD_COUNT];
+    private long[] productIds = new long[1024];
+    private int[][] fieldLengths = new int[FIELD_COUNT][1024];
+    private int maxDoc;
+    private int deletedCount;
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termGrams.clear();
+            docByProductId.clear();
+            deleted.clear();
+            Arrays.fill(totalFieldLengths, 0);
+            maxDoc = 0;
+            deletedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            if (isSearchable(product)) {
+                addDocument(product);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indexAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeDocument(product.getId());
+                if (isSearchable(product)) {
+                    addDocument(product);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the top matches, best first
+    public List<SearchHit> search(String query, int limit) {
+        return search(query, limit, null, true);
+    }
+
+    // Returns the top matches ranked strictly after the given hit, so callers can page with a seek cursor.
+    // Whether the fuzzy fallback kicks in depends only on the query and the index, never on the cursor,
+    // so every page of a result list is ranked the same way.
+    public List<SearchHit> search(String query, int limit, SearchHit after, boolean fuzzyFallback) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = maxDoc - deletedCount;
+            if (liveDocs == 0) {
+                return new ArrayList<>();
+            }
+
+            float[] averageLengths = new float[FIELD_COUNT];
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                averageLengths[f] = Math.max(1.0f, (float) totalFieldLengths[f] / liveDocs);
+            }
+
+            QueryTerms exact = new QueryTerms(terms.size());
+            int group = 0;
+            for (String term : terms) {
+                exact.add(postings.get(term), group++, 1.0f);
+            }
+            TopHits hits = new TopHits(limit);
+            int matched = score(exact, averageLengths, after, hits);
+            if (!fuzzyFallback || matched >= MIN_EXACT_MATCHES) {
+                return hits.sorted();
+            }
+
+            QueryTerms fuzzy = new QueryTerms(terms.size());
+            group = 0;
+            for (String term : terms) {
+                fuzzy.add(postings.get(term), group, 1.0f);
+                for (TermGrams.Match match : termGrams.similar(term, maxEdits(term.length()), MAX_EXPANSIONS_PER_TERM)) {
+                    fuzzy.add(postings.get(match.term()), group, (float) Math.pow(EDIT_PENALTY, match.distance()));
+                }
+                group++;
+            }
+            hits = new TopHits(limit);
+            score(fuzzy, averageLengths, after, hits);
+            return hits.sorted();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return maxDoc - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Document-at-a-time union of the sorted posting lists. A document takes the best scoring list of each
+    // query term group, so several spellings of one query term never add up. Returns the live docs matched.
+    private int score(QueryTerms query, float[] averageLengths, SearchHit after, TopHits hits) {
+        int listCount = query.lists.size();
+        if (listCount == 0) {
+            return 0;
+        }
+        // Spellings of one query term share the idf of the most common of them, so a rare near miss cannot
+        // outrank the word that was meant just for being rare
+        int[] groupFrequencies = new int[query.groupCount];
+        for (int i = 0; i < listCount; i++) {
+            int g = query.groups.get(i);
+            groupFrequencies[g] = Math.max(groupFrequencies[g], query.lists.get(i).size);
+        }
+        float[] idfs = new float[listCount];
+        for (int i = 0; i < listCount; i++) {
+            idfs[i] = idf(groupFrequencies[query.groups.get(i)]) * query.weights.get(i);
+        }
+
+        float[] groupScores = new float[query.groupCount];
+        int matched = 0;
+        int[] cursors = new int[listCount];
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = 0; i < listCount; i++) {
+                Postings list = query.lists.get(i);
+                if (cursors[i] < list.size && list.docs[cursors[i]] < doc) {
+                    doc = list.docs[cursors[i]];
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+
+            boolean live = !deleted.get(doc);
+            Arrays.fill(groupScores, 0);
+            for (int i = 0; i < listCount; i++) {
+                Postings list = query.lists.get(i);
+                if (cursors[i] < list.size && list.docs[cursors[i]] == doc) {
+                    if (live) {
+                        int g = query.groups.get(i);
+                        groupScores[g] = Math.max(groupScores[g], termScore(list.freqs[cursors[i]], doc, idfs[i], averageLengths));
+                    }
+                    cursors[i]++;
+                }
+            }
+            if (!live) {
+                continue;
+            }
+
+            matched++;
+            float score = 0;
+            for (float groupScore : groupScores) {
+                score += groupScore;
+            }
+            long productId = productIds[doc];
+            if (after == null || TopHits.worse(productId, score, after.productId(), after.score())) {
+                hits.offer(productId, score);
+            }
+        }
+        return matched;
+    }
+
+    // Short terms are matched exactly; one typo is tolerated from four characters, two from eight
+    private static int maxEdits(int length) {
+        if (length < 4) return 0;
+        return length < 8 ? 1 : 2;
+    }
+
+    private boolean isSearchable(Product product) {
+        return "active".equals(product.getStatus()) && "public".equals(product.getVisibility());
+    }
+
+    private float idf(int docFreq) {
+        return (float) Math.log(1.0 + (maxDoc - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    private float termScore(int packedFreqs, int doc, float idf, float[] averageLengths) {
+        float weightedTf = 0;
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            int tf = (packedFreqs >>> TF_SHIFT[f]) & TF_MASK[f];
+            if (tf > 0) {
+                float norm = (1 - FIELD_B[f]) + FIELD_B[f] * fieldLengths[f][doc] / averageLengths[f];
+                weightedTf += FIELD_WEIGHTS[f] * tf / norm;
+            }
+        }
+        return idf * weightedTf * (K1 + 1) / (K1 + weightedTf);
+    }
+
+    private void addDocument(Product product) {
+        int doc = maxDoc++;
+        ensureCapacity(maxDoc);
+        productIds[doc] = product.getId();
+        docByProductId.put(product.getId(), doc);
+
+        String[] values = new String[FIELD_COUNT];
+        values[TITLE] = product.getProductTitle();
+        values[BRAND] = product.getBrand();
+        values[DESCRIPTION] = product.getDescription();
+
+        Map<String, int[]> termFreqs = new HashMap<>();
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            List<String> tokens = Tokenizer.tokenize(values[f]);
+            fieldLengths[f][doc] = tokens.size();
+            totalFieldLengths[f] += tokens.size();
+            for (String token : tokens) {
+                termFreqs.computeIfAbsent(token, t -> new int[FIELD_COUNT])[f]++;
+            }
+        }
+
+        for (Map.Entry<String, int[]> entry : termFreqs.entrySet()) {
+            int packed = 0;
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                packed |= Math.min(entry.getValue()[f], TF_MASK[f]) << TF_SHIFT[f];
+            }
+            postings.computeIfAbsent(entry.getKey(), term -> {
+                termGrams.add(term);
+                return new Postings();
+            }).add(doc, packed);
+        }
+    }
+
+    // Deleted documents stay in the posting lists until the next compaction
+    private void removeDocument(Long productId) {
+        Integer doc = docByProductId.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            totalFieldLengths[f] -= fieldLengths[f][doc];
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount < MIN_DELETED_FOR_COMPACTION || deletedCount * 4 < maxDoc) {
+            return;
+        }
+
+        int[] remap = new int[maxDoc];
+        int next = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = next;
+                productIds[next] = productIds[doc];
+                for (int f = 0; f < FIELD_COUNT; f++) {
+                    fieldLengths[f][next] = fieldLengths[f][doc];
+                }
+                docByProductId.put(productIds[next], next);
+                next++;
+            }
+        }
+
+        postings.values().removeIf(list -> list.compact(remap) == 0);
+        termGrams.clear();
+        postings.keySet().forEach(termGrams::add);
+        deleted.clear();
+        deletedCount = 0;
+        maxDoc = next;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, newCapacity);
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            fieldLengths[f] = Arrays.copyOf(fieldLengths[f], newCapacity);
+        }
+    }
+
+    // Posting lists of a query with a group per query term and a score weight per list
+    private static final class QueryTerms {
+        private final List<Postings> lists = new ArrayList<>();
+        private final List<Integer> groups = new ArrayList<>();
+        private final List<Float> weights = new ArrayList<>();
+        private final int groupCount;
+
+        QueryTerms(int groupCount) {
+            this.groupCount = groupCount;
+        }
+
+        void add(Postings list, int group, float weight) {
+            if (list != null) {
+                lists.add(list);
+                groups.add(group);
+                weights.add(weight);
+            }
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int doc, int packedFreqs) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = packedFreqs;
+            size++;
+        }
+
+        int compact(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[next] = doc;
+                    freqs[next] = freqs[i];
+                    next++;
+                }
+            }
+            size = next;
+            return size;
+        }
+    }
+
+    // Bounded min-heap on score; ties are broken in favour of the lower product id
+    private static final class TopHits {
+        private final long[] ids;
+        private final float[] scores;
+        private int size;
+
+        TopHits(int capacity) {
+            ids = new long[capacity];
+            scores = new float[capacity];
+        }
+
+        void offer(long id, float score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (worse(ids[0], scores[0], id, score)) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<SearchHit> sorted() {
+            SearchHit[] result = new SearchHit[size];
+            while (size > 0) {
+                result[size - 1] = new SearchHit(ids[0], scores[0]);
+                size--;
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        }
+
+        static boolean worse(long idA, float scoreA, long idB, float scoreB) {
+            return scoreA < scoreB || (scoreA == scoreB && idA > idB);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(ids[i], scores[i], ids[parent], scores[parent])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int smallest = i;
+                if (left < size && worse(ids[left], scores[left], ids[smallest], scores[smallest])) smallest = left;
+                if (right < size && worse(ids[right], scores[right], ids[smallest], scores[smallest])) smallest = right;
+                if (smallest == i) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
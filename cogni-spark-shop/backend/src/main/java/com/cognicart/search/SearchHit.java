@@ -0,0 +1,4 @@
+package com.cognicart.search;
+
+public record SearchHit(Long productId, float score) {
+}
@@ -0,0 +1,152 @@
+package com.cognicart.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Trigram index over a term dictionary for spelling-tolerant lookups. Candidates must share enough
+// trigrams with the query term to be within the edit budget and are then verified with a bounded
+// Damerau-Levenshtein distance. Callers guard it with their own lock.
+final class TermGrams {
+
+    private static final char BOUNDARY = '\u0001';
+
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, TermIds> grams = new HashMap<>();
+
+    void add(String term) {
+        int id = terms.size();
+        terms.add(term);
+        for (String gram : grams(term)) {
+            grams.computeIfAbsent(gram, g -> new TermIds()).add(id);
+        }
+    }
+
+    void clear() {
+        terms.clear();
+        grams.clear();
+    }
+
+    // Dictionary terms within maxEdits of the given one, excluding itself, closest first
+    List<Match> similar(String term, int maxEdits, int limit) {
+        List<Match> matches = new ArrayList<>();
+        if (maxEdits <= 0 || limit <= 0) {
+            return matches;
+        }
+
+        // Each edit touches at most four trigrams of the padded term: three for an insertion, deletion or
+        // substitution, four for a swap of adjacent letters
+        Set<String> queryGrams = grams(term);
+        int minShared = Math.max(1, queryGrams.size() - 4 * maxEdits);
+        List<TermIds> lists = new ArrayList<>();
+        for (String gram : queryGrams) {
+            TermIds ids = grams.get(gram);
+            if (ids != null) {
+                lists.add(ids);
+            }
+        }
+        if (lists.size() < minShared) {
+            return matches;
+        }
+
+        // Term ids are assigned in insertion order, so every list is sorted and can be merged in one pass
+        int[] cursors = new int[lists.size()];
+        while (true) {
+            int id = Integer.MAX_VALUE;
+            for (int i = 0; i < cursors.length; i++) {
+                TermIds list = lists.get(i);
+                if (cursors[i] < list.size && list.ids[cursors[i]] < id) {
+                    id = list.ids[cursors[i]];
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+
+            int shared = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                TermIds list = lists.get(i);
+                if (cursors[i] < list.size && list.ids[cursors[i]] == id) {
+                    shared++;
+                    cursors[i]++;
+                }
+            }
+            if (shared < minShared) {
+                continue;
+            }
+            String candidate = terms.get(id);
+            if (Math.abs(candidate.length() - term.length()) > maxEdits || candidate.equals(term)) {
+                continue;
+            }
+            int distance = distance(term, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new Match(candidate, distance, shared));
+            }
+        }
+
+        matches.sort(Comparator.comparingInt(Match::distance)
+                .thenComparing(Comparator.comparingInt(Match::shared).reversed())
+                .thenComparing(Match::term));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    // Optimal string alignment distance; gives up with maxEdits + 1 once a whole row exceeds the budget
+    static int distance(String a, String b, int maxEdits) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static Set<String> grams(String term) {
+        String padded = BOUNDARY + term + BOUNDARY;
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    record Match(String term, int distance, int shared) {
+    }
+
+    private static final class TermIds {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -9,7 +9,9 @@ import com.cognicart.enums.UserRole;
 import com.cognicart.repository.CartRepository;
 import com.cognicart.repository.UserRepository;
 import com.cognicart.security.JwtTokenProvider;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -18,6 +20,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Service
 public class AuthService {
     
@@ -36,6 +39,11 @@ public class AuthService {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
     
+    // Lazy because the cart services depend on this one for the current user
+    @Autowired
+    @Lazy
+    private GuestCartService guestCartService;
+    
     @Transactional
     public AuthResponse signUp(SignUpRequest request) {
         // Check if user already exists
@@ -83,6 +91,15 @@ public class AuthService {
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         
+        // A guest cart that cannot be merged is left as it was rather than failing the sign-in
+        if (request.getCartToken() != null && !request.getCartToken().isBlank()) {
+            try {
+                guestCartService.mergeIntoUserCart(request.getCartToken());
+            } catch (RuntimeException e) {
+                log.warn("Could not merge guest cart into the cart of {}: {}", request.getEmail(), e.getMessage());
+            }
+        }
+        
         // Generate JWT token
         String jwt = jwtTokenProvider.generateToken(authentication);
         
@@ -99,10 +116,13 @@ public class AuthService {
     }
     
     public User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        
-        return userRepository.findByEmail(email)
+        return userRepository.findByEmail(getCurrentUserEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
+    
+    // The authenticated principal's email, without loading the user
+    public String getCurrentUserEmail() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
 }
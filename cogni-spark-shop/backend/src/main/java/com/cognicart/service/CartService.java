@@ -1,28 +1,51 @@
 package com.cognicart.service;
 
+import com.cognicart.cart.CartSnapshot;
+import com.cognicart.cart.WriteBehindCartStore;
 import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.CartOperationRequest;
 import com.cognicart.dto.request.UpdateCartItemRequest;
 import com.cognicart.dto.response.CartItemResponse;
 import com.cognicart.dto.response.CartResponse;
 import com.cognicart.dto.response.ProductResponse;
 import com.cognicart.entity.Cart;
 import com.cognicart.entity.CartItem;
-import com.cognicart.entity.Product;
-import com.cognicart.entity.User;
+import com.cognicart.enums.CartOperationType;
+import com.cognicart.mapper.CartMapper;
+import com.cognicart.projection.ProductPrice;
 import com.cognicart.repository.CartItemRepository;
 import com.cognicart.repository.CartRepository;
 import com.cognicart.repository.ProductRepository;
-import org.modelmapper.ModelMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class CartService {
     
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long RETRY_BACKOFF_MILLIS = 4;
+    
     @Autowired
     private CartRepository cartRepository;
     
@@ -32,117 +55,367 @@ public class CartService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private ProductService productService;
+    
     @Autowired
     private AuthService authService;
     
     @Autowired
-    private ModelMapper modelMapper;
+    private CartMapper cartMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    // Present when app.cart.write-behind.enabled is set; carts are then served from memory
+    @Autowired(required = false)
+    private WriteBehindCartStore cartStore;
     
     public CartResponse getCart() {
-        User user = authService.getCurrentUser();
-        Cart cart = getOrCreateCart(user);
+        if (cartStore != null) {
+            return convertToResponse(cartStore.get(authService.getCurrentUserEmail()));
+        }
+        Cart cart = getOrCreateCart();
         return convertToResponse(cart);
     }
     
-    @Transactional
     public CartResponse addToCart(AddToCartRequest request) {
-        User user = authService.getCurrentUser();
-        Cart cart = getOrCreateCart(user);
+        ProductPrice product = productService.getProductPrice(request.getProductId());
+        if (cartStore != null) {
+            return convertToResponse(cartStore.add(authService.getCurrentUserEmail(), product, request.getQuantity()));
+        }
+        return retryOnConflict(() -> addItem(product, request.getQuantity()));
+    }
+    
+    public CartResponse updateCartItem(Long productId, UpdateCartItemRequest request) {
+        if (cartStore != null) {
+            return convertToResponse(cartStore.set(authService.getCurrentUserEmail(), productId, request.getQuantity()));
+        }
+        return retryOnConflict(() -> setItem(productId, request.getQuantity()));
+    }
+    
+    public CartResponse removeFromCart(Long productId) {
+        if (cartStore != null) {
+            return convertToResponse(cartStore.remove(authService.getCurrentUserEmail(), productId));
+        }
+        return retryOnConflict(() -> removeItem(productId));
+    }
+    
+    // Applies add/set/remove operations in order in one transaction: the added products are resolved in one
+    // query and the cart is loaded once. A failing operation rejects the whole batch.
+    public CartResponse applyOperations(List<CartOperationRequest> operations) {
+        Map<Long, ProductPrice> products = resolveProducts(operations);
+        if (cartStore != null) {
+            return convertToResponse(cartStore.apply(authService.getCurrentUserEmail(), operations, products));
+        }
+        return retryOnConflict(() -> applyOperations(operations, products));
+    }
+    
+    // Joins the checkout transaction when called from it
+    public void clearCart() {
+        if (cartStore != null) {
+            cartStore.clear(authService.getCurrentUserEmail());
+            return;
+        }
+        retryOnConflict(() -> {
+            clearItems();
+            return null;
+        });
+    }
+    
+    // Checkout must read what is in the database; with the in-memory store that means flushing the cart
+    // first and keeping it locked until the order commits or rolls back
+    public void prepareCheckout() {
+        if (cartStore != null) {
+            cartStore.prepareCheckout(authService.getCurrentUserEmail());
+        }
+    }
+    
+    // Carts and lines saved before totals and versions were kept get them once, at startup
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCarts() {
+        cartItemRepository.initializeVersions();
+        cartRepository.initializeVersions();
+        int lines = cartItemRepository.initializePrices();
+        int carts = cartRepository.initializeTotals();
+        if (lines > 0 || carts > 0) {
+            log.info("Initialized prices of {} cart lines and totals of {} carts", lines, carts);
+        }
+    }
+    
+    // Runs a cart change in its own transaction. Carts and lines are versioned, so when a concurrent change to the
+    // same cart commits first this one fails instead of overwriting it, and is run again from a fresh read: each
+    // change re-applies its delta to what is there now. Inside a caller's transaction there is nothing to retry
+    // from, and a conflict fails the caller.
+    private <T> T retryOnConflict(Supplier<T> change) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> change.get());
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> change.get());
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // A unique-key violation is a concurrent request creating the same cart or line
+                if (attempt == MAX_ATTEMPTS) {
+                    log.warn("Cart change still conflicting after {} attempts", attempt, e);
+                    throw new RuntimeException("Cart is being changed by another request, please try again");
+                }
+                // Full jitter over an exponentially growing window spreads the retries of a burst apart
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 1L + (RETRY_BACKOFF_MILLIS << Math.min(attempt, 6))));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while retrying a cart change");
+                }
+            }
+        }
+    }
+    
+    // Adds are written as increments, which commute: concurrent adds to one cart queue on its row lock instead of
+    // failing each other's version checks. The cart row is locked before the line, as in every other cart write.
+    private CartResponse addItem(ProductPrice product, int quantity) {
+        double amount = Cart.roundAmount(unitPrice(product.price()) * quantity);
+        Long cartId = cartRepository.findIdByUserEmail(authService.getCurrentUserEmail()).orElse(null);
+        if (cartId != null) {
+            if (cartRepository.addToTotalsForLine(cartId, product.id(), product.priceVersion(), amount, quantity) > 0) {
+                if (cartItemRepository.incrementQuantity(cartId, product.id(), product.priceVersion(), quantity) == 0) {
+                    // The line changed between the two statements; start over
+                    throw new ObjectOptimisticLockingFailureException(CartItem.class, product.id());
+                }
+                return convertToResponse(cartRepository.findWithItemsById(cartId)
+                        .orElseThrow(() -> new RuntimeException("Cart not found")));
+            }
+            if (!cartItemRepository.existsByCartIdAndProductId(cartId, product.id())) {
+                // A concurrent first add of the same product fails on the unique key and is retried as an increment
+                cartRepository.addToTotals(cartId, amount, quantity);
+                cartItemRepository.saveAndFlush(CartItem.builder()
+                        .cart(cartRepository.getReferenceById(cartId))
+                        .product(productRepository.getReferenceById(product.id()))
+                        .quantity(quantity)
+                        .unitPrice(product.price())
+                        .priceVersion(product.priceVersion())
+                        .build());
+                return convertToResponse(cartRepository.findWithItemsById(cartId)
+                        .orElseThrow(() -> new RuntimeException("Cart not found")));
+            }
+        }
         
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        // No cart yet, or the line is counted at an older price: a versioned read-modify-write
+        Cart cart = getOrCreateCart();
         
         // Check if product already in cart
-        CartItem existingItem = cartItemRepository
-                .findByCartIdAndProductId(cart.getId(), product.getId())
-                .orElse(null);
+        CartItem existingItem = findItem(cart, product.id()).orElse(null);
         
         if (existingItem != null) {
             // Update quantity
-            existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
+            reprice(cart, existingItem, product);
+            existingItem.setQuantity(existingItem.getQuantity() + quantity);
             cartItemRepository.save(existingItem);
         } else {
-            // Add new item
+            // Add new item; the association only needs a reference
             CartItem newItem = CartItem.builder()
                     .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
+                    .product(productRepository.getReferenceById(product.id()))
+                    .quantity(quantity)
+                    .unitPrice(product.price())
+                    .priceVersion(product.priceVersion())
                     .build();
             cartItemRepository.save(newItem);
             cart.getItems().add(newItem);
         }
+        cart.addToTotals(unitPrice(existingItem != null ? existingItem.getUnitPrice() : product.price()) * quantity, quantity);
         
         return convertToResponse(cart);
     }
     
-    @Transactional
-    public CartResponse updateCartItem(Long productId, UpdateCartItemRequest request) {
-        User user = authService.getCurrentUser();
-        Cart cart = getOrCreateCart(user);
-        
-        CartItem cartItem = cartItemRepository
-                .findByCartIdAndProductId(cart.getId(), productId)
+    // Quantity changes and removals take the cart row lock, as adds do, before reading the line, and write the
+    // change as increments: they wait for concurrent adds instead of failing their version checks
+    private CartResponse setItem(Long productId, int quantity) {
+        Long cartId = lockCart();
+        CartItem cartItem = Optional.ofNullable(cartId)
+                .flatMap(id -> cartItemRepository.findByCartIdAndProductId(id, productId))
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
         
-        cartItem.setQuantity(request.getQuantity());
-        cartItemRepository.save(cartItem);
+        int quantityChange = quantity - cartItem.getQuantity();
+        cartRepository.addToTotals(cartId, Cart.roundAmount(unitPrice(cartItem.getUnitPrice()) * quantityChange), quantityChange);
+        if (cartItemRepository.incrementQuantity(cartId, productId, cartItem.getPriceVersion(), quantityChange) == 0) {
+            throw new ObjectOptimisticLockingFailureException(CartItem.class, productId);
+        }
         
-        return convertToResponse(cart);
+        return convertToResponse(cartRepository.findWithItemsById(cartId)
+                .orElseThrow(() -> new RuntimeException("Cart not found")));
     }
     
-    @Transactional
-    public CartResponse removeFromCart(Long productId) {
-        User user = authService.getCurrentUser();
-        Cart cart = getOrCreateCart(user);
+    private CartResponse removeItem(Long productId) {
+        Long cartId = lockCart();
+        if (cartId == null) {
+            return convertToResponse(getOrCreateCart());
+        }
         
-        cartItemRepository.deleteByCartIdAndProductId(cart.getId(), productId);
+        cartItemRepository.findByCartIdAndProductId(cartId, productId).ifPresent(cartItem -> {
+            cartRepository.addToTotals(cartId,
+                    -Cart.roundAmount(unitPrice(cartItem.getUnitPrice()) * cartItem.getQuantity()), -cartItem.getQuantity());
+            cartItemRepository.deleteByCartIdAndProductId(cartId, productId);
+        });
         
-        // Refresh cart
-        cart = cartRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        return convertToResponse(cartRepository.findWithItemsById(cartId)
+                .orElseThrow(() -> new RuntimeException("Cart not found")));
+    }
+    
+    private CartResponse applyOperations(List<CartOperationRequest> operations, Map<Long, ProductPrice> products) {
+        Cart cart = getOrCreateCart();
         
+        Map<Long, CartItem> items = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            items.put(item.getProduct().getId(), item);
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperationRequest operation = operations.get(i);
+            CartItem item = items.get(operation.getProductId());
+            switch (operation.getOp()) {
+                case ADD -> {
+                    ProductPrice product = products.get(operation.getProductId());
+                    if (item == null) {
+                        item = CartItem.builder()
+                                .cart(cart)
+                                .product(productRepository.getReferenceById(product.id()))
+                                .quantity(0)
+                                .unitPrice(product.price())
+                                .priceVersion(product.priceVersion())
+                                .build();
+                        cart.getItems().add(item);
+                        items.put(product.id(), item);
+                    } else {
+                        reprice(cart, item, product);
+                    }
+                    item.setQuantity(item.getQuantity() + operation.getQuantity());
+                    cart.addToTotals(unitPrice(item.getUnitPrice()) * operation.getQuantity(), operation.getQuantity());
+                }
+                case SET -> {
+                    if (item == null) {
+                        throw new RuntimeException("Cart item not found for operation " + i);
+                    }
+                    int quantityChange = operation.getQuantity() - item.getQuantity();
+                    cart.addToTotals(unitPrice(item.getUnitPrice()) * quantityChange, quantityChange);
+                    item.setQuantity(operation.getQuantity());
+                }
+                case REMOVE -> {
+                    if (item != null) {
+                        cart.addToTotals(-unitPrice(item.getUnitPrice()) * item.getQuantity(), -item.getQuantity());
+                        cart.getItems().remove(item);
+                        items.remove(operation.getProductId());
+                    }
+                }
+            }
+        }
+        
+        // New lines are inserted by cascade, quantity changes and removals go out in JDBC batches
+        cartRepository.saveAndFlush(cart);
         return convertToResponse(cart);
     }
     
-    @Transactional
-    public void clearCart() {
-        User user = authService.getCurrentUser();
-        Cart cart = getOrCreateCart(user);
+    private void clearItems() {
+        Cart cart = getOrCreateCart();
         
         cart.getItems().clear();
+        cart.resetTotals();
         cartRepository.save(cart);
     }
     
-    private Cart getOrCreateCart(User user) {
-        return cartRepository.findByUserId(user.getId())
+    private Map<Long, ProductPrice> resolveProducts(List<CartOperationRequest> operations) {
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperationRequest operation = operations.get(i);
+            if (operation.getOp() != CartOperationType.REMOVE && operation.getQuantity() == null) {
+                throw new RuntimeException("Quantity is required for operation " + i);
+            }
+            if (operation.getOp() == CartOperationType.ADD) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        
+        Map<Long, ProductPrice> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productService.getProductsById(productIds).forEach((id, product) ->
+                    products.put(id, new ProductPrice(id, product.getPrice(), product.getPriceVersion())));
+        }
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new RuntimeException("Product not found with id: " + productId);
+            }
+        }
+        return products;
+    }
+    
+    // A line counted at an older price version than the product's is moved to the current price first
+    private void reprice(Cart cart, CartItem item, ProductPrice product) {
+        if (item.getPriceVersion() != null && item.getPriceVersion() >= product.priceVersion()) {
+            return;
+        }
+        cart.addToTotals((unitPrice(product.price()) - unitPrice(item.getUnitPrice())) * item.getQuantity(), 0);
+        item.setUnitPrice(product.price());
+        item.setPriceVersion(product.priceVersion());
+    }
+    
+    private static double unitPrice(Double price) {
+        return price != null ? price : 0.0;
+    }
+    
+    // The id of the current user's cart, locked for this transaction; null when there is no cart yet
+    private Long lockCart() {
+        Long cartId = cartRepository.findIdByUserEmail(authService.getCurrentUserEmail()).orElse(null);
+        return cartId != null && cartRepository.lock(cartId) > 0 ? cartId : null;
+    }
+    
+    // The cart comes with its lines in one query; the user is only loaded when there is no cart yet
+    private Cart getOrCreateCart() {
+        return cartRepository.findWithItemsByUserEmail(authService.getCurrentUserEmail())
                 .orElseGet(() -> {
                     Cart newCart = Cart.builder()
-                            .user(user)
+                            .user(authService.getCurrentUser())
                             .build();
                     return cartRepository.save(newCart);
                 });
     }
     
+    // Lines hold product references, so matching on the product id does not load the products
+    private static Optional<CartItem> findItem(Cart cart, Long productId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProduct().getId().equals(productId))
+                .findFirst();
+    }
+    
     private CartResponse convertToResponse(Cart cart) {
-        List<CartItemResponse> items = cart.getItems().stream()
-                .map(this::convertToCartItemResponse)
-                .collect(Collectors.toList());
-        
+        Map<Long, ProductResponse> products = productService.getProductsById(cart.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toList()));
+        return cartMapper.toResponse(cart, productId -> product(products, productId));
+    }
+    
+    private CartResponse convertToResponse(CartSnapshot cart) {
+        Map<Long, ProductResponse> products = productService.getProductsById(cart.lines().stream()
+                .map(CartSnapshot.Line::productId)
+                .collect(Collectors.toList()));
+        List<CartItemResponse> items = new ArrayList<>(cart.lines().size());
+        for (CartSnapshot.Line line : cart.lines()) {
+            items.add(CartItemResponse.builder()
+                    .id(line.itemId())
+                    .product(product(products, line.productId()))
+                    .quantity(line.quantity())
+                    .build());
+        }
         return CartResponse.builder()
-                .id(cart.getId())
+                .id(cart.cartId())
                 .items(items)
-                .totalPrice(cart.getTotalPrice())
-                .totalItems(cart.getTotalItems())
+                .totalPrice(cart.subtotal())
+                .totalItems(cart.itemCount())
                 .build();
     }
     
-    private CartItemResponse convertToCartItemResponse(CartItem item) {
-        ProductResponse productResponse = modelMapper.map(item.getProduct(), ProductResponse.class);
-        
-        return CartItemResponse.builder()
-                .id(item.getId())
-                .product(productResponse)
-                .quantity(item.getQuantity())
-                .build();
+    // A product missing from the batch is looked up on its own, which reports it as not found
+    private ProductResponse product(Map<Long, ProductResponse> products, Long productId) {
+        ProductResponse product = products.get(productId);
+        return product != null ? product : productService.getProductById(productId);
     }
 }
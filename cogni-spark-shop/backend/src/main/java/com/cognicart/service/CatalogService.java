@@ -1,26 +1,64 @@
 package com.cognicart.service;
 
+import com.cognicart.dto.request.CatalogSubmissionRequest;
+import com.cognicart.dto.response.CatalogBatchResponse;
+import com.cognicart.dto.response.CatalogSubmissionResult;
+import com.cognicart.engine2.CatalogData;
 import com.cognicart.entity.CatalogEntry;
 import com.cognicart.entity.Product;
+import com.cognicart.projection.ProductKey;
 import com.cognicart.repository.CatalogEntryRepository;
 import com.cognicart.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Service
 public class CatalogService {
     
+    // Engine2 lifecycle: pending -> processing (leased by a worker) -> processed, or failed after the last retry
+    public static final String PENDING = "pending_engine2_processing";
+    public static final String PROCESSING = "engine2_processing";
+    public static final String PROCESSED = "engine2_processed";
+    public static final String FAILED = "engine2_failed";
+    
+    private static final int MIGRATION_BATCH_SIZE = 500;
+    private static final int SUBMISSION_CHUNK_SIZE = 500;
+    
     @Autowired
     private CatalogEntryRepository catalogEntryRepository;
     
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -30,12 +68,10 @@ public class CatalogService {
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
         try {
-            String catalogDataJson = objectMapper.writeValueAsString(catalogData);
-            
             CatalogEntry entry = CatalogEntry.builder()
                     .product(product)
-                    .catalogData(catalogDataJson)
-                    .status("pending_engine2_processing")
+                    .catalogData(CatalogData.of(catalogData))
+                    .status(PENDING)
                     .build();
             
             return catalogEntryRepository.save(entry);
@@ -44,8 +80,55 @@ public class CatalogService {
         }
     }
     
+    // Streams a JSON array (or NDJSON) of submissions in chunks: one query resolves a chunk's productIds, one finds
+    // products already submitted, and the accepted entries are inserted in a single batched transaction. If the database
+    // refuses that batch, its entries are retried one transaction each.
+    public CatalogBatchResponse submitBatch(InputStream in) throws IOException {
+        List<CatalogSubmissionResult> results = new ArrayList<>();
+        Set<String> seenProductIds = new HashSet<>();
+        List<Submission> chunk = new ArrayList<>(SUBMISSION_CHUNK_SIZE);
+        long index = 0;
+        
+        try (MappingIterator<CatalogSubmissionRequest> items = objectMapper.readerFor(CatalogSubmissionRequest.class).readValues(in)) {
+            while (true) {
+                CatalogSubmissionRequest request;
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    request = items.nextValue();
+                } catch (JsonParseException e) {
+                    // Malformed input cannot be resynchronised; keep what was submitted so far
+                    results.add(rejected(index++, null, "Malformed input, submission stopped: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonProcessingException e) {
+                    results.add(rejected(index++, null, "Invalid entry: " + e.getOriginalMessage()));
+                    continue;
+                }
+                
+                chunk.add(new Submission(index++, request));
+                if (chunk.size() == SUBMISSION_CHUNK_SIZE) {
+                    submitChunk(chunk, seenProductIds, results);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            submitChunk(chunk, seenProductIds, results);
+        }
+        
+        results.sort(Comparator.comparing(CatalogSubmissionResult::getIndex));
+        long accepted = results.stream().filter(CatalogSubmissionResult::getAccepted).count();
+        return CatalogBatchResponse.builder()
+                .total(index)
+                .accepted(accepted)
+                .rejected(results.size() - accepted)
+                .results(results)
+                .build();
+    }
+    
     public List<CatalogEntry> getPendingCatalogEntries() {
-        return catalogEntryRepository.findByStatus("pending_engine2_processing");
+        return catalogEntryRepository.findByStatus(PENDING);
     }
     
     public CatalogEntry getCatalogEntryByProductId(Long productId) {
@@ -61,4 +144,151 @@ public class CatalogService {
         entry.setStatus(status);
         return catalogEntryRepository.save(entry);
     }
+    
+    // Rewrites rows still holding JSON text in the binary format; loading an entry converts it, the commit stores it
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyCatalogData() {
+        long afterId = 0;
+        long migrated = 0;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> catalogEntryRepository
+                    .findWithLegacyCatalogData(from, PageRequest.of(0, MIGRATION_BATCH_SIZE))
+                    .stream()
+                    .map(CatalogEntry::getId)
+                    .toList());
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            migrated += ids.size();
+        }
+        if (migrated > 0) {
+            log.info("Converted {} catalog entries to the binary catalog data format", migrated);
+        }
+    }
+    
+    private void submitChunk(List<Submission> chunk, Set<String> seenProductIds, List<CatalogSubmissionResult> results) {
+        // Encoding is independent per entry
+        chunk.parallelStream().forEach(submission -> {
+            CatalogSubmissionRequest request = submission.request;
+            if (request.getProductId() == null || request.getProductId().isBlank()) {
+                submission.error = "product_id is required";
+            } else if (request.getCatalogData() == null || !request.getCatalogData().isObject()) {
+                submission.error = "catalog_data must be an object";
+            } else {
+                try {
+                    submission.data = CatalogData.of(request.getCatalogData());
+                } catch (IllegalArgumentException e) {
+                    submission.error = e.getMessage();
+                }
+            }
+        });
+        
+        List<String> productIds = new ArrayList<>();
+        for (Submission submission : chunk) {
+            if (submission.error == null && !seenProductIds.add(submission.request.getProductId())) {
+                submission.error = "Duplicate product_id in batch";
+            }
+            if (submission.error == null) {
+                productIds.add(submission.request.getProductId());
+            }
+        }
+        
+        Map<String, Long> ids = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (ProductKey key : productRepository.findKeysByProductIdIn(productIds)) {
+                ids.put(key.productId(), key.id());
+            }
+        }
+        Set<Long> submitted = ids.isEmpty()
+                ? Set.of()
+                : new HashSet<>(catalogEntryRepository.findProductIdsWithEntry(ids.values()));
+        
+        List<Submission> accepted = new ArrayList<>();
+        for (Submission submission : chunk) {
+            if (submission.error == null) {
+                Long id = ids.get(submission.request.getProductId());
+                if (id == null) {
+                    submission.error = "Product not found";
+                } else if (submitted.contains(id)) {
+                    submission.error = "Product already has a catalog entry";
+                } else {
+                    submission.productId = id;
+                    accepted.add(submission);
+                }
+            }
+        }
+        
+        if (!accepted.isEmpty()) {
+            try {
+                insert(accepted);
+            } catch (RuntimeException e) {
+                // Retry row by row so only the entries the database refuses are rejected
+                log.warn("Catalog submission chunk of {} entries failed, retrying entries one by one", accepted.size(), e);
+                for (Submission submission : accepted) {
+                    submission.entryId = null;
+                }
+                for (Submission submission : accepted) {
+                    try {
+                        insert(List.of(submission));
+                    } catch (RuntimeException rowFailure) {
+                        submission.error = "Rejected by database: "
+                                + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage();
+                        submission.entryId = null;
+                    }
+                }
+            }
+        }
+        
+        for (Submission submission : chunk) {
+            results.add(submission.error != null
+                    ? rejected(submission.index, submission.request.getProductId(), submission.error)
+                    : CatalogSubmissionResult.builder()
+                            .index(submission.index)
+                            .productId(submission.request.getProductId())
+                            .accepted(true)
+                            .entryId(submission.entryId)
+                            .build());
+        }
+    }
+    
+    private void insert(List<Submission> submissions) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Submission submission : submissions) {
+                CatalogEntry entry = CatalogEntry.builder()
+                        .product(entityManager.getReference(Product.class, submission.productId))
+                        .catalogData(submission.data)
+                        .status(PENDING)
+                        .build();
+                entityManager.persist(entry);
+                submission.entryId = entry.getId();
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+    
+    private static CatalogSubmissionResult rejected(long index, String productId, String message) {
+        return CatalogSubmissionResult.builder()
+                .index(index)
+                .productId(productId)
+                .accepted(false)
+                .message(message)
+                .build();
+    }
+    
+    private static final class Submission {
+        private final long index;
+        private final CatalogSubmissionRequest request;
+        private String error;
+        private CatalogData data;
+        private Long productId;
+        private Long entryId;
+        
+        Submission(long index, CatalogSubmissionRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+    }
 }
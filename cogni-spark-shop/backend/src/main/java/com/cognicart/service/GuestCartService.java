@@ -0,0 +1,153 @@
+package com.cognicart.service;
+
+import com.cognicart.cart.GuestCartLimiter;
+import com.cognicart.cart.GuestCartStore;
+import com.cognicart.cart.GuestCartTokens;
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.CartOperationRequest;
+import com.cognicart.dto.request.UpdateCartItemRequest;
+import com.cognicart.dto.response.CartItemResponse;
+import com.cognicart.dto.response.GuestCartResponse;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Cart;
+import com.cognicart.enums.CartOperationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class GuestCartService {
+    
+    @Autowired
+    private GuestCartStore guestCartStore;
+    
+    @Autowired
+    private GuestCartTokens guestCartTokens;
+    
+    @Autowired
+    private GuestCartLimiter guestCartLimiter;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CartService cartService;
+    
+    // Without a token there is no cart yet; one is issued by the first add
+    public GuestCartResponse getCart(String token) {
+        if (token == null || token.isBlank()) {
+            return convertToResponse(null, new ArrayList<>(), new ArrayList<>());
+        }
+        return getCart(token, guestCartTokens.parse(token));
+    }
+    
+    // A cart is only started for a purchasable product, and each client address can start only so many
+    public GuestCartResponse addToCart(String token, AddToCartRequest request, String clientAddress) {
+        boolean newCart = token == null || token.isBlank();
+        long cartId = newCart ? 0 : guestCartTokens.parse(token);
+        ProductResponse product = productService.getProductById(request.getProductId());
+        if (!"active".equals(product.getStatus()) || !"public".equals(product.getVisibility())
+                || !Boolean.TRUE.equals(product.getInStock())) {
+            throw new RuntimeException("Product is not available: " + request.getProductId());
+        }
+        if (newCart) {
+            guestCartLimiter.acquire(clientAddress);
+            cartId = guestCartTokens.newCartId();
+        }
+        guestCartStore.change(cartId, CartOperationType.ADD, request.getProductId(), request.getQuantity());
+        return getCart(guestCartTokens.issue(cartId), cartId);
+    }
+    
+    public GuestCartResponse updateCartItem(String token, Long productId, UpdateCartItemRequest request) {
+        long cartId = requireCart(token);
+        guestCartStore.change(cartId, CartOperationType.SET, productId, request.getQuantity());
+        return getCart(token, cartId);
+    }
+    
+    public GuestCartResponse removeFromCart(String token, Long productId) {
+        long cartId = requireCart(token);
+        guestCartStore.change(cartId, CartOperationType.REMOVE, productId, 0);
+        return getCart(token, cartId);
+    }
+    
+    public void clearCart(String token) {
+        guestCartStore.clear(requireCart(token));
+    }
+    
+    // Adds the guest cart's lines to the signed-in user's cart in one batch, then drops the guest cart. Products
+    // removed from the catalog since they were added are skipped.
+    public void mergeIntoUserCart(String token) {
+        long cartId = guestCartTokens.parse(token);
+        List<Long> productIds = new ArrayList<>();
+        List<Integer> quantities = new ArrayList<>();
+        if (!guestCartStore.read(cartId, (productId, quantity) -> {
+            productIds.add(productId);
+            quantities.add(quantity);
+        })) {
+            return;
+        }
+        
+        Map<Long, ProductResponse> products = productService.getProductsById(productIds);
+        List<CartOperationRequest> operations = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            if (products.containsKey(productIds.get(i))) {
+                CartOperationRequest operation = new CartOperationRequest();
+                operation.setOp(CartOperationType.ADD);
+                operation.setProductId(productIds.get(i));
+                operation.setQuantity(quantities.get(i));
+                operations.add(operation);
+            }
+        }
+        if (!operations.isEmpty()) {
+            cartService.applyOperations(operations);
+        }
+        guestCartStore.clear(cartId);
+    }
+    
+    private long requireCart(String token) {
+        if (token == null || token.isBlank()) {
+            throw new RuntimeException("Cart token is required");
+        }
+        return guestCartTokens.parse(token);
+    }
+    
+    private GuestCartResponse getCart(String token, long cartId) {
+        List<Long> productIds = new ArrayList<>();
+        List<Integer> quantities = new ArrayList<>();
+        guestCartStore.read(cartId, (productId, quantity) -> {
+            productIds.add(productId);
+            quantities.add(quantity);
+        });
+        return convertToResponse(token, productIds, quantities);
+    }
+    
+    // Guest lines are priced at the current product price; products no longer in the catalog are left out
+    private GuestCartResponse convertToResponse(String token, List<Long> productIds, List<Integer> quantities) {
+        Map<Long, ProductResponse> products = productService.getProductsById(productIds);
+        List<CartItemResponse> items = new ArrayList<>(productIds.size());
+        double totalPrice = 0;
+        int totalItems = 0;
+        for (int i = 0; i < productIds.size(); i++) {
+            ProductResponse product = products.get(productIds.get(i));
+            if (product == null) {
+                continue;
+            }
+            int quantity = quantities.get(i);
+            items.add(CartItemResponse.builder()
+                    .product(product)
+                    .quantity(quantity)
+                    .build());
+            totalPrice += (product.getPrice() != null ? product.getPrice() : 0) * quantity;
+            totalItems += quantity;
+        }
+        return GuestCartResponse.builder()
+                .cartToken(token)
+                .items(items)
+                .totalPrice(Cart.roundAmount(totalPrice))
+                .totalItems(totalItems)
+                .build();
+    }
+}
@@ -1,19 +1,22 @@
 package com.cognicart.service;
 
 import com.cognicart.dto.request.CreateOrderRequest;
-import com.cognicart.dto.response.OrderItemResponse;
+import com.cognicart.dto.response.CartItemResponse;
 import com.cognicart.dto.response.OrderResponse;
-import com.cognicart.dto.response.ProductResponse;
 import com.cognicart.entity.*;
 import com.cognicart.enums.OrderStatus;
+import com.cognicart.mapper.OrderMapper;
+import com.cognicart.recommendation.CoPurchaseIndex;
+import com.cognicart.recommendation.TrendingCounters;
 import com.cognicart.repository.OrderItemRepository;
 import com.cognicart.repository.OrderRepository;
-import org.modelmapper.ModelMapper;
+import com.cognicart.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,26 +36,29 @@ public class OrderService {
     private AuthService authService;
     
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private OrderMapper orderMapper;
+    
+    @Autowired
+    private CoPurchaseIndex coPurchaseIndex;
+    
+    @Autowired
+    private TrendingCounters trendingCounters;
     
     public List<OrderResponse> getUserOrders() {
-        User user = authService.getCurrentUser();
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+        List<Order> orders = orderRepository.findWithItemsByUserEmailOrderByCreatedAtDesc(authService.getCurrentUserEmail());
         return orders.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
     
     public OrderResponse getOrderById(Long orderId) {
-        User user = authService.getCurrentUser();
-        Order order = orderRepository.findById(orderId)
+        // Only finds the order when it belongs to the user
+        Order order = orderRepository.findWithItemsByIdAndUserEmail(orderId, authService.getCurrentUserEmail())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
-        // Verify order belongs to user
-        if (!order.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized access to order");
-        }
-        
         return convertToResponse(order);
     }
     
@@ -61,13 +67,16 @@ public class OrderService {
         User user = authService.getCurrentUser();
         
         // Get cart
+        cartService.prepareCheckout();
         var cartResponse = cartService.getCart();
         if (cartResponse.getItems().isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Calculate totals
-        Double totalAmount = cartResponse.getTotalPrice();
+        // Order lines are charged at current prices, so the total is summed from them rather than read off the cart
+        Double totalAmount = cartResponse.getItems().stream()
+                .mapToDouble(cartItem -> cartItem.getProduct().getPrice() * cartItem.getQuantity())
+                .sum();
         Double deliveryFee = totalAmount > 999 ? 0.0 : 99.0;
         
         // Create order
@@ -91,11 +100,18 @@ public class OrderService {
         
         Order savedOrder = orderRepository.save(order);
         
+        // The response maps every line's product, so they are loaded in one query up front
+        Map<Long, Product> products = productRepository.findAllById(cartResponse.getItems().stream()
+                        .map(cartItem -> cartItem.getProduct().getId())
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        
         // Create order items from cart
         for (var cartItem : cartResponse.getItems()) {
             OrderItem orderItem = OrderItem.builder()
                     .order(savedOrder)
-                    .product(modelMapper.map(cartItem.getProduct(), Product.class))
+                    .product(products.get(cartItem.getProduct().getId()))
                     .quantity(cartItem.getQuantity())
                     .price(cartItem.getProduct().getPrice())
                     .subtotal(cartItem.getProduct().getPrice() * cartItem.getQuantity())
@@ -108,12 +124,18 @@ public class OrderService {
         // Clear cart
         cartService.clearCart();
         
+        trendingCounters.recordSales(cartResponse.getItems().stream()
+                .collect(Collectors.toMap(cartItem -> cartItem.getProduct().getId(), CartItemResponse::getQuantity, Integer::sum)));
+        coPurchaseIndex.recordOrder(savedOrder.getId(), cartResponse.getItems().stream()
+                .map(cartItem -> cartItem.getProduct().getId())
+                .collect(Collectors.toList()));
+        
         return convertToResponse(savedOrder);
     }
     
     @Transactional
     public OrderResponse updateOrderStatus(Long orderId, OrderStatus status) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         order.setStatus(status);
@@ -123,39 +145,6 @@ public class OrderService {
     }
     
     private OrderResponse convertToResponse(Order order) {
-        List<OrderItemResponse> items = order.getOrderItems().stream()
-                .map(this::convertToOrderItemResponse)
-                .collect(Collectors.toList());
-        
-        return OrderResponse.builder()
-                .id(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .orderItems(items)
-                .totalAmount(order.getTotalAmount())
-                .deliveryFee(order.getDeliveryFee())
-                .status(order.getStatus().name())
-                .paymentMethod(order.getPaymentMethod())
-                .paymentStatus(order.getPaymentStatus())
-                .shippingFirstName(order.getShippingFirstName())
-                .shippingLastName(order.getShippingLastName())
-                .shippingAddress(order.getShippingAddress())
-                .shippingCity(order.getShippingCity())
-                .shippingPincode(order.getShippingPincode())
-                .shippingPhone(order.getShippingPhone())
-                .createdAt(order.getCreatedAt())
-                .deliveredAt(order.getDeliveredAt())
-                .build();
-    }
-    
-    private OrderItemResponse convertToOrderItemResponse(OrderItem item) {
-        ProductResponse productResponse = modelMapper.map(item.getProduct(), ProductResponse.class);
-        
-        return OrderItemResponse.builder()
-                .id(item.getId())
-                .product(productResponse)
-                .quantity(item.getQuantity())
-                .price(item.getPrice())
-                .subtotal(item.getSubtotal())
-                .build();
+        return orderMapper.toResponse(order);
     }
 }
@@ -0,0 +1,293 @@
+package com.cognicart.service;
+
+import com.cognicart.dto.request.CreateProductRequest;
+import com.cognicart.dto.response.BulkImportResponse;
+import com.cognicart.dto.response.ImportRowError;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.search.ProductIndexer;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Streams seller uploads in fixed-size chunks: rows are validated in parallel, then each chunk
+// is inserted in its own transaction with JDBC batching and pushed to the search indexes. If the
+// database refuses a chunk, its rows are retried one transaction each.
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Column lengths from Product; unannotated string columns get the JPA default of 255
+    private static final int MAX_COLUMN_LENGTH = 255;
+    private static final List<BoundedField> BOUNDED_FIELDS = List.of(
+            new BoundedField("productId", CreateProductRequest::getProductId, MAX_COLUMN_LENGTH),
+            new BoundedField("productTitle", CreateProductRequest::getProductTitle, MAX_COLUMN_LENGTH),
+            new BoundedField("brand", CreateProductRequest::getBrand, MAX_COLUMN_LENGTH),
+            new BoundedField("color", CreateProductRequest::getColor, MAX_COLUMN_LENGTH),
+            new BoundedField("material", CreateProductRequest::getMaterial, MAX_COLUMN_LENGTH),
+            new BoundedField("imageUrl", CreateProductRequest::getImageUrl, MAX_COLUMN_LENGTH),
+            new BoundedField("description", CreateProductRequest::getDescription, 2000),
+            new BoundedField("batteryLife", CreateProductRequest::getBatteryLife, MAX_COLUMN_LENGTH),
+            new BoundedField("connectivity", CreateProductRequest::getConnectivity, MAX_COLUMN_LENGTH),
+            new BoundedField("warranty", CreateProductRequest::getWarranty, MAX_COLUMN_LENGTH),
+            new BoundedField("specifications", CreateProductRequest::getSpecifications, 1000),
+            new BoundedField("sizes", CreateProductRequest::getSizes, MAX_COLUMN_LENGTH),
+            new BoundedField("gender", CreateProductRequest::getGender, MAX_COLUMN_LENGTH),
+            new BoundedField("fitType", CreateProductRequest::getFitType, MAX_COLUMN_LENGTH),
+            new BoundedField("dimensions", CreateProductRequest::getDimensions, MAX_COLUMN_LENGTH),
+            new BoundedField("usage", CreateProductRequest::getUsage, MAX_COLUMN_LENGTH),
+            new BoundedField("weight", CreateProductRequest::getWeight, MAX_COLUMN_LENGTH),
+            new BoundedField("author", CreateProductRequest::getAuthor, MAX_COLUMN_LENGTH),
+            new BoundedField("publisher", CreateProductRequest::getPublisher, MAX_COLUMN_LENGTH),
+            new BoundedField("language", CreateProductRequest::getLanguage, MAX_COLUMN_LENGTH),
+            new BoundedField("bindingType", CreateProductRequest::getBindingType, MAX_COLUMN_LENGTH),
+            new BoundedField("isbn", CreateProductRequest::getIsbn, MAX_COLUMN_LENGTH),
+            new BoundedField("sellerSubmittedTitle", CreateProductRequest::getSellerSubmittedTitle, 500),
+            new BoundedField("sellerSubmittedDescription", CreateProductRequest::getSellerSubmittedDescription, 2000));
+
+    private static final ObjectReader CSV_READER = CsvMapper.builder()
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(CreateProductRequest.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public BulkImportResponse importCsv(InputStream in) throws IOException {
+        return importRows(CSV_READER.readValues(in));
+    }
+
+    public BulkImportResponse importNdjson(InputStream in) throws IOException {
+        return importRows(objectMapper.readerFor(CreateProductRequest.class).readValues(in));
+    }
+
+    private BulkImportResponse importRows(MappingIterator<CreateProductRequest> rows) throws IOException {
+        User seller = authService.getCurrentUser();
+        ImportReport report = new ImportReport();
+        Set<String> seenProductIds = new HashSet<>();
+        String generatedIdPrefix = "prod_" + System.currentTimeMillis() + "_";
+
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        long rowNumber = 0;
+        try (rows) {
+            while (true) {
+                CreateProductRequest request;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    rowNumber++;
+                    request = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // Malformed input cannot be resynchronised; keep what was imported so far
+                    report.fail(rowNumber, null, "Malformed input, import stopped: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonProcessingException e) {
+                    report.fail(rowNumber, null, "Invalid row: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                chunk.add(new ImportRow(rowNumber, request));
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, seller, generatedIdPrefix, seenProductIds, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seller, generatedIdPrefix, seenProductIds, report);
+        }
+
+        return report.toResponse(rowNumber);
+    }
+
+    private void importChunk(List<ImportRow> chunk, User seller, String generatedIdPrefix,
+                             Set<String> seenProductIds, ImportReport report) {
+        // Validation and slug generation are independent per row
+        chunk.parallelStream().forEach(row -> {
+            row.error = validate(row.request);
+            if (row.error == null) {
+                String productId = row.request.getProductId() != null
+                        ? row.request.getProductId()
+                        : generatedIdPrefix + row.number;
+                row.product = productService.buildProduct(row.request, productId, seller);
+                // The slug joins the title and productId, so two values that fit on their own can overflow it
+                if (row.product.getSlug().length() > MAX_COLUMN_LENGTH) {
+                    row.error = "productTitle and productId make a slug longer than " + MAX_COLUMN_LENGTH + " characters";
+                }
+            }
+        });
+
+        List<String> productIds = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null && !seenProductIds.add(row.product.getProductId())) {
+                row.error = "Duplicate productId in upload";
+            }
+            if (row.error == null) {
+                productIds.add(row.product.getProductId());
+            }
+        }
+        if (!productIds.isEmpty()) {
+            Set<String> existing = new HashSet<>(productRepository.findExistingProductIds(productIds));
+            for (ImportRow row : chunk) {
+                if (row.error == null && existing.contains(row.product.getProductId())) {
+                    row.error = "productId already exists";
+                }
+            }
+        }
+
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                accepted.add(row);
+            }
+        }
+        if (!accepted.isEmpty()) {
+            try {
+                insert(accepted);
+            } catch (RuntimeException e) {
+                // Retry row by row so only the rows the database refuses are rejected
+                log.warn("Bulk import chunk of {} rows failed, retrying rows one by one", accepted.size(), e);
+                for (ImportRow row : accepted) {
+                    try {
+                        insert(List.of(row));
+                    } catch (RuntimeException rowFailure) {
+                        row.error = "Rejected by database: "
+                                + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage();
+                    }
+                }
+            }
+        }
+
+        List<Product> products = new ArrayList<>(accepted.size());
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                report.fail(row.number, row.request.getProductId(), row.error);
+            } else {
+                products.add(row.product);
+            }
+        }
+        if (!products.isEmpty()) {
+            productIndexer.indexAll(products);
+            report.imported += products.size();
+        }
+    }
+
+    // A rolled back insert leaves the products with ids from the sequence, so they are cleared before a retry
+    private void insert(List<ImportRow> rows) {
+        for (ImportRow row : rows) {
+            row.product.setId(null);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ImportRow row : rows) {
+                entityManager.persist(row.product);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private String validate(CreateProductRequest request) {
+        if (request.getProductTitle() == null || request.getProductTitle().isBlank()) {
+            return "productTitle is required";
+        }
+        if (request.getPrice() != null && (request.getPrice() < 0 || request.getPrice().isNaN())) {
+            return "price must be a non-negative number";
+        }
+        for (BoundedField field : BOUNDED_FIELDS) {
+            String value = field.value().apply(request);
+            if (value != null && value.length() > field.maxLength()) {
+                return field.name() + " exceeds " + field.maxLength() + " characters";
+            }
+        }
+        return null;
+    }
+
+    private record BoundedField(String name, Function<CreateProductRequest, String> value, int maxLength) {
+    }
+
+    private static final class ImportRow {
+        private final long number;
+        private final CreateProductRequest request;
+        private String error;
+        private Product product;
+
+        ImportRow(long number, CreateProductRequest request) {
+            this.number = number;
+            this.request = request;
+        }
+    }
+
+    private static final class ImportReport {
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void fail(long row, String productId, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ImportRowError.builder()
+                        .row(row)
+                        .productId(productId)
+                        .message(message)
+                        .build());
+            }
+        }
+
+        BulkImportResponse toResponse(long totalRows) {
+            errors.sort(Comparator.comparing(ImportRowError::getRow));
+            return BulkImportResponse.builder()
+                    .totalRows(totalRows)
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+}
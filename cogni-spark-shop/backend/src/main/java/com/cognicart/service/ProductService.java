@@ -1,60 +1,350 @@
 package com.cognicart.service;
 
+import com.cognicart.cache.CatalogVersions;
+import com.cognicart.cart.WriteBehindCartStore;
+import com.cognicart.cache.JsonBytes;
+import com.cognicart.cache.ProductCache;
+import com.cognicart.cache.ProductJsonCache;
+import com.cognicart.cache.ProductSnapshot;
 import com.cognicart.dto.request.CreateProductRequest;
+import com.cognicart.dto.response.BatchProductResponse;
+import com.cognicart.dto.response.FacetFilterResponse;
+import com.cognicart.dto.response.ProductPageResponse;
 import com.cognicart.dto.response.ProductResponse;
 import com.cognicart.entity.Product;
 import com.cognicart.entity.User;
 import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.ProductSort;
+import com.cognicart.enums.TrendingRanking;
+import com.cognicart.enums.TrendingWindow;
+import com.cognicart.mapper.ProductMapper;
+import com.cognicart.pagination.ProductCursor;
+import com.cognicart.projection.ProductFields;
+import com.cognicart.projection.ProductPrice;
+import com.cognicart.recommendation.CoPurchaseIndex;
+import com.cognicart.recommendation.TrendingCounters;
+import com.cognicart.repository.CartItemRepository;
+import com.cognicart.repository.CartRepository;
 import com.cognicart.repository.ProductRepository;
-import org.modelmapper.ModelMapper;
+import com.cognicart.search.AttributeIndex;
+import com.cognicart.search.AutocompleteIndex;
+import com.cognicart.search.FacetIndex;
+import com.cognicart.search.FacetQuery;
+import com.cognicart.search.FacetResult;
+import com.cognicart.search.ProductIndexer;
+import com.cognicart.search.ProductSearchIndex;
+import com.cognicart.search.SearchHit;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.cognicart.repository.ProductSpecifications.activeAndPublic;
+import static com.cognicart.repository.ProductSpecifications.after;
+import static com.cognicart.repository.ProductSpecifications.hasValue;
+import static com.cognicart.repository.ProductSpecifications.idIn;
+import static com.cognicart.repository.ProductSpecifications.inCategory;
 
 @Service
 public class ProductService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_BATCH_SIZE = 200;
+    
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private CartRepository cartRepository;
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Autowired(required = false)
+    private WriteBehindCartStore cartStore;
+    
     @Autowired
     private AuthService authService;
     
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductSearchIndex productSearchIndex;
     
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAllActiveProducts().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Autowired
+    private FacetIndex facetIndex;
+    
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+    
+    @Autowired
+    private AttributeIndex attributeIndex;
+    
+    @Autowired
+    private ProductIndexer productIndexer;
+    
+    @Autowired
+    private CoPurchaseIndex coPurchaseIndex;
+    
+    @Autowired
+    private TrendingCounters trendingCounters;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ProductJsonCache productJsonCache;
+    
+    @Autowired
+    private CatalogVersions catalogVersions;
+    
+    @Autowired
+    private ProductMapper productMapper;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    public ProductPageResponse getProducts(String cursor, int size, String sort, String direction,
+                                           ProductFields fields) {
+        return pageProducts(activeAndPublic(), cursor, size, sort, direction, fields);
+    }
+    
+    // Full product JSON, rendered once per product version and then served from the byte cache
+    public JsonBytes getProductJsonById(Long id) {
+        JsonBytes cached = productJsonCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long version = catalogVersions.product(id).version();
+        ProductResponse product = getProductById(id);
+        try {
+            return productJsonCache.put(id, version, objectMapper.writeValueAsBytes(product));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize product " + id, e);
+        }
+    }
+    
+    public JsonBytes getProductJsonByProductId(String productId) {
+        return getProductJsonById(getProductByProductId(productId).getId());
     }
     
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return convertToResponse(product);
+        return productCache.getById(id, key -> productRepository.findById(key).map(this::convertToResponse))
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id))
+                .toResponse();
+    }
+    
+    // Price and price version for cart writes, from the product cache like every other product read
+    public ProductPrice getProductPrice(Long id) {
+        ProductResponse product = getProductById(id);
+        return new ProductPrice(product.getId(), product.getPrice(), product.getPriceVersion());
     }
     
     public ProductResponse getProductByProductId(String productId) {
-        Product product = productRepository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with productId: " + productId));
-        return convertToResponse(product);
+        return productCache.getByProductId(productId, key -> productRepository.findByProductId(key).map(this::convertToResponse))
+                .orElseThrow(() -> new RuntimeException("Product not found with productId: " + productId))
+                .toResponse();
+    }
+    
+    // For responses embedding many products, such as cart lines: the cache misses are loaded with one IN query.
+    // Ids that match no product are left out.
+    public Map<Long, ProductResponse> getProductsById(Collection<Long> ids) {
+        Map<Long, ProductResponse> products = new HashMap<>();
+        productCache.getAllById(ids, missing ->
+                productRepository.findAllById(missing).stream().map(this::convertToResponse).collect(Collectors.toList()))
+                .forEach((id, snapshot) -> products.put(id, snapshot.toResponse()));
+        return products;
+    }
+    
+    // Cached products are served as-is; the rest are loaded with one IN query per key type. Items keep the
+    // request order, and keys that match no product are listed as missing.
+    public BatchProductResponse getProductsBatch(List<Long> ids, List<String> productIds) {
+        List<Long> idKeys = ids != null ? ids.stream().distinct().collect(Collectors.toList()) : List.of();
+        List<String> productIdKeys = productIds != null
+                ? productIds.stream().filter(key -> !key.isBlank()).distinct().collect(Collectors.toList())
+                : List.of();
+        if (idKeys.size() + productIdKeys.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("At most " + MAX_BATCH_SIZE + " products per batch");
+        }
+        
+        Map<Long, ProductSnapshot> byId = productCache.getAllById(idKeys, missing ->
+                productRepository.findAllById(missing).stream().map(this::convertToResponse).collect(Collectors.toList()));
+        Map<String, ProductSnapshot> byProductId = productCache.getAllByProductId(productIdKeys, missing ->
+                productRepository.findByProductIdIn(missing).stream().map(this::convertToResponse).collect(Collectors.toList()));
+        
+        List<ProductResponse> items = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : idKeys) {
+            ProductSnapshot snapshot = byId.get(id);
+            if (snapshot != null) {
+                items.add(snapshot.toResponse());
+            } else {
+                missingIds.add(id);
+            }
+        }
+        List<String> missingProductIds = new ArrayList<>();
+        for (String productId : productIdKeys) {
+            ProductSnapshot snapshot = byProductId.get(productId);
+            if (snapshot != null) {
+                items.add(snapshot.toResponse());
+            } else {
+                missingProductIds.add(productId);
+            }
+        }
+        
+        return BatchProductResponse.builder()
+                .items(items)
+                .missingIds(missingIds)
+                .missingProductIds(missingProductIds)
+                .build();
     }
     
-    public List<ProductResponse> getProductsByCategory(String category) {
+    public ProductResponse getProductBySlug(String slug) {
+        return productCache.getBySlug(slug, key -> productRepository.findFirstBySlug(key).map(this::convertToResponse))
+                .orElseThrow(() -> new RuntimeException("Product not found with slug: " + slug))
+                .toResponse();
+    }
+    
+    public ProductPageResponse getProductsByCategory(String category, String cursor, int size,
+                                                     String sort, String direction, ProductFields fields) {
         ProductCategory productCategory = ProductCategory.valueOf(category.toUpperCase());
-        return productRepository.findByCategory(productCategory).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return pageProducts(activeAndPublic().and(inCategory(productCategory)), cursor, size, sort, direction, fields);
     }
     
-    public List<ProductResponse> searchProducts(String keyword) {
-        return productRepository.searchProducts(keyword).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public ProductPageResponse searchProducts(String keyword, String cursorToken, int size, boolean fuzzy,
+                                              ProductFields fields) {
+        int pageSize = clampPageSize(size);
+        SearchHit after = null;
+        if (cursorToken != null) {
+            ProductCursor cursor = ProductCursor.decode(cursorToken);
+            if (cursor.getSort() != ProductSort.RELEVANCE) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            after = new SearchHit(cursor.getLastId(), Float.parseFloat(cursor.getLastValue()));
+        }
+        
+        productIndexer.awaitBuilt();
+        List<SearchHit> hits = productSearchIndex.search(keyword, pageSize + 1, after, fuzzy);
+        boolean hasMore = hits.size() > pageSize;
+        if (hasMore) {
+            hits = hits.subList(0, pageSize);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            SearchHit last = hits.get(hits.size() - 1);
+            nextCursor = new ProductCursor(ProductSort.RELEVANCE, true,
+                    Float.toString(last.score()), last.productId()).encode();
+        }
+        
+        List<Long> ids = hits.stream().map(SearchHit::productId).collect(Collectors.toList());
+        return ProductPageResponse.builder()
+                .items(loadInOrder(ids, fields))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    public List<String> autocomplete(String prefix, int limit) {
+        productIndexer.awaitBuilt();
+        return autocompleteIndex.suggest(prefix, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+    
+    // Products most often ordered together with this one; delisted neighbours are skipped, so the whole
+    // precomputed list is loaded and trimmed afterwards
+    public List<ProductResponse> getFrequentlyBoughtTogether(Long id, int limit, ProductFields fields) {
+        List<Long> ids = coPurchaseIndex.neighbours(id, CoPurchaseIndex.TOP_K);
+        List<ProductResponse> products = loadInOrder(ids, activeAndPublic(), fields);
+        int size = Math.min(Math.max(limit, 1), CoPurchaseIndex.TOP_K);
+        return products.size() > size ? products.subList(0, size) : products;
+    }
+    
+    // Served from the leaderboards published by the last counter refresh
+    public List<ProductResponse> getLeaders(TrendingRanking ranking, String window, String category, int limit,
+                                            ProductFields fields) {
+        ProductCategory productCategory = category != null ? ProductCategory.valueOf(category.toUpperCase()) : null;
+        int size = Math.min(Math.max(limit, 1), TrendingCounters.MAX_LEADERS);
+        productIndexer.awaitBuilt();
+        List<Long> ids = trendingCounters.top(ranking, TrendingWindow.fromParam(window), productCategory, size);
+        return loadInOrder(ids, activeAndPublic(), fields);
+    }
+    
+    public void recordView(Long id) {
+        trendingCounters.recordView(id);
+    }
+    
+    // Answers multi-facet filters from the bitmap index; pages seek past the last product id
+    public FacetFilterResponse filterProducts(FacetQuery query, String cursorToken, int size,
+                                              ProductFields fields) {
+        int pageSize = clampPageSize(size);
+        long afterId = -1;
+        if (cursorToken != null) {
+            ProductCursor cursor = ProductCursor.decode(cursorToken);
+            if (cursor.getSort() != ProductSort.ID || cursor.isDescending()) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            afterId = cursor.getLastId();
+        }
+        
+        productIndexer.awaitBuilt();
+        RoaringBitmap attributeMatches = query.getAttributes().isEmpty() ? null : attributeIndex.match(query.getAttributes());
+        FacetResult result = facetIndex.query(query, attributeMatches, afterId, pageSize);
+        String nextCursor = null;
+        if (result.hasMore()) {
+            Long last = result.productIds().get(result.productIds().size() - 1);
+            nextCursor = new ProductCursor(ProductSort.ID, false, last.toString(), last).encode();
+        }
+        
+        return FacetFilterResponse.builder()
+                .items(loadInOrder(result.productIds(), fields))
+                .total(result.total())
+                .nextCursor(nextCursor)
+                .hasMore(result.hasMore())
+                .facets(result.facets())
+                .build();
+    }
+    
+    // Writes every active product as one JSON line; entities are detached as they are written so heap stays flat
+    @Transactional(readOnly = true)
+    public long exportActiveProducts(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamActiveProducts();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                generator.writeObject(convertToResponse(product));
+                generator.writeRaw('\n');
+                entityManager.detach(product);
+                count++;
+            }
+            generator.flush();
+        }
+        return count;
     }
     
     @Transactional
@@ -67,11 +357,17 @@ public class ProductService {
             productId = "prod_" + System.currentTimeMillis();
         }
         
+        Product savedProduct = productRepository.save(buildProduct(request, productId, seller));
+        productIndexer.index(savedProduct);
+        return convertToResponse(savedProduct);
+    }
+    
+    // Shared with the bulk importer, which builds rows off the request thread
+    Product buildProduct(CreateProductRequest request, String productId, User seller) {
         // Parse category
         ProductCategory category = parseCategory(request.getCategory());
         
-        // Build product
-        Product product = Product.builder()
+        return Product.builder()
                 .productId(productId)
                 .productTitle(request.getProductTitle())
                 .category(category)
@@ -106,9 +402,6 @@ public class ProductService {
                 .sellerSubmittedDescription(request.getSellerSubmittedDescription())
                 .seller(seller)
                 .build();
-        
-        Product savedProduct = productRepository.save(product);
-        return convertToResponse(savedProduct);
     }
     
     @Transactional
@@ -120,13 +413,39 @@ public class ProductService {
         if (request.getProductTitle() != null) product.setProductTitle(request.getProductTitle());
         if (request.getCategory() != null) product.setCategory(parseCategory(request.getCategory()));
         if (request.getBrand() != null) product.setBrand(request.getBrand());
-        if (request.getPrice() != null) product.setPrice(request.getPrice());
+        boolean repriced = request.getPrice() != null && !request.getPrice().equals(product.getPrice());
+        if (repriced) {
+            product.setPrice(request.getPrice());
+            product.setPriceVersion((product.getPriceVersion() != null ? product.getPriceVersion() : 0L) + 1);
+        }
         if (request.getColor() != null) product.setColor(request.getColor());
         if (request.getMaterial() != null) product.setMaterial(request.getMaterial());
         if (request.getImageUrl() != null) product.setImageUrl(request.getImageUrl());
         if (request.getDescription() != null) product.setDescription(request.getDescription());
         
+        // Category-specific attributes
+        if (request.getBatteryLife() != null) product.setBatteryLife(request.getBatteryLife());
+        if (request.getConnectivity() != null) product.setConnectivity(request.getConnectivity());
+        if (request.getWarranty() != null) product.setWarranty(request.getWarranty());
+        if (request.getSpecifications() != null) product.setSpecifications(request.getSpecifications());
+        if (request.getSizes() != null) product.setSizes(request.getSizes());
+        if (request.getGender() != null) product.setGender(request.getGender());
+        if (request.getFitType() != null) product.setFitType(request.getFitType());
+        if (request.getDimensions() != null) product.setDimensions(request.getDimensions());
+        if (request.getUsage() != null) product.setUsage(request.getUsage());
+        if (request.getWeight() != null) product.setWeight(request.getWeight());
+        if (request.getAuthor() != null) product.setAuthor(request.getAuthor());
+        if (request.getPublisher() != null) product.setPublisher(request.getPublisher());
+        if (request.getLanguage() != null) product.setLanguage(request.getLanguage());
+        if (request.getBindingType() != null) product.setBindingType(request.getBindingType());
+        if (request.getIsbn() != null) product.setIsbn(request.getIsbn());
+        
         Product updatedProduct = productRepository.save(product);
+        if (repriced) {
+            repriceCarts(updatedProduct);
+        }
+        productCache.invalidate(id);
+        productIndexer.index(updatedProduct);
         return convertToResponse(updatedProduct);
     }
     
@@ -137,10 +456,114 @@ public class ProductService {
         product.setStatus("deleted");
         product.setVisibility("private");
         productRepository.save(product);
+        productCache.invalidate(id);
+        productIndexer.remove(id);
+    }
+    
+    // Carts count each line at the price it was added at; a price change moves every cart holding the product
+    // in two bulk updates, so cart reads never have to re-sum their lines
+    private void repriceCarts(Product product) {
+        cartRepository.repriceProduct(product.getId(), product.getPrice(), product.getPriceVersion());
+        cartItemRepository.repriceProduct(product.getId(), product.getPrice(), product.getPriceVersion());
+        if (cartStore != null) {
+            cartStore.reprice(product.getId(), product.getPrice(), product.getPriceVersion());
+        }
+    }
+    
+    // Keyset pagination: seeks past the cursor's (sort key, id) instead of using OFFSET
+    private ProductPageResponse pageProducts(Specification<Product> filter, String cursorToken, int size,
+                                             String sortParam, String direction, ProductFields fields) {
+        int pageSize = clampPageSize(size);
+        ProductCursor cursor = cursorToken != null ? ProductCursor.decode(cursorToken) : null;
+        ProductSort sort = cursor != null ? cursor.getSort() : ProductSort.fromParam(sortParam);
+        boolean descending = cursor != null ? cursor.isDescending() : "desc".equalsIgnoreCase(direction);
+        if (sort == ProductSort.RELEVANCE) {
+            throw new RuntimeException("Relevance sort is only available for search");
+        }
+        
+        Specification<Product> spec = filter;
+        if (sort == ProductSort.PRICE || sort == ProductSort.RATING) {
+            // Rows without a value have no position in the seek order
+            spec = spec.and(hasValue(sort.getProperty()));
+        }
+        if (cursor != null) {
+            spec = spec.and(after(cursor));
+        }
+        
+        Sort.Direction sortDirection = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort order = sort == ProductSort.ID
+                ? Sort.by(sortDirection, "id")
+                : Sort.by(sortDirection, sort.getProperty(), "id");
+        
+        List<ProductResponse> rows = selectProducts(spec, order, pageSize + 1, fields, "id", sort.getProperty());
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            ProductResponse last = rows.get(rows.size() - 1);
+            nextCursor = new ProductCursor(sort, descending, sortValue(last, sort), last.getId()).encode();
+        }
+        
+        return ProductPageResponse.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    // With a field selection only those columns (plus the id and cursor key) are read from the products table
+    private List<ProductResponse> selectProducts(Specification<Product> spec, Sort order, int limit,
+                                                 ProductFields fields, String... requiredColumns) {
+        if (fields == null) {
+            List<Product> rows = limit > 0
+                    ? productRepository.findBy(spec, query -> query.sortBy(order).limit(limit).all())
+                    : productRepository.findBy(spec, query -> query.sortBy(order).all());
+            return rows.stream().map(this::convertToResponse).collect(Collectors.toList());
+        }
+        List<String> columns = fields.columns(requiredColumns);
+        List<Tuple> rows = productRepository.findColumns(spec, columns, order, limit);
+        return rows.stream().map(row -> ProductFields.toResponse(row, columns)).collect(Collectors.toList());
+    }
+    
+    private String sortValue(ProductResponse product, ProductSort sort) {
+        switch (sort) {
+            case CREATED_AT:
+                return product.getCreatedAt().toString();
+            case PRICE:
+                return product.getPrice().toString();
+            case RATING:
+                return product.getRating().toString();
+            default:
+                return product.getId().toString();
+        }
+    }
+    
+    private int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+    
+    // Loads products in one query and restores the order of the given ids
+    private List<ProductResponse> loadInOrder(List<Long> ids, ProductFields fields) {
+        return loadInOrder(ids, Specification.where(null), fields);
+    }
+    
+    private List<ProductResponse> loadInOrder(List<Long> ids, Specification<Product> filter, ProductFields fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductResponse> productsById = selectProducts(filter.and(idIn(ids)), Sort.unsorted(), 0, fields, "id").stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
     
     private ProductResponse convertToResponse(Product product) {
-        return modelMapper.map(product, ProductResponse.class);
+        return productMapper.toResponse(product);
     }
     
     private ProductCategory parseCategory(String category) {
@@ -4,16 +4,21 @@ import com.cognicart.dto.response.ProductResponse;
 import com.cognicart.entity.Product;
 import com.cognicart.entity.User;
 import com.cognicart.entity.Wishlist;
+import com.cognicart.mapper.ProductMapper;
+import com.cognicart.projection.ProductFields;
 import com.cognicart.repository.ProductRepository;
 import com.cognicart.repository.WishlistRepository;
-import org.modelmapper.ModelMapper;
+import jakarta.persistence.Tuple;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static com.cognicart.repository.ProductSpecifications.inWishlistOf;
+
 @Service
 public class WishlistService {
     
@@ -27,14 +32,24 @@ public class WishlistService {
     private AuthService authService;
     
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
     
-    public List<ProductResponse> getWishlist() {
-        User user = authService.getCurrentUser();
-        List<Wishlist> wishlistItems = wishlistRepository.findByUserId(user.getId());
+    public List<ProductResponse> getWishlist(ProductFields fields) {
+        if (fields != null) {
+            // Read only the selected product columns instead of loading whole wishlist rows and products
+            User user = authService.getCurrentUser();
+            List<String> columns = fields.columns("id");
+            List<Tuple> rows = productRepository.findColumns(inWishlistOf(user.getId()), columns, Sort.by("id"), 0);
+            return rows.stream()
+                    .map(row -> ProductFields.toResponse(row, columns))
+                    .collect(Collectors.toList());
+        }
+        
+        // Wishlist rows and their products in one query
+        List<Wishlist> wishlistItems = wishlistRepository.findWithProductByUserEmail(authService.getCurrentUserEmail());
         
         return wishlistItems.stream()
-                .map(item -> modelMapper.map(item.getProduct(), ProductResponse.class))
+                .map(item -> productMapper.toResponse(item.getProduct()))
                 .collect(Collectors.toList());
     }
     
@@ -57,7 +72,7 @@ public class WishlistService {
         
         wishlistRepository.save(wishlistItem);
         
-        return modelMapper.map(product, ProductResponse.class);
+        return productMapper.toResponse(product);
     }
     
     @Transactional
@@ -0,0 +1,28 @@
+package com.cognicart.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs a JMH benchmark class from its JUnit entry point. -Djmh.params=name=v1,v2 narrows a @Param and
+// -Djmh.profiler=gc adds a profiler.
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    static void run(Class<?> benchmark) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(benchmark.getName());
+        String params = System.getProperty("jmh.params");
+        if (params != null) {
+            String[] param = params.split("=", 2);
+            options.param(param[0], param[1].split(","));
+        }
+        String profiler = System.getProperty("jmh.profiler");
+        if (profiler != null) {
+            options.addProfiler(profiler);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,158 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.CogniCartApplication;
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.UpdateCartItemRequest;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.enums.UserRole;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.repository.UserRepository;
+import com.cognicart.service.CartService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cart operations per second through CartService, against the database-backed path and the write-behind store,
+// on the application context with an in-memory H2. Sixteen users, one per thread, each run a mix of adds,
+// quantity updates, reads and removals over twenty products. Divide by the cores in use for ops per core.
+//
+//   mvn test -Pbenchmark -Dtest=CartStoreBenchmark
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CartStoreBenchmark {
+
+    private static final int PRODUCTS = 20;
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private final AtomicInteger users = new AtomicInteger();
+    private final List<Long> productIds = new ArrayList<>();
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private UserRepository userRepository;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path data = Files.createTempDirectory("cart-benchmark");
+        context = new SpringApplicationBuilder(CogniCartApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:carts-" + writeBehind + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.cognicart=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "app.engine2.enabled=false",
+                        "app.cart.write-behind.enabled=" + writeBehind,
+                        "app.trending.snapshot-path=" + data.resolve("trending.snapshot"),
+                        "app.cart.guest.path=" + data.resolve("guest-carts.dat"))
+                .run();
+        cartService = context.getBean(CartService.class);
+        userRepository = context.getBean(UserRepository.class);
+
+        GeneratedCatalog catalog = new GeneratedCatalog(20);
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            Product product = catalog.product(i);
+            product.setId(null);
+            product.setPriceVersion(1L);
+            products.add(product);
+        }
+        context.getBean(ProductRepository.class).saveAll(products).forEach(product -> productIds.add(product.getId()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Shopper {
+
+        private final Random random = new Random();
+        private final List<Long> inCart = new ArrayList<>();
+
+        @Setup
+        public void signIn(CartStoreBenchmark benchmark) {
+            String email = "shopper" + benchmark.users.incrementAndGet() + "-" + benchmark.writeBehind + "@example.com";
+            benchmark.userRepository.save(User.builder()
+                    .email(email)
+                    .password("x")
+                    .firstName("Shopper")
+                    .role(UserRole.CUSTOMER)
+                    .active(true)
+                    .build());
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        }
+
+        @TearDown(Level.Trial)
+        public void signOut() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Adds are the most common change, and a cart never grows past the product list
+    @Benchmark
+    public Object mixedOperation(Shopper shopper) {
+        int op = shopper.random.nextInt(10);
+        if (op < 4 || shopper.inCart.isEmpty()) {
+            Long productId = productIds.get(shopper.random.nextInt(PRODUCTS));
+            AddToCartRequest request = new AddToCartRequest();
+            request.setProductId(productId);
+            request.setQuantity(1);
+            if (!shopper.inCart.contains(productId)) {
+                shopper.inCart.add(productId);
+            }
+            return cartService.addToCart(request);
+        }
+        if (op < 6) {
+            UpdateCartItemRequest request = new UpdateCartItemRequest();
+            request.setQuantity(1 + shopper.random.nextInt(5));
+            return cartService.updateCartItem(shopper.inCart.get(shopper.random.nextInt(shopper.inCart.size())), request);
+        }
+        if (op < 9) {
+            return cartService.getCart();
+        }
+        return cartService.removeFromCart(shopper.inCart.remove(shopper.random.nextInt(shopper.inCart.size())));
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(CartStoreBenchmark.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.engine2.CatalogData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Engine2 catalog payloads stored as JSON text, the way CatalogService wrote them before, against the
+// LZ4-compressed Smile of CatalogData. Setup prints the average stored size of each; the benchmarks time
+// writing a payload and reading it back into a tree. Each call takes the next of a pool of generated listings.
+//
+//   mvn test -Pbenchmark -Dtest=CatalogDataBenchmark
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogDataBenchmark {
+
+    private static final int POOL = 2_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Map<String, Object>> listings = new ArrayList<>();
+    private final List<String> json = new ArrayList<>();
+    private final List<byte[]> encoded = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        GeneratedCatalog catalog = new GeneratedCatalog(18);
+        long jsonBytes = 0;
+        long encodedBytes = 0;
+        for (int i = 1; i <= POOL; i++) {
+            Map<String, Object> listing = catalog.listing(i);
+            listings.add(listing);
+            json.add(objectMapper.writeValueAsString(listing));
+            encoded.add(CatalogData.of(listing).encoded());
+            jsonBytes += json.get(i - 1).getBytes(StandardCharsets.UTF_8).length;
+            encodedBytes += encoded.get(i - 1).length;
+        }
+        System.out.printf("%n%d listings: JSON text %d B, Smile+LZ4 %d B on average (%.0f%%)%n", POOL,
+                jsonBytes / POOL, encodedBytes / POOL, 100.0 * encodedBytes / jsonBytes);
+    }
+
+    @Benchmark
+    public String writeJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(listings.get(next()));
+    }
+
+    @Benchmark
+    public byte[] writeSmileLz4() {
+        return CatalogData.of(listings.get(next())).encoded();
+    }
+
+    @Benchmark
+    public JsonNode readJson() throws JsonProcessingException {
+        return objectMapper.readTree(json.get(next()));
+    }
+
+    @Benchmark
+    public JsonNode readSmileLz4() {
+        return CatalogData.fromEncoded(encoded.get(next())).tree();
+    }
+
+    private int next() {
+        next = next + 1 == POOL ? 0 : next + 1;
+        return next;
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(CatalogDataBenchmark.class);
+    }
+}
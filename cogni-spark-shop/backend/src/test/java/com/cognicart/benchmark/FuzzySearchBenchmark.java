@@ -0,0 +1,74 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.entity.Product;
+import com.cognicart.search.ProductSearchIndex;
+import com.cognicart.search.SearchHit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Latency distribution of misspelt searches that take the fuzzy path (see p0.99 in the output), and the
+// recall at 20 they reach, printed once per catalog size. The budget is 20 ms at p99 for 1M products.
+//
+//   mvn test -Pbenchmark -Dtest=FuzzySearchBenchmark [-Djmh.params=size=100000]
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 4)
+public class FuzzySearchBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    private List<TypoQueries.Query> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GeneratedCatalog catalog = new GeneratedCatalog(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int start = 1; start <= size; start += 10_000) {
+            List<Product> batch = new ArrayList<>();
+            for (long id = start; id < start + 10_000 && id <= size; id++) {
+                batch.add(catalog.product(id));
+            }
+            index.indexAll(batch);
+            products.addAll(batch);
+        }
+        TypoQueries typos = new TypoQueries(catalog, products, 400);
+        queries = typos.queries();
+        System.out.printf("%n%d products, %d terms: recall@20 over %d misspelt queries = %.3f%n", size,
+                index.termCount(), queries.size(), typos.recallAt20(index, id -> products.get((int) (id - 1))));
+    }
+
+    @Benchmark
+    public List<SearchHit> fuzzySearch() {
+        next = (next + 1) % queries.size();
+        return index.search(queries.get(next).typo(), 20, null, true);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(FuzzySearchBenchmark.class);
+    }
+}
@@ -0,0 +1,195 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Deterministic synthetic catalog for the benchmarks. Titles are built from real brand, product and
+// modifier words; descriptions mix those with a long tail of made-up words, picked with a Zipf-like skew,
+// so the vocabulary and posting list lengths grow with the catalog the way a real one does.
+public final class GeneratedCatalog {
+
+    public static final String[] BRANDS = {
+            "Samsung", "Apple", "Sony", "Boat", "Noise", "Lenovo", "Dell", "Puma", "Nike", "Adidas",
+            "Philips", "Prestige", "Milton", "Fastrack", "Titan", "Penguin", "HarperCollins", "Wildcraft",
+            "Skybags", "Bajaj", "Havells", "Logitech", "Redmi", "OnePlus", "Realme"};
+
+    public static final String[] NOUNS = {
+            "headphones", "earbuds", "speaker", "smartphone", "laptop", "keyboard", "mouse", "monitor",
+            "sneakers", "jacket", "tshirt", "jeans", "backpack", "watch", "bottle", "kettle", "mixer",
+            "novel", "notebook", "charger", "cable", "trimmer", "lamp", "tent", "helmet"};
+
+    public static final String[] MODIFIERS = {
+            "wireless", "bluetooth", "portable", "premium", "classic", "slim", "waterproof", "cotton",
+            "leather", "stainless", "ergonomic", "gaming", "running", "travel", "compact", "smart",
+            "black", "blue", "red", "white", "grey", "green", "pro", "lite", "max"};
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final String SYLLABLES = "ka ri to mo ne sa lu vi pe do ra zi bo fe gu la mi no ta se";
+
+    private final String[] tail;
+    private final Random random;
+
+    public GeneratedCatalog(long seed) {
+        this.random = new Random(seed);
+        String[] syllables = SYLLABLES.split(" ");
+        this.tail = new String[20_000];
+        for (int i = 0; i < tail.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(3);
+            for (int s = 0; s < length; s++) {
+                word.append(syllables[random.nextInt(syllables.length)]);
+            }
+            tail[i] = word.toString();
+        }
+    }
+
+    public List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    public Product product(long id) {
+        String brand = pick(BRANDS);
+        String noun = pick(NOUNS);
+        String title = brand + " " + pick(MODIFIERS) + " " + pick(MODIFIERS) + " " + noun;
+        StringBuilder description = new StringBuilder(title).append(" with");
+        int words = 15 + random.nextInt(25);
+        for (int w = 0; w < words; w++) {
+            description.append(' ').append(random.nextInt(4) == 0 ? pick(MODIFIERS) : tailWord());
+        }
+        return Product.builder()
+                .id(id)
+                .productId("prod_" + id)
+                .productTitle(title)
+                .brand(brand)
+                .description(description.toString())
+                .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                .price(Math.round((99 + random.nextDouble() * 50_000) * 100) / 100.0)
+                .rating(Math.round(random.nextDouble() * 50) / 10.0)
+                .status("active")
+                .visibility("public")
+                .inStock(true)
+                .build();
+    }
+
+    // A product with every optional attribute set, for benchmarks that map or serialize whole products
+    public Product detailedProduct(long id) {
+        Product product = product(id);
+        product.setColor(pick(MODIFIERS));
+        product.setMaterial("cotton blend");
+        product.setImageUrl("https://cdn.cognicart.example/images/" + id + ".jpg");
+        product.setSlug(product.getProductTitle().toLowerCase().replace(' ', '-') + "-" + id);
+        product.setReviewsCount(random.nextInt(5_000));
+        product.setBadge("bestseller");
+        product.setBatteryLife("30 hours");
+        product.setConnectivity("Bluetooth 5.3");
+        product.setWarranty("1 year");
+        product.setSpecifications("{\"driver\":\"40mm\",\"weight\":\"250g\",\"anc\":true}");
+        product.setSizes("[\"S\",\"M\",\"L\",\"XL\"]");
+        product.setGender("unisex");
+        product.setFitType("regular");
+        product.setDimensions("18 x 16 x 8 cm");
+        product.setUsage("daily");
+        product.setWeight("250 g");
+        product.setAuthor("R. K. Narayan");
+        product.setPublisher(pick(BRANDS));
+        product.setLanguage("English");
+        product.setBindingType("paperback");
+        product.setIsbn("978-0-14-" + (100_000 + id % 900_000));
+        product.setSellerSubmittedTitle(product.getProductTitle());
+        product.setSellerSubmittedDescription(product.getDescription());
+        product.setPriceVersion(1L);
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0).plusMinutes(id));
+        product.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 10, 0).plusMinutes(id));
+        return product;
+    }
+
+    // A seller's Engine2 catalog submission: listing copy, bullets, specs, variants and SEO keywords
+    public Map<String, Object> listing(long id) {
+        Product product = detailedProduct(id);
+        Map<String, Object> listing = new LinkedHashMap<>();
+        listing.put("title", product.getProductTitle());
+        listing.put("brand", product.getBrand());
+        listing.put("category", product.getCategory().name());
+        listing.put("description", product.getDescription() + ". " + product(id).getDescription());
+        List<String> bullets = new ArrayList<>();
+        for (int b = 0; b < 5; b++) {
+            bullets.add(pick(MODIFIERS) + " " + tailWord() + " " + tailWord() + " for everyday " + pick(NOUNS));
+        }
+        listing.put("bullets", bullets);
+        Map<String, Object> specs = new LinkedHashMap<>();
+        specs.put("weight", product.getWeight());
+        specs.put("dimensions", product.getDimensions());
+        specs.put("material", product.getMaterial());
+        specs.put("connectivity", product.getConnectivity());
+        specs.put("batteryLife", product.getBatteryLife());
+        specs.put("warranty", product.getWarranty());
+        listing.put("specifications", specs);
+        List<Map<String, Object>> variants = new ArrayList<>();
+        int variantCount = 2 + random.nextInt(6);
+        for (int v = 0; v < variantCount; v++) {
+            Map<String, Object> variant = new LinkedHashMap<>();
+            variant.put("sku", "SKU-" + id + "-" + v);
+            variant.put("color", pick(MODIFIERS));
+            variant.put("size", new String[]{"S", "M", "L", "XL"}[v % 4]);
+            variant.put("price", Math.round(product.getPrice() * (0.9 + random.nextDouble() * 0.2) * 100) / 100.0);
+            variant.put("stock", random.nextInt(500));
+            variant.put("imageUrl", product.getImageUrl().replace(".jpg", "-" + v + ".jpg"));
+            variants.add(variant);
+        }
+        listing.put("variants", variants);
+        List<String> keywords = new ArrayList<>();
+        for (int k = 0; k < 8; k++) {
+            keywords.add(k % 2 == 0 ? pick(MODIFIERS) + " " + pick(NOUNS) : tailWord());
+        }
+        listing.put("seoKeywords", keywords);
+        listing.put("price", product.getPrice());
+        listing.put("inStock", true);
+        return listing;
+    }
+
+    // One random edit: a substitution, deletion, insertion or swap of neighbouring letters
+    public String misspell(String word) {
+        char[] letters = word.toCharArray();
+        int at = random.nextInt(letters.length);
+        char other = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(4)) {
+            case 0:
+                letters[at] = letters[at] == other ? (char) ('a' + (other - 'a' + 1) % 26) : other;
+                return new String(letters);
+            case 1:
+                return word.substring(0, at) + word.substring(at + 1);
+            case 2:
+                return word.substring(0, at) + other + word.substring(at);
+            default:
+                at = Math.min(at, letters.length - 2);
+                if (letters[at] == letters[at + 1]) {
+                    return word.substring(0, at) + word.substring(at + 1);
+                }
+                char swapped = letters[at];
+                letters[at] = letters[at + 1];
+                letters[at + 1] = swapped;
+                return new String(letters);
+        }
+    }
+
+    public String tailWord() {
+        // Zipf-like: a few tail words are common, most are rare
+        double u = random.nextDouble();
+        return tail[(int) (tail.length * u * u * u)];
+    }
+
+    public String pick(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,179 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.dto.response.CartItemResponse;
+import com.cognicart.dto.response.CartResponse;
+import com.cognicart.dto.response.OrderItemResponse;
+import com.cognicart.dto.response.OrderResponse;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.CartItem;
+import com.cognicart.entity.Order;
+import com.cognicart.entity.OrderItem;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.OrderStatus;
+import com.cognicart.mapper.CartMapper;
+import com.cognicart.mapper.CartMapperImpl;
+import com.cognicart.mapper.OrderMapper;
+import com.cognicart.mapper.OrderMapperImpl;
+import com.cognicart.mapper.ProductMapper;
+import com.cognicart.mapper.ProductMapperImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Product, order and cart response mapping through the generated MapStruct mappers against the
+// modelMapper.map(...) code they replaced. Orders and carts hold five lines. Run with -Djmh.profiler=gc for
+// bytes allocated per mapping (gc.alloc.rate.norm).
+//
+//   mvn test -Pbenchmark -Dtest=MapperBenchmark -Djmh.profiler=gc
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final OrderMapper orderMapper = new OrderMapperImpl();
+    private final CartMapper cartMapper = new CartMapperImpl();
+    private Product product;
+    private Order order;
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        ReflectionTestUtils.setField(orderMapper, "productMapper", productMapper);
+        GeneratedCatalog catalog = new GeneratedCatalog(1);
+        product = catalog.detailedProduct(1);
+
+        order = Order.builder()
+                .id(1L)
+                .orderNumber("ORD-1")
+                .totalAmount(12_345.0)
+                .deliveryFee(40.0)
+                .status(OrderStatus.PENDING)
+                .paymentMethod("card")
+                .paymentStatus("pending")
+                .shippingFirstName("Asha")
+                .shippingLastName("Rao")
+                .shippingAddress("12 MG Road")
+                .shippingCity("Bengaluru")
+                .shippingPincode("560001")
+                .shippingPhone("+91 9876543210")
+                .createdAt(LocalDateTime.now())
+                .build();
+        cart = Cart.builder().id(1L).build();
+        for (long line = 1; line <= 5; line++) {
+            Product item = catalog.detailedProduct(line + 1);
+            order.getOrderItems().add(OrderItem.builder()
+                    .id(line).order(order).product(item).quantity(2).price(item.getPrice()).subtotal(item.getPrice() * 2)
+                    .build());
+            cart.getItems().add(CartItem.builder()
+                    .id(line).cart(cart).product(item).quantity(2).unitPrice(item.getPrice())
+                    .build());
+            cart.addToTotals(item.getPrice() * 2, 2);
+        }
+    }
+
+    @Benchmark
+    public ProductResponse productModelMapper() {
+        return modelMapper.map(product, ProductResponse.class);
+    }
+
+    @Benchmark
+    public ProductResponse productMapStruct() {
+        return productMapper.toResponse(product);
+    }
+
+    // OrderService.convertToResponse before the generated mappers
+    @Benchmark
+    public OrderResponse orderModelMapper() {
+        List<OrderItemResponse> items = order.getOrderItems().stream()
+                .map(item -> OrderItemResponse.builder()
+                        .id(item.getId())
+                        .product(modelMapper.map(item.getProduct(), ProductResponse.class))
+                        .quantity(item.getQuantity())
+                        .price(item.getPrice())
+                        .subtotal(item.getSubtotal())
+                        .build())
+                .collect(Collectors.toList());
+        return OrderResponse.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .orderItems(items)
+                .totalAmount(order.getTotalAmount())
+                .deliveryFee(order.getDeliveryFee())
+                .status(order.getStatus().name())
+                .paymentMethod(order.getPaymentMethod())
+                .paymentStatus(order.getPaymentStatus())
+                .shippingFirstName(order.getShippingFirstName())
+                .shippingLastName(order.getShippingLastName())
+                .shippingAddress(order.getShippingAddress())
+                .shippingCity(order.getShippingCity())
+                .shippingPincode(order.getShippingPincode())
+                .shippingPhone(order.getShippingPhone())
+                .createdAt(order.getCreatedAt())
+                .deliveredAt(order.getDeliveredAt())
+                .build();
+    }
+
+    @Benchmark
+    public OrderResponse orderMapStruct() {
+        return orderMapper.toResponse(order);
+    }
+
+    // CartService.convertToResponse before the generated mappers
+    @Benchmark
+    public CartResponse cartModelMapper() {
+        List<CartItemResponse> items = new ArrayList<>();
+        for (CartItem item : cart.getItems()) {
+            items.add(CartItemResponse.builder()
+                    .id(item.getId())
+                    .product(modelMapper.map(item.getProduct(), ProductResponse.class))
+                    .quantity(item.getQuantity())
+                    .build());
+        }
+        return CartResponse.builder()
+                .id(cart.getId())
+                .items(items)
+                .totalPrice(cart.getTotalPrice())
+                .totalItems(cart.getTotalItems())
+                .build();
+    }
+
+    // In the service the product function is served from the product cache; here it maps the line's product
+    @Benchmark
+    public CartResponse cartMapStruct() {
+        return cartMapper.toResponse(cart, id -> productMapper.toResponse(productOf(id)));
+    }
+
+    private Product productOf(Long id) {
+        return cart.getItems().get((int) (id - 2)).getProduct();
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(MapperBenchmark.class);
+    }
+}
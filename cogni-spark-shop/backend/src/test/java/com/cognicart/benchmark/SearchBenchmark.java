@@ -0,0 +1,134 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.entity.Product;
+import com.cognicart.search.ProductSearchIndex;
+import com.cognicart.search.SearchHit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Single-keyword search through the old LOWER(...) LIKE '%kw%' query, run on H2 with the SQL Hibernate
+// generates for it, against the in-memory BM25F index. Both return the first 20 matches. The LIKE side is
+// flattered: H2 is in-process, and the LIMIT lets it stop early on common words, which the old unbounded
+// query could not.
+//
+//   mvn test -Pbenchmark -Dtest=SearchBenchmark [-Djmh.params=size=10000,100000]
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+
+    private static final String LIKE_QUERY = "select p.id, p.product_title, p.brand, p.description from products p where "
+            + "lower(p.product_title) like lower(('%'||?||'%')) or "
+            + "lower(p.description) like lower(('%'||?||'%')) or "
+            + "lower(p.brand) like lower(('%'||?||'%')) fetch first 20 rows only";
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private final List<String> queries = new ArrayList<>();
+    private ProductSearchIndex index;
+    private Connection connection;
+    private PreparedStatement like;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        GeneratedCatalog catalog = new GeneratedCatalog(42);
+        index = new ProductSearchIndex();
+        connection = DriverManager.getConnection("jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop table if exists products");
+            ddl.execute("create table products (id bigint primary key, product_title varchar(255), "
+                    + "brand varchar(255), description varchar(2000))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into products values (?, ?, ?, ?)")) {
+            for (int start = 1; start <= size; start += 10_000) {
+                List<Product> batch = new ArrayList<>();
+                for (long id = start; id < start + 10_000 && id <= size; id++) {
+                    batch.add(catalog.product(id));
+                }
+                index.indexAll(batch);
+                for (Product product : batch) {
+                    insert.setLong(1, product.getId());
+                    insert.setString(2, product.getProductTitle());
+                    insert.setString(3, product.getBrand());
+                    insert.setString(4, product.getDescription());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        like = connection.prepareStatement(LIKE_QUERY);
+
+        // Brands and product words match many rows, tail words a handful, and the last one none
+        for (int i = 0; i < 8; i++) {
+            queries.add(catalog.pick(GeneratedCatalog.BRANDS).toLowerCase());
+            queries.add(catalog.pick(GeneratedCatalog.NOUNS));
+            queries.add(catalog.tailWord());
+        }
+        queries.add("nonexistent");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private String nextQuery() {
+        next = (next + 1) % queries.size();
+        return queries.get(next);
+    }
+
+    @Benchmark
+    public int likeScan() throws SQLException {
+        String query = nextQuery();
+        like.setString(1, query);
+        like.setString(2, query);
+        like.setString(3, query);
+        int rows = 0;
+        try (ResultSet result = like.executeQuery()) {
+            while (result.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<SearchHit> invertedIndex() {
+        return index.search(nextQuery(), 20, null, false);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Benchmarks.run(SearchBenchmark.class);
+    }
+}
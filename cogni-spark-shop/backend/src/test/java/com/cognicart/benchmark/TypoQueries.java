@@ -0,0 +1,80 @@
+package com.cognicart.benchmark;
+
+import com.cognicart.entity.Product;
+import com.cognicart.search.ProductSearchIndex;
+import com.cognicart.search.SearchHit;
+import com.cognicart.search.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Misspelt single-word queries over a generated catalog and the recall the fuzzy search reaches on them
+public final class TypoQueries {
+
+    public record Query(String typo, String word) {
+    }
+
+    private final List<Query> queries = new ArrayList<>();
+    private final Map<String, Integer> documentFrequencies = new HashMap<>();
+
+    // Typos of four letters or more with one edit, and of eight or more with two, the budgets the index allows.
+    // Typos that happen to spell another catalog word are skipped: no spelling correction can tell them apart.
+    public TypoQueries(GeneratedCatalog catalog, List<Product> products, int count) {
+        for (Product product : products) {
+            for (String word : new HashSet<>(Tokenizer.tokenize(text(product)))) {
+                documentFrequencies.merge(word, 1, Integer::sum);
+            }
+        }
+        Set<String> vocabulary = documentFrequencies.keySet();
+        while (queries.size() < count) {
+            String word = switch (queries.size() % 4) {
+                case 0 -> catalog.pick(GeneratedCatalog.BRANDS).toLowerCase();
+                case 1 -> catalog.pick(GeneratedCatalog.NOUNS);
+                case 2 -> catalog.pick(GeneratedCatalog.MODIFIERS);
+                default -> catalog.tailWord();
+            };
+            if (word.length() < 4 || !vocabulary.contains(word)) {
+                continue;
+            }
+            String typo = catalog.misspell(word);
+            int edits = 1;
+            if (word.length() >= 8 && queries.size() % 3 == 0) {
+                typo = catalog.misspell(typo);
+                edits = 2;
+            }
+            // The budget follows the length of what was typed, so a deletion can take a word out of it
+            if (typo.length() >= (edits == 1 ? 4 : 8) && !vocabulary.contains(typo)) {
+                queries.add(new Query(typo, word));
+            }
+        }
+    }
+
+    public List<Query> queries() {
+        return queries;
+    }
+
+    // Recall at 20, averaged over the queries: products in the top 20 that contain the intended word, out of
+    // the 20 or fewer that contain it
+    public double recallAt20(ProductSearchIndex index, Function<Long, Product> products) {
+        double total = 0;
+        for (Query query : queries) {
+            int relevant = 0;
+            for (SearchHit hit : index.search(query.typo(), 20, null, true)) {
+                if (Tokenizer.tokenize(text(products.apply(hit.productId()))).contains(query.word())) {
+                    relevant++;
+                }
+            }
+            total += (double) relevant / Math.min(20, documentFrequencies.get(query.word()));
+        }
+        return total / queries.size();
+    }
+
+    private static String text(Product product) {
+        return product.getProductTitle() + " " + product.getBrand() + " " + product.getDescription();
+    }
+}
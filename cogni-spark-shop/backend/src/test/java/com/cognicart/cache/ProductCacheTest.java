@@ -0,0 +1,88 @@
+package com.cognicart.cache;
+
+import com.cognicart.dto.response.ProductResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+    
+    private final ProductCache cache = new ProductCache(100, Duration.ofMinutes(10));
+    private final AtomicInteger loads = new AtomicInteger();
+    
+    private ProductResponse product(String title) {
+        loads.incrementAndGet();
+        return ProductResponse.builder().id(1L).productId("p1").slug("p-1").productTitle(title).build();
+    }
+    
+    @Test
+    void servesRepeatedReadsFromTheCache() {
+        cache.getById(1L, id -> Optional.of(product("a")));
+        cache.getByProductId("p1", key -> Optional.of(product("b")));
+        cache.getBySlug("p-1", key -> Optional.of(product("c")));
+        
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getBySlug("p-1", key -> Optional.of(product("d"))).get().toResponse().getProductTitle())
+                .isEqualTo("a");
+    }
+    
+    @Test
+    void dropsALoadOverlappingAnInvalidationById() {
+        cache.getById(1L, id -> {
+            ProductResponse stale = product("stale");
+            cache.invalidate(1L);
+            return Optional.of(stale);
+        });
+        
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+    }
+    
+    @Test
+    void dropsALoadOverlappingAnInvalidationByProductId() {
+        ProductSnapshot returned = cache.getByProductId("p1", key -> {
+            ProductResponse stale = product("stale");
+            cache.invalidate(1L);
+            return Optional.of(stale);
+        }).get();
+        
+        assertThat(returned.toResponse().getProductTitle()).isEqualTo("stale");
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+        assertThat(cache.getByProductId("p1", key -> Optional.of(product("fresh"))).get().toResponse().getProductTitle())
+                .isEqualTo("fresh");
+    }
+    
+    @Test
+    void dropsALoadOverlappingAnInvalidationBySlug() {
+        cache.getBySlug("p-1", key -> {
+            ProductResponse stale = product("stale");
+            cache.invalidate(1L);
+            return Optional.of(stale);
+        });
+        
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+    }
+    
+    @Test
+    void dropsABatchLoadOverlappingAnInvalidation() {
+        cache.getAllByProductId(List.of("p1"), keys -> {
+            ProductResponse stale = product("stale");
+            cache.invalidate(1L);
+            return List.of(stale);
+        });
+        
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+    }
+    
+    @Test
+    void cachesALoadStartedAfterAnInvalidation() {
+        cache.invalidate(1L);
+        cache.getByProductId("p1", key -> Optional.of(product("fresh")));
+        
+        assertThat(cache.getIfPresent(1L)).isPresent();
+    }
+}
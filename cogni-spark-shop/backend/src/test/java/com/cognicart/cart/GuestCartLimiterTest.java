@@ -0,0 +1,48 @@
+package com.cognicart.cart;
+
+import com.cognicart.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GuestCartLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final GuestCartLimiter limiter = new GuestCartLimiter(3, now::get);
+
+    @Test
+    void allowsABurstThenOneCartPerRefill() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("10.0.0.1");
+        }
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1")).isInstanceOf(TooManyRequestsException.class);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        limiter.acquire("10.0.0.1");
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1")).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void limitsEachAddressOnItsOwn() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("10.0.0.1");
+        }
+
+        assertThatCode(() -> limiter.acquire("10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void refillsNoFurtherThanTheBurst() {
+        limiter.acquire("10.0.0.1");
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("10.0.0.1");
+        }
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1")).isInstanceOf(TooManyRequestsException.class);
+    }
+}
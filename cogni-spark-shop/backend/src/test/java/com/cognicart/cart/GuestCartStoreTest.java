@@ -0,0 +1,63 @@
+package com.cognicart.cart;
+
+import com.cognicart.enums.CartOperationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GuestCartStoreTest {
+
+    private static final long CART = 42;
+
+    @TempDir
+    Path directory;
+
+    private GuestCartStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new GuestCartStore(directory.resolve("guest-carts.dat").toString(), DataSize.ofKilobytes(64),
+                DataSize.ofMegabytes(1), Duration.ofDays(30), 100, 999);
+        store.open();
+    }
+
+    @Test
+    void capsAddedQuantitiesWithoutOverflowing() {
+        store.change(CART, CartOperationType.ADD, 7, 600);
+        store.change(CART, CartOperationType.ADD, 7, 600);
+        store.change(CART, CartOperationType.ADD, 7, Integer.MAX_VALUE);
+
+        assertThat(lines()).containsExactlyEntriesOf(Map.of(7L, 999));
+    }
+
+    @Test
+    void capsNewAndSetQuantities() {
+        store.change(CART, CartOperationType.ADD, 7, Integer.MAX_VALUE);
+        store.change(CART, CartOperationType.ADD, 8, 2);
+        store.change(CART, CartOperationType.SET, 8, 5000);
+
+        assertThat(lines()).containsExactlyInAnyOrderEntriesOf(Map.of(7L, 999, 8L, 999));
+    }
+
+    @Test
+    void keepsQuantitiesUnderTheCap() {
+        store.change(CART, CartOperationType.ADD, 7, 2);
+        store.change(CART, CartOperationType.ADD, 7, 3);
+
+        assertThat(lines()).containsExactlyEntriesOf(Map.of(7L, 5));
+    }
+
+    private Map<Long, Integer> lines() {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        store.read(CART, lines::put);
+        return lines;
+    }
+}
@@ -0,0 +1,179 @@
+package com.cognicart.cart;
+
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.User;
+import com.cognicart.projection.ProductPrice;
+import com.cognicart.repository.CartItemRepository;
+import com.cognicart.repository.CartRepository;
+import com.cognicart.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteBehindCartStoreTest {
+
+    private static final String EMAIL = "asha@example.com";
+    private static final ProductPrice LAMP = new ProductPrice(7L, 499.5, 1L);
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final WriteBehindCartStore store = new WriteBehindCartStore(4, 500, Duration.ofMinutes(30));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "cartRepository", cartRepository);
+        ReflectionTestUtils.setField(store, "cartItemRepository", cartItemRepository);
+        ReflectionTestUtils.setField(store, "userRepository", userRepository);
+        ReflectionTestUtils.setField(store, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(store, "transactionTemplate", transactionTemplate);
+
+        when(cartRepository.findIdByUserEmail(anyString())).thenReturn(Optional.of(1L));
+        when(cartItemRepository.findRowsByCartId(anyLong())).thenReturn(List.of());
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(User.builder().email(EMAIL).build()));
+        when(cartRepository.save(any(Cart.class))).thenReturn(Cart.builder().id(1L).build());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenAnswer(invocation -> new int[invocation.<List<?>>getArgument(1).size()]);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    // Checkout writes the pending lines and then clears the cart in the same transaction. Writing used to leave the
+    // cart marked as flushing until that transaction ended, so the clear waited for it forever.
+    @Test
+    void checksOutTwiceWithPendingLines() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int checkout = 0; checkout < 2; checkout++) {
+                store.add(EMAIL, LAMP, 2);
+                inTransaction(() -> {
+                    store.prepareCheckout(EMAIL);
+                    store.clear(EMAIL);
+                });
+            }
+        });
+
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE cart_items"), anyList());
+        verify(jdbcTemplate, times(2)).update(startsWith("DELETE FROM cart_items"), any(Object[].class));
+        assertThat(store.get(EMAIL).lines()).isEmpty();
+    }
+
+    @Test
+    void flushesTheLatestQuantityOfALineOnce() {
+        store.add(EMAIL, LAMP, 1);
+        store.add(EMAIL, LAMP, 2);
+        store.set(EMAIL, LAMP.id(), 5);
+        store.flush();
+        store.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("UPDATE cart_items"), anyList());
+        CartSnapshot cart = store.get(EMAIL);
+        assertThat(cart.itemCount()).isEqualTo(5);
+        assertThat(cart.subtotal()).isEqualTo(2497.5);
+    }
+
+    // One stripe, so every cart shares the lock the slow load would have held
+    @Test
+    void servesOtherCartsWhileOneLoads() throws Exception {
+        WriteBehindCartStore oneStripe = new WriteBehindCartStore(1, 500, Duration.ofMinutes(30));
+        copyDependencies(oneStripe);
+        oneStripe.get("other@example.com");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cartRepository.findIdByUserEmail(EMAIL)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return Optional.of(2L);
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CartSnapshot> slow = executor.submit(() -> oneStripe.get(EMAIL));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> oneStripe.add("other@example.com", LAMP, 1));
+            release.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS).cartId()).isEqualTo(2L);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    // Both requests read that there is no cart before either takes the lock; only the first creates one
+    @Test
+    void createsOneCartForConcurrentFirstRequests() throws Exception {
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        when(cartRepository.findIdByUserEmail(EMAIL)).thenAnswer(invocation -> {
+            bothRead.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Object>> requests = executor.invokeAll(List.of(
+                    () -> inTransaction(() -> store.add(EMAIL, LAMP, 1)),
+                    () -> inTransaction(() -> store.add(EMAIL, LAMP, 2))));
+            for (Future<Object> request : requests) {
+                request.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(cartRepository, times(1)).save(any(Cart.class));
+        assertThat(store.get(EMAIL).itemCount()).isEqualTo(3);
+    }
+
+    private void copyDependencies(WriteBehindCartStore target) {
+        for (String field : List.of("cartRepository", "cartItemRepository", "userRepository", "jdbcTemplate", "transactionTemplate")) {
+            ReflectionTestUtils.setField(target, field, ReflectionTestUtils.getField(store, field));
+        }
+    }
+
+    private static Object inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            return null;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.cognicart.controller;
+
+import com.cognicart.dto.request.CreateProductRequest;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductConditionalGetTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductService productService;
+    
+    private Product lamp;
+    private Product mug;
+    
+    @BeforeEach
+    void setUp() {
+        lamp = productRepository.save(product("Lamp"));
+        mug = productRepository.save(product("Mug"));
+    }
+    
+    @Test
+    void answersAMatchingETagOrDateWithNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/products/{id}", lamp.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertThat(etag).startsWith("\"product-" + lamp.getId() + "-");
+        
+        mockMvc.perform(get("/api/products/{id}", lamp.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products/{id}", lamp.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products/{id}", lamp.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"something-else\""))
+                .andExpect(status().isOk());
+    }
+    
+    // A change moves the product's ETag and the catalog ETag; other products keep theirs
+    @Test
+    void sendsTheBodyAgainAfterAChange() throws Exception {
+        String lampEtag = etag("/api/products/" + lamp.getId());
+        String mugEtag = etag("/api/products/" + mug.getId());
+        String catalogEtag = etag("/api/products");
+        
+        CreateProductRequest reprice = new CreateProductRequest();
+        reprice.setPrice(24.99);
+        productService.updateProduct(lamp.getId(), reprice);
+        
+        mockMvc.perform(get("/api/products/{id}", lamp.getId()).header(HttpHeaders.IF_NONE_MATCH, lampEtag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(lampEtag)));
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, catalogEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/{id}", mug.getId()).header(HttpHeaders.IF_NONE_MATCH, mugEtag))
+                .andExpect(status().isNotModified());
+    }
+    
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+    }
+    
+    private static Product product(String name) {
+        return Product.builder()
+                .productId(name.toLowerCase() + "-" + UUID.randomUUID())
+                .productTitle(name)
+                .category(ProductCategory.HOME_KITCHEN)
+                .price(19.99)
+                .status("active")
+                .visibility("public")
+                .inStock(true)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.cognicart.controller;
+
+import com.cognicart.entity.User;
+import com.cognicart.enums.UserRole;
+import com.cognicart.repository.UserRepository;
+import com.cognicart.security.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductExportTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void keepsTheExportFromAnonymousUsersAndCustomers() throws Exception {
+        mockMvc.perform(get("/api/products/export")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/products/export").header("Authorization", bearer(UserRole.CUSTOMER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+    }
+    
+    // The long timeout applies to the export alone; other async requests keep the default
+    @Test
+    void streamsTheExportToSellersWithItsOwnTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/products/export").header("Authorization", bearer(UserRole.SELLER)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(30 * 60 * 1000L);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"catalog.ndjson\""));
+    }
+    
+    private String bearer(UserRole role) {
+        User user = userRepository.save(User.builder()
+                .email("export-" + UUID.randomUUID() + "@example.com")
+                .password("x")
+                .firstName("Export")
+                .role(role)
+                .active(true)
+                .build());
+        return "Bearer " + jwtTokenProvider.generateTokenFromEmail(user.getEmail());
+    }
+}
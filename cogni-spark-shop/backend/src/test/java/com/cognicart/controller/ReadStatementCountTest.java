@@ -0,0 +1,171 @@
+package com.cognicart.controller;
+
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.CartItem;
+import com.cognicart.entity.Order;
+import com.cognicart.entity.OrderItem;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.entity.Wishlist;
+import com.cognicart.enums.OrderStatus;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.UserRole;
+import com.cognicart.repository.CartItemRepository;
+import com.cognicart.repository.CartRepository;
+import com.cognicart.repository.OrderRepository;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.repository.UserRepository;
+import com.cognicart.repository.WishlistRepository;
+import com.cognicart.security.JwtTokenProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Cart, order and wishlist reads take a fixed number of SQL statements however many lines they return. Counts
+// include the user lookup behind the bearer token, as in production.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadStatementCountTest {
+    
+    private static final int LINES = 20;
+    private static final int ORDERS = 5;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CartRepository cartRepository;
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Autowired
+    private WishlistRepository wishlistRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private User user;
+    private String token;
+    private List<Product> products;
+    
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .email("reader-" + UUID.randomUUID() + "@example.com")
+                .password("x")
+                .firstName("Reader")
+                .role(UserRole.CUSTOMER)
+                .active(true)
+                .build());
+        token = jwtTokenProvider.generateTokenFromEmail(user.getEmail());
+        List<Product> created = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            created.add(Product.builder()
+                    .productId("reader-" + UUID.randomUUID())
+                    .productTitle("Product " + i)
+                    .category(ProductCategory.HOME_KITCHEN)
+                    .price(10.0 + i)
+                    .status("active")
+                    .visibility("public")
+                    .inStock(true)
+                    .build());
+        }
+        products = productRepository.saveAll(created);
+    }
+    
+    // The user, then the cart with its lines; line products come from the product cache, filled with one query
+    // on the first read
+    @Test
+    void readsTheCartInFixedStatements() throws Exception {
+        Cart cart = cartRepository.save(Cart.builder().user(user).build());
+        for (Product product : products) {
+            cartItemRepository.save(CartItem.builder()
+                    .cart(cart)
+                    .product(product)
+                    .quantity(2)
+                    .unitPrice(product.getPrice())
+                    .priceVersion(product.getPriceVersion())
+                    .build());
+        }
+    
+        assertThat(statements("/api/cart", jsonPath("$.items.length()").value(LINES))).isEqualTo(3);
+        assertThat(statements("/api/cart", jsonPath("$.items.length()").value(LINES))).isEqualTo(2);
+    }
+    
+    // The user, then the orders with their lines and products
+    @Test
+    void readsOrderHistoryInFixedStatements() throws Exception {
+        for (int o = 0; o < ORDERS; o++) {
+            Order order = Order.builder()
+                    .orderNumber("ORD-" + UUID.randomUUID())
+                    .user(user)
+                    .totalAmount(0.0)
+                    .status(OrderStatus.PENDING)
+                    .build();
+            for (Product product : products) {
+                order.getOrderItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(1)
+                        .price(product.getPrice())
+                        .subtotal(product.getPrice())
+                        .build());
+            }
+            orderRepository.save(order);
+        }
+    
+        assertThat(statements("/api/orders", jsonPath("$.length()").value(ORDERS))).isEqualTo(2);
+    }
+    
+    // The user, then the wishlist rows with their products
+    @Test
+    void readsTheWishlistInFixedStatements() throws Exception {
+        for (Product product : products) {
+            wishlistRepository.save(Wishlist.builder().user(user).product(product).build());
+        }
+    
+        assertThat(statements("/api/wishlist", jsonPath("$.length()").value(LINES))).isEqualTo(2);
+    }
+    
+    // Statements Hibernate prepared while serving one authenticated GET; background jobs that use the database
+    // are off in the test profile
+    private long statements(String path, ResultMatcher body) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(body);
+        return statistics.getPrepareStatementCount();
+    }
+}
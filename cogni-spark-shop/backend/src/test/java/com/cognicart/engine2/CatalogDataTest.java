@@ -0,0 +1,80 @@
+package com.cognicart.engine2;
+
+import com.cognicart.benchmark.GeneratedCatalog;
+import com.cognicart.entity.CatalogEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogDataTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTripsListingsInLessSpaceThanJsonText() throws Exception {
+        Map<String, Object> listing = new GeneratedCatalog(18).listing(1);
+        String json = objectMapper.writeValueAsString(listing);
+
+        CatalogData data = CatalogData.of(listing);
+        CatalogData stored = new CatalogDataConverter().convertToEntityAttribute(
+                new CatalogDataConverter().convertToDatabaseColumn(data));
+
+        assertThat(stored.tree()).isEqualTo(objectMapper.readTree(json));
+        assertThat(stored.json()).isEqualTo(json);
+        assertThat(stored).isEqualTo(data);
+        assertThat(data.encodedSize()).isLessThan(json.length());
+    }
+
+    @Test
+    void keepsSmallPayloadsUncompressed() {
+        CatalogData data = CatalogData.of(Map.of("title", "Mug"));
+
+        assertThat(data.encoded()[0]).isEqualTo((byte) 1);
+        assertThat(data.tree().path("title").asText()).isEqualTo("Mug");
+    }
+
+    @Test
+    void decodesOnlyWhenRead() {
+        byte[] corrupt = {2, 0, 0, 0, 9, 1, 2, 3};
+        CatalogData data = new CatalogDataConverter().convertToEntityAttribute(corrupt);
+
+        assertThat(data.encodedSize()).isEqualTo(corrupt.length);
+        assertThatThrownBy(data::tree).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void rejectsPayloadsOverTheLimit() {
+        StringBuilder noise = new StringBuilder();
+        Random random = new Random(1);
+        while (noise.length() < CatalogData.MAX_ENCODED_BYTES + 1) {
+            noise.append(Long.toString(random.nextLong(), 36));
+        }
+
+        assertThatThrownBy(() -> CatalogData.of(Map.of("description", noise.toString())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void convertsLegacyJsonTextOnLoad() throws Exception {
+        CatalogEntry entry = CatalogEntry.builder().build();
+        entry.setLegacyCatalogData("{\"title\":\"Kettle\",\"tags\":[\"steel\"]}");
+        ReflectionTestUtils.invokeMethod(entry, "convertLegacyCatalogData");
+
+        assertThat(entry.getCatalogData().tree()).isEqualTo(objectMapper.readTree("{\"title\":\"Kettle\",\"tags\":[\"steel\"]}"));
+        assertThat(entry.getLegacyCatalogData()).isNull();
+    }
+
+    @Test
+    void keepsLegacyTextThatIsNotJson() {
+        assertThat(CatalogData.fromJson("not json").tree().asText()).isEqualTo("not json");
+        assertThat(CatalogData.fromJson("[1,2]").tree()).hasSize(2);
+        assertThat(CatalogData.of(List.of()).tree().isArray()).isTrue();
+    }
+}
@@ -0,0 +1,222 @@
+package com.cognicart.engine2;
+
+import com.cognicart.entity.CatalogEntry;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.repository.CatalogEntryRepository;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.service.CatalogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Claims, retries and lease handling against the database; each processor built here stands for one worker node
+@SpringBootTest
+@ActiveProfiles("test")
+class Engine2ProcessorTest {
+
+    private static final Engine2Client UNAVAILABLE = request -> {
+        throw new IllegalStateException("Engine2 unavailable");
+    };
+
+    @Autowired
+    private CatalogEntryRepository catalogEntryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        catalogEntryRepository.deleteAll();
+    }
+
+    @Test
+    void claimsDueEntriesAndCompletesThem() throws Exception {
+        CatalogEntry due = entry(CatalogService.PENDING, 0);
+        CatalogEntry later = save(entry(CatalogService.PENDING, 0), e -> e.setNextAttemptAt(LocalDateTime.now().plusHours(1)));
+
+        Engine2Processor processor = runOnce(new LocalEngine2Client(), 5);
+
+        CatalogEntry processed = reload(due);
+        assertThat(processed.getStatus()).isEqualTo(CatalogService.PROCESSED);
+        assertThat(processed.getAttempts()).isEqualTo(1);
+        assertThat(processed.getLeaseToken()).isNull();
+        assertThat(processed.getLeaseExpiresAt()).isNull();
+        assertThat(reload(later).getStatus()).isEqualTo(CatalogService.PENDING);
+        assertThat(processor.stats().getClaimed()).isEqualTo(1);
+        assertThat(processor.stats().getProcessed()).isEqualTo(1);
+    }
+
+    // A worker that died mid-batch leaves its entries processing; once the lease runs out another worker takes them
+    @Test
+    void reclaimsEntriesWhoseLeaseExpired() throws Exception {
+        CatalogEntry expired = save(entry(CatalogService.PROCESSING, 1), e -> {
+            e.setLeaseToken("crashed-node");
+            e.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        });
+        CatalogEntry held = save(entry(CatalogService.PROCESSING, 1), e -> {
+            e.setLeaseToken("live-node");
+            e.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        });
+
+        runOnce(new LocalEngine2Client(), 5);
+
+        CatalogEntry reclaimed = reload(expired);
+        assertThat(reclaimed.getStatus()).isEqualTo(CatalogService.PROCESSED);
+        assertThat(reclaimed.getAttempts()).isEqualTo(2);
+        CatalogEntry untouched = reload(held);
+        assertThat(untouched.getStatus()).isEqualTo(CatalogService.PROCESSING);
+        assertThat(untouched.getLeaseToken()).isEqualTo("live-node");
+        assertThat(untouched.getAttempts()).isEqualTo(1);
+    }
+
+    // The second attempt waits twice the base backoff, plus up to a fifth of it in jitter
+    @Test
+    void retriesFailedEntriesWithBackoff() throws Exception {
+        CatalogEntry entry = entry(CatalogService.PENDING, 1);
+
+        LocalDateTime before = LocalDateTime.now();
+        Engine2Processor processor = runOnce(UNAVAILABLE, 5);
+        LocalDateTime after = LocalDateTime.now();
+
+        CatalogEntry retried = reload(entry);
+        assertThat(retried.getStatus()).isEqualTo(CatalogService.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(2);
+        assertThat(retried.getLastError()).isEqualTo("Engine2 unavailable");
+        assertThat(retried.getLeaseToken()).isNull();
+        assertThat(retried.getNextAttemptAt()).isBetween(before.plusSeconds(60), after.plusSeconds(72));
+        assertThat(processor.stats().getRetried()).isEqualTo(1);
+
+        runOnce(new LocalEngine2Client(), 5);
+        assertThat(reload(entry).getStatus()).isEqualTo(CatalogService.PENDING);
+    }
+
+    @Test
+    void failsEntriesOnTheLastAttempt() throws Exception {
+        CatalogEntry lastTry = entry(CatalogService.PENDING, 2);
+        CatalogEntry crashedOnLastTry = save(entry(CatalogService.PROCESSING, 3), e -> {
+            e.setLeaseToken("crashed-node");
+            e.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        });
+
+        Engine2Processor processor = runOnce(UNAVAILABLE, 3);
+
+        CatalogEntry failed = reload(lastTry);
+        assertThat(failed.getStatus()).isEqualTo(CatalogService.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(3);
+        assertThat(failed.getLastError()).isEqualTo("Engine2 unavailable");
+        assertThat(failed.getNextAttemptAt()).isNull();
+        CatalogEntry abandoned = reload(crashedOnLastTry);
+        assertThat(abandoned.getStatus()).isEqualTo(CatalogService.FAILED);
+        assertThat(abandoned.getLastError()).isEqualTo("Lease expired after the last attempt");
+        assertThat(abandoned.getLeaseToken()).isNull();
+        assertThat(processor.stats().getFailed()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresOutcomesUnderAStaleLeaseToken() {
+        CatalogEntry entry = save(entry(CatalogService.PROCESSING, 1), e -> {
+            e.setLeaseToken("current");
+            e.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        });
+
+        int completed = transactionTemplate.execute(status -> catalogEntryRepository.completeLeased(
+                List.of(entry.getId()), "stale", CatalogService.PROCESSED, LocalDateTime.now()));
+        int released = transactionTemplate.execute(status -> catalogEntryRepository.releaseLeased(
+                entry.getId(), "stale", CatalogService.FAILED, null, "late failure"));
+
+        assertThat(completed).isZero();
+        assertThat(released).isZero();
+        CatalogEntry unchanged = reload(entry);
+        assertThat(unchanged.getStatus()).isEqualTo(CatalogService.PROCESSING);
+        assertThat(unchanged.getLeaseToken()).isEqualTo("current");
+        assertThat(unchanged.getLastError()).isNull();
+    }
+
+    // While the first worker is busy its lease runs out and a second worker claims the entry; the first worker's
+    // outcome, success or failure, is then dropped and the entry stays with the second
+    @Test
+    void dropsTheOutcomeOfAWorkerThatLostItsLease() throws Exception {
+        CatalogEntry succeeding = entry(CatalogService.PENDING, 0);
+        Engine2Processor slow = runOnce(request -> reclaimAsAnotherWorker(request.entryId()), 5);
+
+        assertThat(reload(succeeding).getStatus()).isEqualTo(CatalogService.PROCESSING);
+        assertThat(reload(succeeding).getLeaseToken()).isEqualTo("second-worker");
+        assertThat(slow.stats().getProcessed()).isZero();
+        assertThat(slow.stats().getLeasesLost()).isEqualTo(1);
+
+        catalogEntryRepository.deleteAll();
+        CatalogEntry failing = entry(CatalogService.PENDING, 0);
+        Engine2Processor failingSlow = runOnce(request -> {
+            reclaimAsAnotherWorker(request.entryId());
+            throw new IllegalStateException("Engine2 unavailable");
+        }, 5);
+
+        CatalogEntry kept = reload(failing);
+        assertThat(kept.getStatus()).isEqualTo(CatalogService.PROCESSING);
+        assertThat(kept.getLeaseToken()).isEqualTo("second-worker");
+        assertThat(kept.getLastError()).isNull();
+        assertThat(failingSlow.stats().getRetried()).isZero();
+        assertThat(failingSlow.stats().getLeasesLost()).isEqualTo(1);
+    }
+
+    private void reclaimAsAnotherWorker(Long entryId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            CatalogEntry entry = catalogEntryRepository.findById(entryId).orElseThrow();
+            entry.setLeaseToken("second-worker");
+            entry.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        });
+    }
+
+    // One poll on a fresh worker node, waiting for its batches to finish
+    private Engine2Processor runOnce(Engine2Client client, int maxAttempts) throws Exception {
+        Engine2Processor processor = new Engine2Processor(true, 1, 20, Duration.ofMinutes(5), maxAttempts,
+                Duration.ofSeconds(30), Duration.ofHours(1));
+        ReflectionTestUtils.setField(processor, "catalogEntryRepository", catalogEntryRepository);
+        ReflectionTestUtils.setField(processor, "engine2Client", client);
+        ReflectionTestUtils.setField(processor, "transactionTemplate", transactionTemplate);
+        processor.poll();
+        processor.shutdown();
+        return processor;
+    }
+
+    private CatalogEntry entry(String status, int attempts) {
+        Product product = productRepository.save(Product.builder()
+                .productId("engine2-" + UUID.randomUUID())
+                .productTitle("Lamp")
+                .category(ProductCategory.HOME_KITCHEN)
+                .price(19.99)
+                .build());
+        return catalogEntryRepository.save(CatalogEntry.builder()
+                .product(product)
+                .catalogData(CatalogData.of(Map.of("title", "Lamp")))
+                .status(status)
+                .attempts(attempts)
+                .build());
+    }
+
+    private CatalogEntry save(CatalogEntry entry, Consumer<CatalogEntry> change) {
+        change.accept(entry);
+        return catalogEntryRepository.save(entry);
+    }
+
+    private CatalogEntry reload(CatalogEntry entry) {
+        return catalogEntryRepository.findById(entry.getId()).orElseThrow();
+    }
+}
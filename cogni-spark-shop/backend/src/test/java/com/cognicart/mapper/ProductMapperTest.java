@@ -0,0 +1,53 @@
+package com.cognicart.mapper;
+
+import com.cognicart.benchmark.GeneratedCatalog;
+import com.cognicart.dto.response.OrderResponse;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Order;
+import com.cognicart.entity.OrderItem;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductMapperTest {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    // The generated mapper must fill every field the reflective mapping it replaced did
+    @Test
+    void mapsTheSameFieldsAsModelMapper() {
+        Product product = new GeneratedCatalog(1).detailedProduct(42);
+
+        ProductResponse generated = productMapper.toResponse(product);
+
+        assertThat(generated).isEqualTo(new ModelMapper().map(product, ProductResponse.class));
+        assertThat(generated).hasNoNullFieldsOrProperties();
+    }
+
+    @Test
+    void mapsOrdersWithTheirItems() {
+        OrderMapper orderMapper = new OrderMapperImpl();
+        ReflectionTestUtils.setField(orderMapper, "productMapper", productMapper);
+        Product product = new GeneratedCatalog(1).detailedProduct(7);
+        Order order = Order.builder().id(3L).orderNumber("ORD-3").status(OrderStatus.SHIPPED).totalAmount(20.0).build();
+        order.getOrderItems().add(OrderItem.builder().id(9L).order(order).product(product).quantity(2).price(10.0).subtotal(20.0).build());
+
+        OrderResponse response = orderMapper.toResponse(order);
+
+        assertThat(response.getStatus()).isEqualTo("SHIPPED");
+        assertThat(response.getOrderItems()).singleElement().satisfies(item -> {
+            assertThat(item.getQuantity()).isEqualTo(2);
+            assertThat(item.getSubtotal()).isEqualTo(20.0);
+            assertThat(item.getProduct()).isEqualTo(productMapper.toResponse(product));
+        });
+    }
+
+    @Test
+    void mapsNullToNull() {
+        assertThat(productMapper.toResponse(null)).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package com.cognicart.projection;
+
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static com.cognicart.repository.ProductSpecifications.idIn;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class ProductFieldsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().setFilterProvider(ProductFields.ALL_FIELDS);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void parsesTheSelectionAndRejectsUnknownFields() {
+        assertThat(ProductFields.parse(null)).isNull();
+        assertThat(ProductFields.parse(" , ")).isNull();
+        assertThat(ProductFields.parse(" productTitle,price,productTitle ").getNames()).containsExactly("productTitle", "price");
+        assertThat(ProductFields.parse("price,id").columns("id", "createdAt")).containsExactly("price", "id", "createdAt");
+
+        assertThatThrownBy(() -> ProductFields.parse("productTitle,password"))
+                .hasMessage("Unknown product field: password");
+    }
+
+    // Only the selected columns and the ones the caller requires are read; the rest of the row stays in the table
+    @Test
+    void readsOnlyTheSelectedColumns() {
+        Product lamp = productRepository.save(Product.builder()
+                .productId("lamp-1")
+                .productTitle("Desk Lamp")
+                .category(ProductCategory.HOME_KITCHEN)
+                .brand("Lumen")
+                .price(19.99)
+                .description("A lamp for the desk")
+                .build());
+        List<String> columns = ProductFields.parse("productTitle,category").columns("id");
+
+        List<Tuple> rows = productRepository.findColumns(idIn(List.of(lamp.getId())), columns, Sort.unsorted(), 0);
+
+        assertThat(rows).singleElement().satisfies(row -> assertThat(row.getElements()).hasSize(3));
+        ProductResponse response = ProductFields.toResponse(rows.get(0), columns);
+        assertThat(response.getId()).isEqualTo(lamp.getId());
+        assertThat(response.getProductTitle()).isEqualTo("Desk Lamp");
+        assertThat(response.getCategory()).isEqualTo("HOME_KITCHEN");
+        assertThat(response.getBrand()).isNull();
+        assertThat(response.getPrice()).isNull();
+        assertThat(response.getDescription()).isNull();
+    }
+
+    @Test
+    void serializesOnlyTheSelectedFields() throws Exception {
+        ProductResponse response = new ProductResponse();
+        response.setId(7L);
+        response.setProductTitle("Desk Lamp");
+        response.setPrice(19.99);
+        response.setBrand("Lumen");
+
+        JsonNode selected = objectMapper.readTree(objectMapper.writer(ProductFields.filters(ProductFields.parse("productTitle,price")))
+                .writeValueAsString(List.of(response)));
+        JsonNode everything = objectMapper.readTree(objectMapper.writer(ProductFields.filters(null))
+                .writeValueAsString(response));
+
+        assertThat(selected.get(0).fieldNames()).toIterable().containsExactlyInAnyOrder("productTitle", "price");
+        assertThat(everything.has("brand")).isTrue();
+        assertThat(everything.has("id")).isTrue();
+    }
+}
@@ -0,0 +1,76 @@
+package com.cognicart.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoPurchaseIndexTest {
+
+    private final CoPurchaseIndex index = new CoPurchaseIndex();
+    private long orderId;
+
+    private void order(Long... productIds) {
+        index.recordOrder(++orderId, List.of(productIds));
+    }
+
+    @Test
+    void ranksByCountThenByLowerProductId() {
+        order(1L, 2L, 3L);
+        order(1L, 4L);
+        order(1L, 3L);
+        order(4L, 1L);
+
+        assertThat(index.neighbours(1L, 10)).containsExactly(3L, 4L, 2L);
+        assertThat(index.neighbours(1L, 2)).containsExactly(3L, 4L);
+        assertThat(index.neighbours(2L, 10)).containsExactly(1L, 3L);
+        assertThat(index.neighbours(5L, 10)).isEmpty();
+        assertThat(index.neighbours(100_000L, 10)).isEmpty();
+    }
+
+    // Neighbours climb into and within the top list as their counts grow; the list must match a full re-sort
+    @Test
+    void keepsTheTopNeighboursExactAsCountsGrow() {
+        Random random = new Random(42);
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Skewed so that late, heavily bought neighbours push earlier ones out of the top list
+            long neighbour = 2 + (long) (Math.pow(random.nextDouble(), 2) * 80);
+            if (i > 4_000) {
+                neighbour = 70 + random.nextInt(5);
+            }
+            order(1L, neighbour);
+            counts.merge(neighbour, 1, Integer::sum);
+
+            if (i % 500 == 0 || i == 4_999) {
+                List<Long> expected = counts.entrySet().stream()
+                        .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                        .limit(CoPurchaseIndex.TOP_K)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                assertThat(index.neighbours(1L, CoPurchaseIndex.TOP_K)).containsExactlyElementsOf(expected);
+            }
+        }
+        assertThat(index.neighbours(1L, CoPurchaseIndex.TOP_K)).contains(70L, 71L, 72L, 73L, 74L);
+        assertThat(index.neighbours(1L, 100)).hasSize(CoPurchaseIndex.TOP_K);
+    }
+
+    @Test
+    void countsEachOrderOnceAndSkipsBulkOrders() {
+        index.recordOrder(1L, List.of(1L, 2L));
+        index.recordOrder(1L, List.of(1L, 2L));
+        index.recordOrder(2L, List.of(1L, 3L, 3L));
+        index.recordOrder(3L, List.of(1L, 3L));
+        index.recordOrder(4L, List.of(1L));
+        index.recordOrder(5L, LongStream.rangeClosed(1, 51).boxed().collect(Collectors.toList()));
+
+        assertThat(index.neighbours(1L, 10)).containsExactly(3L, 2L);
+        assertThat(index.neighbours(50L, 10)).isEmpty();
+    }
+}
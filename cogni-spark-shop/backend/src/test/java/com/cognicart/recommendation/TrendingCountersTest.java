@@ -0,0 +1,84 @@
+package com.cognicart.recommendation;
+
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.TrendingRanking;
+import com.cognicart.enums.TrendingWindow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendingCountersTest {
+
+    @TempDir
+    Path directory;
+
+    private TrendingCounters counters() {
+        TrendingCounters counters = new TrendingCounters(directory.resolve("trending.snapshot").toString());
+        counters.index(product(1, ProductCategory.ELECTRONICS));
+        counters.index(product(2, ProductCategory.FASHION));
+        return counters;
+    }
+
+    @Test
+    void ranksViewsAndWeightedSales() {
+        TrendingCounters counters = counters();
+        counters.recordView(1L);
+        counters.recordView(1L);
+        counters.recordSales(Map.of(2L, 1));
+        counters.refresh();
+
+        assertThat(counters.top(TrendingRanking.TRENDING, TrendingWindow.HOUR, null, 10)).containsExactly(2L, 1L);
+        assertThat(counters.top(TrendingRanking.BEST_SELLERS, TrendingWindow.DAY, null, 10)).containsExactly(2L);
+        assertThat(counters.top(TrendingRanking.TRENDING, TrendingWindow.WEEK, ProductCategory.ELECTRONICS, 10))
+                .containsExactly(1L);
+    }
+
+    @Test
+    void ignoresViewsOfProductsThatAreNotListed() {
+        TrendingCounters counters = counters();
+        counters.recordView(-1L);
+        counters.recordView(999_999L);
+        counters.recordView(null);
+        counters.recordView(1L);
+        counters.refresh();
+
+        SlidingWindowCounter views = (SlidingWindowCounter) ReflectionTestUtils.getField(counters, "views");
+        Map<Long, Long> totals = new HashMap<>();
+        views.addTotals(TrendingWindow.WEEK, System.currentTimeMillis(), totals);
+        assertThat(totals).containsOnlyKeys(1L);
+        assertThat(counters.top(TrendingRanking.TRENDING, TrendingWindow.HOUR, null, 10)).containsExactly(1L);
+    }
+
+    // Snapshots written before views were checked can hold negative ids, which used to break every refresh
+    @Test
+    void dropsNegativeIdsFromOlderSnapshots() {
+        TrendingCounters counters = counters();
+        SlidingWindowCounter views = (SlidingWindowCounter) ReflectionTestUtils.getField(counters, "views");
+        views.add(-5L, 3, System.currentTimeMillis());
+        counters.recordView(2L);
+        counters.refresh();
+        counters.saveSnapshot();
+
+        TrendingCounters restored = counters();
+        restored.loadSnapshot();
+        restored.refresh();
+
+        SlidingWindowCounter restoredViews = (SlidingWindowCounter) ReflectionTestUtils.getField(restored, "views");
+        Map<Long, Long> totals = new HashMap<>();
+        restoredViews.addTotals(TrendingWindow.DAY, System.currentTimeMillis(), totals);
+        assertThat(totals).containsOnlyKeys(2L);
+        assertThat(counters.top(TrendingRanking.TRENDING, TrendingWindow.HOUR, null, 10)).containsExactly(2L);
+        assertThat(restored.top(TrendingRanking.TRENDING, TrendingWindow.HOUR, null, 10)).containsExactly(2L);
+    }
+
+    private static Product product(long id, ProductCategory category) {
+        return Product.builder().id(id).status("active").visibility("public").category(category).build();
+    }
+}
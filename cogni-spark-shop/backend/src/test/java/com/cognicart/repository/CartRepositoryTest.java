@@ -0,0 +1,63 @@
+package com.cognicart.repository;
+
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.CartItem;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.UserRole;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class CartRepositoryTest {
+    
+    @Autowired
+    private CartRepository cartRepository;
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    // The foreign keys delete the cart and its lines with the user
+    @Test
+    void deletesTheCartWithItsUser() {
+        User user = userRepository.save(User.builder()
+                .email("leaving@example.com")
+                .password("x")
+                .firstName("Leaving")
+                .role(UserRole.CUSTOMER)
+                .active(true)
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .productId("lamp")
+                .productTitle("Lamp")
+                .category(ProductCategory.HOME_KITCHEN)
+                .price(19.99)
+                .build());
+        Cart cart = cartRepository.save(Cart.builder().user(user).build());
+        cartItemRepository.save(CartItem.builder().cart(cart).product(product).quantity(1).unitPrice(19.99).build());
+        entityManager.flush();
+        entityManager.clear();
+        
+        userRepository.deleteById(user.getId());
+        entityManager.flush();
+        entityManager.clear();
+        
+        assertThat(cartRepository.count()).isZero();
+        assertThat(cartItemRepository.count()).isZero();
+        assertThat(productRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cognicart.search;
+
+import com.cognicart.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttributeIndexTest {
+
+    private final AttributeIndex index = new AttributeIndex();
+
+    private static Product.ProductBuilder product(long id) {
+        return Product.builder()
+                .id(id)
+                .productTitle("Product " + id)
+                .status("active")
+                .visibility("public");
+    }
+
+    private int[] match(String attribute, String... values) {
+        return index.match(Map.of(attribute, List.of(values))).toArray();
+    }
+
+    @Test
+    void matchesSpecificationsSizesAndColumns() {
+        index.index(product(1)
+                .specifications("{\"Battery Life\": \"20h\", \"ports\": [\"USB-C\", \"HDMI\"], \"dims\": {\"w\": 3}}")
+                .connectivity("Bluetooth, Wi-Fi")
+                .build());
+        index.index(product(2).sizes("[\"S\", \"M\"]").fitType("Slim").build());
+        index.index(product(3).sizes("M, L").fitType("Regular").build());
+
+        assertThat(match("battery_life", "20H")).containsExactly(1);
+        assertThat(match("ports", "hdmi")).containsExactly(1);
+        assertThat(match("connectivity", "Wi-Fi")).containsExactly(1);
+        assertThat(match(AttributeIndex.SIZE, "m")).containsExactly(2, 3);
+        assertThat(match(AttributeIndex.SIZE, "S", "L")).containsExactly(2, 3);
+        assertThat(match("dims", "{\"w\":3}")).isEmpty();
+        assertThat(match("colour", "red")).isEmpty();
+    }
+
+    // Values of one attribute are alternatives; separate attributes must all match
+    @Test
+    void intersectsAttributesAndUnitesValues() {
+        index.index(product(1).sizes("[\"M\"]").fitType("Slim").build());
+        index.index(product(2).sizes("[\"M\"]").fitType("Regular").build());
+        index.index(product(3).sizes("[\"L\"]").fitType("Slim").build());
+
+        assertThat(index.match(Map.of(AttributeIndex.SIZE, List.of("M"), "fitType", List.of("Slim"))).toArray())
+                .containsExactly(1);
+        assertThat(index.match(Map.of(AttributeIndex.SIZE, List.of("M", "L"), "fit_type", List.of("slim"))).toArray())
+                .containsExactly(1, 3);
+        assertThat(index.match(Map.of(AttributeIndex.SIZE, List.of("M"), "material", List.of("Cotton"))).toArray())
+                .isEmpty();
+    }
+
+    @Test
+    void dropsOldValuesWhenAProductChanges() {
+        index.index(product(1).sizes("[\"M\"]").specifications("{\"color\": \"Red\"}").build());
+        index.index(product(2).sizes("[\"M\"]").build());
+
+        index.index(product(1).sizes("[\"L\"]").build());
+
+        assertThat(match(AttributeIndex.SIZE, "M")).containsExactly(2);
+        assertThat(match(AttributeIndex.SIZE, "L")).containsExactly(1);
+        assertThat(match("color", "Red")).isEmpty();
+    }
+
+    @Test
+    void dropsProductsThatAreRemovedOrNoLongerListed() {
+        index.index(product(1).sizes("[\"M\"]").build());
+        index.index(product(2).sizes("[\"M\"]").build());
+        index.index(product(3).sizes("[\"M\"]").build());
+
+        index.remove(1L);
+        index.index(product(2).sizes("[\"M\"]").visibility("private").build());
+        index.remove(99L);
+
+        assertThat(match(AttributeIndex.SIZE, "M")).containsExactly(3);
+    }
+}
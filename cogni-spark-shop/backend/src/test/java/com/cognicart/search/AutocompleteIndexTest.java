@@ -0,0 +1,138 @@
+package com.cognicart.search;
+
+import com.cognicart.benchmark.GeneratedCatalog;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutocompleteIndexTest {
+
+    private final AutocompleteIndex index = new AutocompleteIndex();
+
+    private static Product product(long id, String title, String brand, double rating, int reviews) {
+        return Product.builder()
+                .id(id)
+                .productTitle(title)
+                .brand(brand)
+                .rating(rating)
+                .reviewsCount(reviews)
+                .status("active")
+                .visibility("public")
+                .build();
+    }
+
+    @Test
+    void ranksSuggestionsByProductWeight() {
+        index.index(product(1, "Samsung Galaxy S23", "Samsung", 4.0, 10));
+        index.index(product(2, "Samsung Galaxy Buds", "Samsung", 4.5, 1000));
+        index.index(product(3, "Sandisk Ultra 64GB", "Sandisk", 0, 0));
+
+        // The brand carries the weight of both its products
+        assertThat(index.suggest("sa", 10))
+                .containsExactly("Samsung", "Samsung Galaxy Buds", "Samsung Galaxy S23", "Sandisk", "Sandisk Ultra 64GB");
+        assertThat(index.suggest("samsung gal", 1)).containsExactly("Samsung Galaxy Buds");
+        assertThat(index.suggest("SAMSUNG-galaxy", 10)).hasSize(2);
+    }
+
+    @Test
+    void matchesWordsInsideTextsAfterLeadingMatches() {
+        index.index(product(1, "Sony Wireless Headphones", "Sony", 5.0, 100));
+        index.index(product(2, "Headphone Stand", "Generic", 0, 0));
+
+        assertThat(index.suggest("head", 10)).containsExactly("Headphone Stand", "Sony Wireless Headphones");
+        assertThat(index.suggest("wireless head", 10)).containsExactly("Sony Wireless Headphones");
+        assertThat(index.suggest("eadphones", 10)).isEmpty();
+    }
+
+    @Test
+    void suggestsCategoryNamesAndAuthors() {
+        Product book = product(1, "The Guide", "Penguin", 0, 0);
+        book.setAuthor("R. K. Narayan");
+        book.setCategory(ProductCategory.values()[0]);
+        index.index(book);
+
+        assertThat(index.suggest("narayan", 10)).containsExactly("R. K. Narayan");
+        assertThat(index.suggest("r k", 10)).containsExactly("R. K. Narayan");
+        assertThat(index.suggest(ProductCategory.values()[0].name().substring(0, 3), 10)).isNotEmpty();
+    }
+
+    @Test
+    void dropsSuggestionsAndNodesWithTheirLastProduct() {
+        index.index(product(1, "Wireless Mouse", "Logitech", 0, 0));
+        index.index(product(2, "Wireless Keyboard", "Logitech", 0, 0));
+        index.remove(1L);
+
+        assertThat(index.suggest("wireless", 10)).containsExactly("Wireless Keyboard");
+        assertThat(index.suggest("mouse", 10)).isEmpty();
+
+        index.remove(2L);
+        assertThat(index.suggest("w", 10)).isEmpty();
+        assertThat(index.suggest("l", 10)).isEmpty();
+        assertThat(index.nodeCount()).isEqualTo(2);
+    }
+
+    @Test
+    void leavesOutInactiveProducts() {
+        Product product = product(1, "Desk Lamp", "Philips", 0, 0);
+        product.setStatus("deleted");
+        index.index(product);
+
+        assertThat(index.suggest("desk", 10)).isEmpty();
+    }
+
+    // Incremental updates must leave the trees answering exactly like a fresh build of the final catalog
+    @Test
+    void incrementalUpdatesMatchAFreshBuild() {
+        GeneratedCatalog catalog = new GeneratedCatalog(3);
+        List<Product> products = catalog.products(4_000);
+        index.indexAll(products);
+
+        Random random = new Random(5);
+        List<Product> live = new ArrayList<>(products);
+        for (int i = 0; i < 1_500; i++) {
+            int victim = random.nextInt(live.size());
+            if (random.nextBoolean()) {
+                index.remove(live.remove(victim).getId());
+            } else {
+                Product replacement = catalog.product(live.get(victim).getId());
+                live.set(victim, replacement);
+                index.index(replacement);
+            }
+        }
+        AutocompleteIndex fresh = new AutocompleteIndex();
+        fresh.indexAll(live);
+
+        List<String> prefixes = new ArrayList<>(List.of("s", "sa", "samsung w", "wire", "head", "blue", "pro", "k"));
+        for (int i = 0; i < 40; i++) {
+            prefixes.add(catalog.tailWord().substring(0, 3));
+        }
+        for (String prefix : prefixes) {
+            assertThat(index.suggest(prefix, 10)).as(prefix).isEqualTo(fresh.suggest(prefix, 10));
+        }
+        assertThat(index.nodeCount()).isEqualTo(fresh.nodeCount());
+    }
+
+    // A radix tree has at most one internal node per key besides the leaves, so nodes stay under twice the
+    // number of indexed keys; a node per character would need several times more
+    @Test
+    void keepsTheTreesCompact() {
+        List<Product> products = new GeneratedCatalog(9).products(5_000);
+        index.indexAll(products);
+
+        long keys = 0;
+        long characters = 0;
+        for (Product product : products) {
+            String title = product.getProductTitle();
+            keys += title.split(" ").length;
+            characters += title.length();
+        }
+        assertThat(index.nodeCount()).isLessThan((int) (2 * keys + 200));
+        assertThat(index.nodeCount()).isLessThan((int) (characters / 3));
+    }
+}
@@ -0,0 +1,117 @@
+package com.cognicart.search;
+
+import com.cognicart.cache.CatalogVersions;
+import com.cognicart.entity.Product;
+import com.cognicart.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductIndexerTest {
+    
+    private final ProductIndex index = mock(ProductIndex.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductIndexer indexer = new ProductIndexer();
+    private final Product product = Product.builder().id(7L).build();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(indexer, "indexes", List.of(index));
+        ReflectionTestUtils.setField(indexer, "productRepository", productRepository);
+        ReflectionTestUtils.setField(indexer, "catalogVersions", new CatalogVersions());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void indexesImmediatelyOutsideATransaction() {
+        indexer.index(product);
+        indexer.remove(8L);
+        
+        verify(index).index(product);
+        verify(index).remove(8L);
+    }
+    
+    @Test
+    void indexesOnlyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        indexer.index(product);
+        indexer.indexAll(List.of(product));
+        indexer.remove(8L);
+        
+        verify(index, never()).index(product);
+        verify(index, never()).indexAll(List.of(product));
+        verify(index, never()).remove(8L);
+        
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(index).index(product);
+        verify(index).indexAll(List.of(product));
+        verify(index).remove(8L);
+    }
+    
+    @Test
+    void leavesTheIndexesAloneWhenTheTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        indexer.index(product);
+        indexer.remove(8L);
+        
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        verify(index, never()).index(product);
+        verify(index, never()).remove(8L);
+    }
+    
+    // Search, facet and autocomplete reads started while the startup build is loading wait for all of it
+    @Test
+    void holdsReadersUntilTheFirstBuildCompletes() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepository.findActiveProductsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return List.of(product);
+        });
+        CompletableFuture<Void> build = CompletableFuture.runAsync(indexer::rebuild);
+        loading.await();
+        
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(indexer::awaitBuilt);
+        Thread.sleep(100);
+        assertThat(reader).isNotDone();
+        
+        release.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+        build.get(5, TimeUnit.SECONDS);
+        verify(index).indexAll(List.of(product));
+        indexer.awaitBuilt();
+    }
+    
+    @Test
+    void releasesReadersWhenTheBuildFails() {
+        when(productRepository.findActiveProductsAfter(anyLong(), any())).thenThrow(new IllegalStateException("database down"));
+        
+        assertThatThrownBy(indexer::rebuild).hasMessage("database down");
+        indexer.awaitBuilt();
+    }
+}
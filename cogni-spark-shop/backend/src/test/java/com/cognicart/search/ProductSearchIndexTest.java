@@ -0,0 +1,165 @@
+package com.cognicart.search;
+
+import com.cognicart.benchmark.GeneratedCatalog;
+import com.cognicart.benchmark.TypoQueries;
+import com.cognicart.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    private static Product product(long id, String title, String brand, String description) {
+        return Product.builder()
+                .id(id)
+                .productTitle(title)
+                .brand(brand)
+                .description(description)
+                .status("active")
+                .visibility("public")
+                .build();
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 100, null, false).stream().map(SearchHit::productId).collect(Collectors.toList());
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        index.index(product(1, "Steel water bottle", "Milton", "Keeps drinks cold, pairs with any lunch box"));
+        index.index(product(2, "Lunch box", "Milton", "Three compartments"));
+
+        assertThat(ids("lunch box")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void ranksProductsMatchingMoreQueryTermsFirst() {
+        index.index(product(1, "Wireless mouse", "Logitech", null));
+        index.index(product(2, "Wireless keyboard", "Logitech", null));
+        index.index(product(3, "Keyboard cover", "Generic", null));
+
+        assertThat(ids("wireless keyboard")).first().isEqualTo(2L);
+        assertThat(ids("wireless keyboard")).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void reflectsUpdatesAndRemovals() {
+        index.index(product(1, "Running shoes", "Puma", null));
+        index.index(product(1, "Trail shoes", "Puma", null));
+        index.index(product(2, "Running shorts", "Nike", null));
+        index.remove(2L);
+
+        assertThat(ids("running")).isEmpty();
+        assertThat(ids("trail")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesOutInactiveAndPrivateProducts() {
+        Product inactive = product(1, "Desk lamp", "Philips", null);
+        inactive.setStatus("deleted");
+        Product hidden = product(2, "Desk lamp", "Philips", null);
+        hidden.setVisibility("private");
+        index.indexAll(List.of(inactive, hidden, product(3, "Desk lamp", "Philips", null)));
+
+        assertThat(ids("lamp")).containsExactly(3L);
+    }
+
+    @Test
+    void pagesWithASeekCursorInTheSameOrder() {
+        GeneratedCatalog catalog = new GeneratedCatalog(7);
+        index.indexAll(catalog.products(2_000));
+        List<SearchHit> all = index.search("wireless", 200, null, false);
+
+        List<SearchHit> paged = new ArrayList<>();
+        SearchHit after = null;
+        List<SearchHit> page;
+        do {
+            page = index.search("wireless", 25, after, false);
+            paged.addAll(page);
+            after = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == 25 && paged.size() < all.size());
+
+        assertThat(paged.subList(0, all.size())).isEqualTo(all);
+    }
+
+    // The index replaces LIKE '%kw%', so for a whole word it must find exactly the products containing it
+    @Test
+    void matchesTheSameProductsAsAWordScan() {
+        GeneratedCatalog catalog = new GeneratedCatalog(11);
+        List<Product> products = catalog.products(5_000);
+        index.indexAll(products);
+        // Enough removals to trigger compaction of the posting lists
+        for (long id = 1; id <= 1_500; id++) {
+            index.remove(id);
+        }
+        List<Product> live = products.subList(1_500, products.size());
+
+        for (String query : List.of("samsung", "headphones", "waterproof", catalog.tailWord(), catalog.tailWord())) {
+            Set<Long> expected = new HashSet<>();
+            for (Product product : live) {
+                if (Tokenizer.tokenize(product.getProductTitle() + " " + product.getBrand() + " "
+                        + product.getDescription()).contains(query)) {
+                    expected.add(product.getId());
+                }
+            }
+            Set<Long> found = index.search(query, live.size(), null, false).stream()
+                    .map(SearchHit::productId)
+                    .collect(Collectors.toSet());
+            assertThat(found).as(query).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void fallsBackToSimilarSpellingsWhenExactMatchesAreFew() {
+        index.index(product(1, "Galaxy Buds", "Samsung", "Wireless earbuds"));
+        index.index(product(2, "Over-ear headphones", "Sony", "Noise cancelling"));
+        index.index(product(3, "Wireless headphones", "Boat", null));
+
+        assertThat(index.search("samsng", 10, null, true)).extracting(SearchHit::productId).containsExactly(1L);
+        assertThat(index.search("hedphones", 10, null, true)).extracting(SearchHit::productId)
+                .containsExactlyInAnyOrder(2L, 3L);
+        // Two edits are allowed from eight letters
+        assertThat(index.search("wirelss headphnes", 10, null, true)).extracting(SearchHit::productId).first()
+                .isEqualTo(3L);
+        assertThat(index.search("samsng", 10, null, false)).isEmpty();
+    }
+
+    @Test
+    void matchesShortWordsOnlyExactly() {
+        index.index(product(1, "Red mug", "Milton", null));
+
+        assertThat(index.search("rad", 10, null, true)).isEmpty();
+        assertThat(index.search("mugg", 10, null, true)).extracting(SearchHit::productId).containsExactly(1L);
+    }
+
+    // Exact matches win: the fallback only runs when the exact terms match fewer than three products
+    @Test
+    void keepsExactResultsWhenThereAreEnough() {
+        for (long id = 1; id <= 3; id++) {
+            index.index(product(id, "Cable " + id, "Boat", null));
+        }
+        index.index(product(4, "Cabel organiser", "Generic", null));
+
+        assertThat(index.search("cable", 10, null, true)).extracting(SearchHit::productId)
+                .containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void findsMisspeltWordsInAGeneratedCatalog() {
+        GeneratedCatalog catalog = new GeneratedCatalog(21);
+        List<Product> products = catalog.products(20_000);
+        index.indexAll(products);
+        TypoQueries typos = new TypoQueries(catalog, products, 300);
+
+        assertThat(typos.recallAt20(index, id -> products.get((int) (id - 1)))).isGreaterThan(0.9);
+    }
+}
@@ -0,0 +1,154 @@
+package com.cognicart.service;
+
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.CartOperationRequest;
+import com.cognicart.dto.response.CartItemResponse;
+import com.cognicart.dto.response.CartResponse;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.enums.CartOperationType;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.UserRole;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+// Batch cart operations through the database-backed path: applied in order, and all or none
+@SpringBootTest
+@ActiveProfiles("test")
+class CartServiceBatchTest {
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private Product lamp;
+    private Product mug;
+    private Product rug;
+    
+    @BeforeEach
+    void setUp() {
+        String email = "batch-" + UUID.randomUUID() + "@example.com";
+        userRepository.save(User.builder()
+                .email(email)
+                .password("x")
+                .firstName("Batch")
+                .role(UserRole.CUSTOMER)
+                .active(true)
+                .build());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        lamp = productRepository.save(product("Lamp", 19.99));
+        mug = productRepository.save(product("Mug", 4.5));
+        rug = productRepository.save(product("Rug", 80.0));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void appliesOperationsInOrder() {
+        CartResponse cart = cartService.applyOperations(List.of(
+                operation(CartOperationType.ADD, lamp, 2),
+                operation(CartOperationType.ADD, mug, 1),
+                operation(CartOperationType.SET, lamp, 5),
+                operation(CartOperationType.REMOVE, mug, null),
+                operation(CartOperationType.ADD, mug, 3)));
+    
+        assertThat(quantities(cart)).containsExactlyInAnyOrderEntriesOf(Map.of(lamp.getId(), 5, mug.getId(), 3));
+        assertThat(cart.getTotalItems()).isEqualTo(8);
+        assertThat(cart.getTotalPrice()).isCloseTo(5 * 19.99 + 3 * 4.5, within(0.001));
+    }
+    
+    // The third operation sets a product that is not in the cart, so the two before it are rolled back
+    @Test
+    void changesNothingWhenAnOperationFails() {
+        cartService.addToCart(add(lamp, 1));
+    
+        assertThatThrownBy(() -> cartService.applyOperations(List.of(
+                operation(CartOperationType.ADD, mug, 2),
+                operation(CartOperationType.SET, lamp, 4),
+                operation(CartOperationType.SET, rug, 1))))
+                .hasMessage("Cart item not found for operation 2");
+    
+        assertUnchanged();
+    }
+    
+    @Test
+    void rejectsTheBatchBeforeChangingAnything() {
+        cartService.addToCart(add(lamp, 1));
+    
+        assertThatThrownBy(() -> cartService.applyOperations(List.of(
+                operation(CartOperationType.ADD, mug, 2),
+                operation(CartOperationType.SET, lamp, null))))
+                .hasMessage("Quantity is required for operation 1");
+        assertThatThrownBy(() -> cartService.applyOperations(List.of(
+                operation(CartOperationType.REMOVE, lamp, null),
+                operation(CartOperationType.ADD, Product.builder().id(-1L).build(), 1))))
+                .hasMessage("Product not found with id: -1");
+    
+        assertUnchanged();
+    }
+    
+    private void assertUnchanged() {
+        CartResponse cart = cartService.getCart();
+        assertThat(quantities(cart)).containsExactlyEntriesOf(Map.of(lamp.getId(), 1));
+        assertThat(cart.getTotalItems()).isEqualTo(1);
+        assertThat(cart.getTotalPrice()).isCloseTo(19.99, within(0.001));
+    }
+    
+    private static Map<Long, Integer> quantities(CartResponse cart) {
+        return cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItemResponse::getQuantity));
+    }
+    
+    private static CartOperationRequest operation(CartOperationType op, Product product, Integer quantity) {
+        CartOperationRequest operation = new CartOperationRequest();
+        operation.setOp(op);
+        operation.setProductId(product.getId());
+        operation.setQuantity(quantity);
+        return operation;
+    }
+    
+    private static AddToCartRequest add(Product product, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(quantity);
+        return request;
+    }
+    
+    private static Product product(String name, double price) {
+        return Product.builder()
+                .productId(name.toLowerCase() + "-" + UUID.randomUUID())
+                .productTitle(name)
+                .category(ProductCategory.HOME_KITCHEN)
+                .price(price)
+                .priceVersion(1L)
+                .status("active")
+                .visibility("public")
+                .inStock(true)
+                .build();
+    }
+}
@@ -0,0 +1,184 @@
+package com.cognicart.service;
+
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.UpdateCartItemRequest;
+import com.cognicart.dto.response.CartItemResponse;
+import com.cognicart.dto.response.CartResponse;
+import com.cognicart.entity.Cart;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.enums.UserRole;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// Many requests changing one cart at once, through the database-backed path: none may be lost or counted twice
+@SpringBootTest
+@ActiveProfiles("test")
+class CartServiceConcurrencyTest {
+    
+    private static final int THREADS = 8;
+    private static final int CHANGES_PER_THREAD = 25;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private String email;
+    private Product lamp;
+    private Product mug;
+    
+    @BeforeEach
+    void setUp() {
+        email = "shopper-" + UUID.randomUUID() + "@example.com";
+        userRepository.save(User.builder()
+                .email(email)
+                .password("x")
+                .firstName("Shopper")
+                .role(UserRole.CUSTOMER)
+                .active(true)
+                .build());
+        lamp = productRepository.save(product("Lamp", 19.99));
+        mug = productRepository.save(product("Mug", 4.5));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    // Every thread starts before the cart exists, so the first adds also race to create the cart and its lines
+    @Test
+    void countsEveryConcurrentAdd() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                cartService.addToCart(add(lamp, 1));
+                cartService.addToCart(add(mug, 2));
+            }
+        });
+    
+        CartResponse cart = signedIn(cartService::getCart);
+        int lamps = THREADS * CHANGES_PER_THREAD;
+        assertThat(quantities(cart)).containsExactlyInAnyOrderEntriesOf(Map.of(lamp.getId(), lamps, mug.getId(), 2 * lamps));
+        assertThat(cart.getTotalItems()).isEqualTo(3 * lamps);
+        assertThat(cart.getTotalPrice()).isCloseTo(Cart.roundAmount(lamps * 19.99 + 2 * lamps * 4.5), within(0.001));
+    }
+    
+    // Half the threads add lamps while the other half keep setting the mug quantity; the adds all count, the mug
+    // ends at one of the quantities set, and the totals match the lines
+    @Test
+    void keepsTotalsInStepWithConcurrentAddsAndUpdates() throws Exception {
+        signedIn(() -> cartService.addToCart(add(mug, 1)));
+    
+        runConcurrently(thread -> {
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                if (thread % 2 == 0) {
+                    cartService.addToCart(add(lamp, 1));
+                } else {
+                    UpdateCartItemRequest request = new UpdateCartItemRequest();
+                    request.setQuantity(1 + (thread + i) % 5);
+                    cartService.updateCartItem(mug.getId(), request);
+                }
+            }
+        });
+    
+        CartResponse cart = signedIn(cartService::getCart);
+        Map<Long, Integer> quantities = quantities(cart);
+        int lamps = THREADS / 2 * CHANGES_PER_THREAD;
+        int mugs = quantities.get(mug.getId());
+        assertThat(quantities.get(lamp.getId())).isEqualTo(lamps);
+        assertThat(mugs).isBetween(1, 5);
+        assertThat(cart.getTotalItems()).isEqualTo(lamps + mugs);
+        assertThat(cart.getTotalPrice()).isCloseTo(Cart.roundAmount(lamps * 19.99 + mugs * 4.5), within(0.001));
+        
+        CartResponse withoutMugs = signedIn(() -> cartService.removeFromCart(mug.getId()));
+        assertThat(quantities(withoutMugs)).containsExactlyEntriesOf(Map.of(lamp.getId(), lamps));
+        assertThat(withoutMugs.getTotalItems()).isEqualTo(lamps);
+        assertThat(withoutMugs.getTotalPrice()).isCloseTo(Cart.roundAmount(lamps * 19.99), within(0.001));
+    }
+    
+    private interface Shopper {
+        void shop(int thread) throws Exception;
+    }
+    
+    // Runs the shopper on every thread at once, each signed in as the same user, and fails on any error
+    private void runConcurrently(Shopper shopper) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int index = thread;
+                tasks.add(() -> signedIn(() -> {
+                    shopper.shop(index);
+                    return null;
+                }));
+            }
+            for (Future<Void> result : executor.invokeAll(tasks, 2, TimeUnit.MINUTES)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private <T> T signedIn(Callable<T> work) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        try {
+            return work.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+    
+    private static Map<Long, Integer> quantities(CartResponse cart) {
+        return cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItemResponse::getQuantity));
+    }
+    
+    private static AddToCartRequest add(Product product, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(quantity);
+        return request;
+    }
+    
+    private static Product product(String name, double price) {
+        return Product.builder()
+                .productId(name.toLowerCase() + "-" + UUID.randomUUID())
+                .productTitle(name)
+                .category(ProductCategory.HOME_KITCHEN)
+                .price(price)
+                .priceVersion(1L)
+                .status("active")
+                .visibility("public")
+                .inStock(true)
+                .build();
+    }
+}
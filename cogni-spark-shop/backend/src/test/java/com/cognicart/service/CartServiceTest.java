@@ -0,0 +1,117 @@
+package com.cognicart.service;
+
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.request.CartOperationRequest;
+import com.cognicart.entity.Cart;
+import com.cognicart.enums.CartOperationType;
+import com.cognicart.mapper.CartMapperImpl;
+import com.cognicart.projection.ProductPrice;
+import com.cognicart.repository.CartItemRepository;
+import com.cognicart.repository.CartRepository;
+import com.cognicart.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CartServiceTest {
+    
+    private final CartService cartService = new CartService();
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductService productService = mock(ProductService.class);
+    private final AuthService authService = mock(AuthService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cartService, "cartRepository", cartRepository);
+        ReflectionTestUtils.setField(cartService, "cartItemRepository", cartItemRepository);
+        ReflectionTestUtils.setField(cartService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(cartService, "productService", productService);
+        ReflectionTestUtils.setField(cartService, "authService", authService);
+        ReflectionTestUtils.setField(cartService, "cartMapper", new CartMapperImpl());
+        ReflectionTestUtils.setField(cartService, "transactionTemplate", transactionTemplate);
+    
+        when(authService.getCurrentUserEmail()).thenReturn("asha@example.com");
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productService.getProductsById(anyCollection())).thenReturn(Map.of());
+        when(cartRepository.findIdByUserEmail(anyString())).thenReturn(Optional.of(1L));
+        when(cartRepository.addToTotalsForLine(anyLong(), anyLong(), anyLong(), anyDouble(), anyInt())).thenReturn(1);
+        when(cartItemRepository.incrementQuantity(anyLong(), anyLong(), anyLong(), anyInt())).thenReturn(1);
+        when(cartRepository.findWithItemsById(anyLong())).thenReturn(Optional.of(Cart.builder().id(1L).build()));
+    }
+    
+    // Prices come from the product cache, and the amount added in SQL is rounded like Cart.addToTotals rounds it
+    @Test
+    void addsAtTheCachedPriceInRoundedAmounts() {
+        when(productService.getProductPrice(7L)).thenReturn(new ProductPrice(7L, 33.335, 2L));
+    
+        cartService.addToCart(request(7L, 3));
+    
+        verify(cartRepository).addToTotalsForLine(1L, 7L, 2L, 100.01, 3);
+        verify(cartItemRepository).incrementQuantity(1L, 7L, 2L, 3);
+        verifyNoInteractions(productRepository);
+    }
+    
+    @Test
+    void rejectsProductsTheCacheCannotFind() {
+        when(productService.getProductPrice(9L)).thenThrow(new RuntimeException("Product not found with id: 9"));
+    
+        assertThatThrownBy(() -> cartService.addToCart(request(9L, 1))).hasMessage("Product not found with id: 9");
+        verifyNoInteractions(cartRepository);
+    }
+    
+    @Test
+    void resolvesBatchAdditionsThroughTheProductCache() {
+        CartOperationRequest operation = new CartOperationRequest();
+        operation.setOp(CartOperationType.ADD);
+        operation.setProductId(8L);
+        operation.setQuantity(1);
+    
+        assertThatThrownBy(() -> cartService.applyOperations(List.of(operation)))
+                .hasMessage("Product not found with id: 8");
+        verify(productService).getProductsById(eq(Set.of(8L)));
+        verifyNoInteractions(productRepository);
+    }
+    
+    @Test
+    void roundsEachAmountBeforeAddingItToTheTotals() {
+        Cart cart = Cart.builder().build();
+        cart.addToTotals(33.335 * 3, 3);
+        cart.addToTotals(0.1, 1);
+        cart.addToTotals(0.2, 1);
+    
+        assertThat(cart.getTotalPrice()).isEqualTo(100.31);
+        assertThat(cart.getTotalItems()).isEqualTo(5);
+    }
+    
+    private static AddToCartRequest request(Long productId, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
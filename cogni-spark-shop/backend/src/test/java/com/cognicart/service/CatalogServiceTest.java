@@ -0,0 +1,123 @@
+package com.cognicart.service;
+
+import com.cognicart.dto.response.CatalogBatchResponse;
+import com.cognicart.dto.response.CatalogSubmissionResult;
+import com.cognicart.entity.CatalogEntry;
+import com.cognicart.entity.Product;
+import com.cognicart.projection.ProductKey;
+import com.cognicart.repository.CatalogEntryRepository;
+import com.cognicart.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogServiceTest {
+    
+    private final CatalogService catalogService = new CatalogService();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogEntryRepository catalogEntryRepository = mock(CatalogEntryRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    
+    // Entries persisted in the current transaction; flushing one for product 2 violates a constraint
+    private final List<CatalogEntry> pending = new ArrayList<>();
+    private final List<CatalogEntry> committed = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int transactions;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(catalogService, "catalogEntryRepository", catalogEntryRepository);
+        ReflectionTestUtils.setField(catalogService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(catalogService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(catalogService, "objectMapper", new ObjectMapper());
+    
+        when(productRepository.findKeysByProductIdIn(anyCollection())).thenReturn(List.of(
+                new ProductKey(1L, "p1"), new ProductKey(2L, "p2"), new ProductKey(3L, "p3")));
+        when(catalogEntryRepository.findProductIdsWithEntry(anyCollection())).thenReturn(List.of());
+        when(entityManager.getReference(eq(Product.class), anyLong()))
+                .thenAnswer(invocation -> Product.builder().id(invocation.getArgument(1)).build());
+        doAnswer(invocation -> {
+            CatalogEntry entry = invocation.getArgument(0);
+            entry.setId(sequence.incrementAndGet());
+            pending.add(entry);
+            return null;
+        }).when(entityManager).persist(any(CatalogEntry.class));
+        doAnswer(invocation -> {
+            if (pending.stream().anyMatch(entry -> entry.getProduct().getId() == 2L)) {
+                throw new DataIntegrityViolationException("value too long for column");
+            }
+            return null;
+        }).when(entityManager).flush();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            transactions++;
+            pending.clear();
+            try {
+                Object result = invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+                committed.addAll(pending);
+                return result;
+            } finally {
+                pending.clear();
+            }
+        });
+        doAnswer(invocation -> transactionTemplate.execute(status -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(status);
+            return null;
+        })).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
+    @Test
+    void insertsAChunkInOneTransaction() throws Exception {
+        CatalogBatchResponse response = submit("p1", "p3");
+    
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(transactions).isEqualTo(1);
+        assertThat(committed).hasSize(2);
+    }
+    
+    @Test
+    void rejectsOnlyTheEntriesTheDatabaseRefuses() throws Exception {
+        CatalogBatchResponse response = submit("p1", "p2", "p3");
+    
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(CatalogSubmissionResult::getAccepted).containsExactly(true, false, true);
+        assertThat(response.getResults().get(1).getMessage()).startsWith("Rejected by database:");
+        assertThat(response.getResults().get(1).getEntryId()).isNull();
+        // Accepted results carry the ids of the rows that were committed, not of the rolled back chunk
+        assertThat(response.getResults()).filteredOn(CatalogSubmissionResult::getAccepted)
+                .extracting(CatalogSubmissionResult::getEntryId)
+                .containsExactlyElementsOf(committed.stream().map(CatalogEntry::getId).toList());
+        assertThat(transactions).isEqualTo(4);
+    }
+    
+    private CatalogBatchResponse submit(String... productIds) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (String productId : productIds) {
+            body.append("{\"product_id\":\"").append(productId).append("\",\"catalog_data\":{\"title\":\"Lamp\"}}\n");
+        }
+        return catalogService.submitBatch(new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
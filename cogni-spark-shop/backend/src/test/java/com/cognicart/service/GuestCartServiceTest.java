@@ -0,0 +1,107 @@
+package com.cognicart.service;
+
+import com.cognicart.cart.GuestCartLimiter;
+import com.cognicart.cart.GuestCartStore;
+import com.cognicart.cart.GuestCartTokens;
+import com.cognicart.dto.request.AddToCartRequest;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.enums.CartOperationType;
+import com.cognicart.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class GuestCartServiceTest {
+    
+    private final GuestCartService guestCartService = new GuestCartService();
+    private final GuestCartStore guestCartStore = mock(GuestCartStore.class);
+    private final GuestCartTokens guestCartTokens = new GuestCartTokens("test-secret");
+    private final GuestCartLimiter guestCartLimiter = mock(GuestCartLimiter.class);
+    private final ProductService productService = mock(ProductService.class);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(guestCartService, "guestCartStore", guestCartStore);
+        ReflectionTestUtils.setField(guestCartService, "guestCartTokens", guestCartTokens);
+        ReflectionTestUtils.setField(guestCartService, "guestCartLimiter", guestCartLimiter);
+        ReflectionTestUtils.setField(guestCartService, "productService", productService);
+        
+        when(productService.getProductById(1L)).thenReturn(product(1L, "active", "public", true));
+        when(productService.getProductById(2L)).thenReturn(product(2L, "draft", "public", true));
+        when(productService.getProductById(3L)).thenReturn(product(3L, "active", "private", true));
+        when(productService.getProductById(4L)).thenReturn(product(4L, "active", "public", false));
+        when(productService.getProductsById(anyCollection())).thenReturn(Map.of());
+    }
+    
+    @Test
+    void startsACartForAPurchasableProduct() {
+        String token = guestCartService.addToCart(null, request(1L), "10.0.0.1").getCartToken();
+        
+        verify(guestCartLimiter).acquire("10.0.0.1");
+        verify(guestCartStore).change(guestCartTokens.parse(token), CartOperationType.ADD, 1L, 2);
+    }
+    
+    // Unlisted and out of stock products are refused before a cart is started or the address is charged for one
+    @Test
+    void startsNoCartForProductsThatCannotBeBought() {
+        for (long productId = 2; productId <= 4; productId++) {
+            long id = productId;
+            assertThatThrownBy(() -> guestCartService.addToCart(null, request(id), "10.0.0.1"))
+                    .hasMessage("Product is not available: " + id);
+        }
+        
+        verifyNoInteractions(guestCartLimiter, guestCartStore);
+    }
+    
+    @Test
+    void startsNoCartOverTheAddressLimit() {
+        doThrow(new TooManyRequestsException("Too many new carts")).when(guestCartLimiter).acquire("10.0.0.1");
+        
+        assertThatThrownBy(() -> guestCartService.addToCart(null, request(1L), "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        verifyNoInteractions(guestCartStore);
+    }
+    
+    // Adding to a cart the visitor already has does not count against the limit
+    @Test
+    void addsToAnExistingCartWithoutTheLimit() {
+        String token = guestCartTokens.issue(42);
+        
+        assertThat(guestCartService.addToCart(token, request(1L), "10.0.0.1").getCartToken()).isEqualTo(token);
+        verify(guestCartLimiter, never()).acquire(any());
+        verify(guestCartStore).change(eq(42L), eq(CartOperationType.ADD), anyLong(), anyInt());
+    }
+    
+    private static AddToCartRequest request(Long productId) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(productId);
+        request.setQuantity(2);
+        return request;
+    }
+    
+    private static ProductResponse product(Long id, String status, String visibility, boolean inStock) {
+        return ProductResponse.builder()
+                .id(id)
+                .price(10.0)
+                .status(status)
+                .visibility(visibility)
+                .inStock(inStock)
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.cognicart.service;
+
+import com.cognicart.dto.response.BulkImportResponse;
+import com.cognicart.dto.response.ImportRowError;
+import com.cognicart.entity.Product;
+import com.cognicart.entity.User;
+import com.cognicart.repository.ProductRepository;
+import com.cognicart.search.ProductIndexer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductImportServiceTest {
+    
+    private final ProductImportService importService = new ProductImportService();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductIndexer productIndexer = mock(ProductIndexer.class);
+    private final AuthService authService = mock(AuthService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    // Products persisted in the current transaction; flushing one with productId p2 violates a constraint
+    private final List<Product> pending = new ArrayList<>();
+    private final List<Product> committed = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int transactions;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(importService, "productService", new ProductService());
+        ReflectionTestUtils.setField(importService, "productIndexer", productIndexer);
+        ReflectionTestUtils.setField(importService, "authService", authService);
+        ReflectionTestUtils.setField(importService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(importService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(importService, "transactionTemplate", transactionTemplate);
+    
+        when(authService.getCurrentUser()).thenReturn(User.builder().id(1L).email("seller@example.com").build());
+        when(productRepository.findExistingProductIds(anyCollection())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            // Persisting a product that still has an id would fail as a detached entity
+            assertThat(product.getId()).isNull();
+            product.setId(sequence.incrementAndGet());
+            pending.add(product);
+            return null;
+        }).when(entityManager).persist(any(Product.class));
+        doAnswer(invocation -> {
+            if (pending.stream().anyMatch(product -> product.getProductId().equals("p2"))) {
+                throw new DataIntegrityViolationException("value too long for column");
+            }
+            return null;
+        }).when(entityManager).flush();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            transactions++;
+            pending.clear();
+            try {
+                Object result = invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+                committed.addAll(pending);
+                return result;
+            } finally {
+                pending.clear();
+            }
+        });
+        doAnswer(invocation -> transactionTemplate.execute(status -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(status);
+            return null;
+        })).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
+    @Test
+    void insertsAChunkInOneTransaction() throws Exception {
+        BulkImportResponse response = importRows(row("p1", "Lamp"), row("p3", "Mug"));
+    
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getFailed()).isZero();
+        assertThat(transactions).isEqualTo(1);
+        assertThat(indexed()).extracting(Product::getProductId).containsExactly("p1", "p3");
+    }
+    
+    @Test
+    void rejectsOnlyTheRowsTheDatabaseRefuses() throws Exception {
+        BulkImportResponse response = importRows(row("p1", "Lamp"), row("p2", "Rug"), row("p3", "Mug"));
+    
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(2);
+            assertThat(error.getProductId()).isEqualTo("p2");
+            assertThat(error.getMessage()).isEqualTo("Rejected by database: value too long for column");
+        });
+        assertThat(transactions).isEqualTo(4);
+        assertThat(committed).extracting(Product::getProductId).containsExactly("p1", "p3");
+        assertThat(indexed()).containsExactlyElementsOf(committed);
+    }
+    
+    @Test
+    void checksEveryBoundedColumnBeforeInserting() throws Exception {
+        BulkImportResponse response = importRows(
+                Map.of("productId", "p4", "productTitle", "Lamp", "brand", "b".repeat(256)),
+                Map.of("productId", "p5", "productTitle", "Lamp", "isbn", "9".repeat(256)),
+                Map.of("productId", "p6", "productTitle", "Lamp", "sellerSubmittedTitle", "t".repeat(501)),
+                Map.of("productId", "p7", "productTitle", "t".repeat(200), "color", "c".repeat(255)),
+                Map.of("productId", "p".repeat(100), "productTitle", "t".repeat(200)));
+    
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(response.getErrors()).extracting(ImportRowError::getMessage).containsExactly(
+                "brand exceeds 255 characters",
+                "isbn exceeds 255 characters",
+                "sellerSubmittedTitle exceeds 500 characters",
+                "productTitle and productId make a slug longer than 255 characters");
+        assertThat(committed).extracting(Product::getProductId).containsExactly("p7");
+    }
+    
+    @Test
+    void skipsTheDatabaseWhenEveryRowIsInvalid() throws Exception {
+        BulkImportResponse response = importRows(Map.of("productId", "p8", "productTitle", " "));
+    
+        assertThat(response.getErrors()).extracting(ImportRowError::getMessage).containsExactly("productTitle is required");
+        verifyNoInteractions(entityManager, productIndexer);
+    }
+    
+    private List<Product> indexed() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> products = ArgumentCaptor.forClass(List.class);
+        verify(productIndexer).indexAll(products.capture());
+        return products.getValue();
+    }
+    
+    @SafeVarargs
+    private BulkImportResponse importRows(Map<String, String>... rows) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (Map<String, String> row : rows) {
+            body.append(objectMapper.writeValueAsString(row)).append('\n');
+        }
+        return importService.importNdjson(new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static Map<String, String> row(String productId, String title) {
+        return Map.of("productId", productId, "productTitle", title);
+    }
+}
@@ -0,0 +1,112 @@
+package com.cognicart.service;
+
+import com.cognicart.cache.ProductCache;
+import com.cognicart.dto.response.BatchProductResponse;
+import com.cognicart.dto.response.ProductResponse;
+import com.cognicart.entity.Product;
+import com.cognicart.enums.ProductCategory;
+import com.cognicart.mapper.ProductMapperImpl;
+import com.cognicart.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+    
+    private final ProductService productService = new ProductService();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final List<Product> catalog = List.of(product(1L, "p1"), product(2L, "p2"), product(3L, "p3"), product(4L, "p4"));
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(productService, "productCache", new ProductCache(100, Duration.ofMinutes(10)));
+        ReflectionTestUtils.setField(productService, "productMapper", new ProductMapperImpl());
+    
+        // The database returns rows in its own order, not the order they were asked for
+        when(productRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return catalog.stream().filter(product -> contains(ids, product.getId())).sorted(Comparator.comparing(Product::getId).reversed()).toList();
+        });
+        when(productRepository.findByProductIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> productIds = invocation.getArgument(0);
+            return catalog.stream().filter(product -> productIds.contains(product.getProductId())).sorted(Comparator.comparing(Product::getId).reversed()).toList();
+        });
+    }
+    
+    @Test
+    void keepsTheRequestOrderAndListsMisses() {
+        BatchProductResponse batch = productService.getProductsBatch(List.of(3L, 9L, 1L, 3L), List.of("p4", "nope", " "));
+    
+        assertThat(batch.getItems()).extracting(ProductResponse::getProductId).containsExactly("p3", "p1", "p4");
+        assertThat(batch.getMissingIds()).containsExactly(9L);
+        assertThat(batch.getMissingProductIds()).containsExactly("nope");
+    }
+    
+    // Products already cached, by either key, are not loaded again; only the misses reach the database
+    @Test
+    void loadsOnlyWhatTheCacheMisses() {
+        productService.getProductsBatch(List.of(1L, 2L), null);
+        BatchProductResponse batch = productService.getProductsBatch(List.of(2L, 4L, 1L), List.of("p1", "p3"));
+    
+        assertThat(batch.getItems()).extracting(ProductResponse::getProductId).containsExactly("p2", "p4", "p1", "p1", "p3");
+        verify(productRepository).findAllById(List.of(1L, 2L));
+        verify(productRepository).findAllById(List.of(4L));
+        verify(productRepository).findByProductIdIn(List.of("p3"));
+    }
+    
+    @Test
+    void limitsTheNumberOfDistinctKeys() {
+        List<Long> ids = LongStream.rangeClosed(1, 200).boxed().collect(Collectors.toList());
+        List<Long> repeated = LongStream.rangeClosed(1, 400).map(i -> 1 + i % 200).boxed().collect(Collectors.toList());
+    
+        assertThat(productService.getProductsBatch(repeated, null).getMissingIds()).hasSize(196);
+        assertThatThrownBy(() -> productService.getProductsBatch(ids, List.of("p1")))
+                .hasMessage("At most 200 products per batch");
+    }
+    
+    @Test
+    void answersAnEmptyBatchWithoutQueries() {
+        BatchProductResponse batch = productService.getProductsBatch(null, null);
+    
+        assertThat(batch.getItems()).isEmpty();
+        assertThat(batch.getMissingIds()).isEmpty();
+        assertThat(batch.getMissingProductIds()).isEmpty();
+        verifyNoInteractions(productRepository);
+    }
+    
+    private static boolean contains(Iterable<Long> ids, Long id) {
+        for (Long candidate : ids) {
+            if (candidate.equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static Product product(Long id, String productId) {
+        return Product.builder()
+                .id(id)
+                .productId(productId)
+                .productTitle("Product " + id)
+                .category(ProductCategory.HOME_KITCHEN)
+                .price(10.0)
+                .build();
+    }
+}
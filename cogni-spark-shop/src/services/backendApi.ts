@@ -10,8 +10,10 @@ const getAuthHeaders = () => {
 };
 
 // Products API
-export const getAllProducts = async () => {
-  const response = await axios.get(`${API_BASE_URL}/api/products`);
+export const getAllProducts = async (cursor?: string, size: number = 20) => {
+  const response = await axios.get(`${API_BASE_URL}/api/products`, {
+    params: { cursor, size },
+  });
   return response.data;
 };
 
@@ -20,14 +22,23 @@ export const getProductById = async (id: string) => {
   return response.data;
 };
 
-export const getProductsByCategory = async (category: string) => {
-  const response = await axios.get(`${API_BASE_URL}/api/products/category/${category}`);
+export const getProductsByCategory = async (category: string, cursor?: string, size: number = 20) => {
+  const response = await axios.get(`${API_BASE_URL}/api/products/category/${category}`, {
+    params: { cursor, size },
+  });
   return response.data;
 };
 
-export const searchProducts = async (keyword: string) => {
+export const searchProducts = async (keyword: string, cursor?: string, size: number = 20) => {
   const response = await axios.get(`${API_BASE_URL}/api/products/search`, {
-    params: { keyword },
+    params: { keyword, cursor, size },
+  });
+  return response.data;
+};
+
+export const autocompleteProducts = async (prefix: string, limit: number = 8): Promise<string[]> => {
+  const response = await axios.get(`${API_BASE_URL}/api/products/autocomplete`, {
+    params: { prefix, limit },
   });
   return response.data;
 };